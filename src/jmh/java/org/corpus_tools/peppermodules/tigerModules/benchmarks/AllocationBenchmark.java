@@ -0,0 +1,81 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.samples.SyntheticTreebank;
+import org.corpus_tools.salt.common.SDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+
+/**
+ * Measures the time and memory {@link Tiger22SaltMapper} needs per sentence.
+ * A document of {@value #SEGMENTS} segments is mapped per invocation, so
+ * that all results are normalized to a single segment. Run with
+ * <code>-prof gc</code> to get the allocated bytes per sentence as
+ * <i>gc.alloc.rate.norm</i>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AllocationBenchmark {
+	/** number of segments per mapped document **/
+	public static final int SEGMENTS = 1000;
+
+	@Param("20")
+	public int terminals;
+	@Param("4")
+	public int depth;
+	@Param("1")
+	public int secondaryEdges;
+
+	private Corpus corpus;
+
+	@Setup
+	public void createCorpus() {
+		SyntheticTreebank treebank = new SyntheticTreebank();
+		treebank.setSegments(SEGMENTS);
+		treebank.setTerminals(terminals);
+		treebank.setDepth(depth);
+		treebank.setSecondaryEdges(secondaryEdges);
+		corpus = treebank.createCorpus();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SEGMENTS)
+	public SDocument mapSentence() {
+		return MapBenchmark.mapDocument(corpus, false);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.samples.SyntheticTreebank;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+
+/**
+ * Measures the throughput of {@link Tiger22SaltMapper#mapSDocument()} for an
+ * already parsed &lt;tiger2/&gt; model. Besides the number of mapped
+ * documents per second, the secondary results <i>tokens</i> and
+ * <i>segments</i> report the number of mapped tokens and segments per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MapBenchmark {
+	@Param("1000")
+	public int segments;
+	@Param("20")
+	public int terminals;
+	@Param("4")
+	public int depth;
+	@Param("1")
+	public int secondaryEdges;
+	@Param({ "false", "true" })
+	public boolean parallelSegments;
+
+	private Corpus corpus;
+
+	@Setup
+	public void createCorpus() {
+		SyntheticTreebank treebank = new SyntheticTreebank();
+		treebank.setSegments(segments);
+		treebank.setTerminals(terminals);
+		treebank.setDepth(depth);
+		treebank.setSecondaryEdges(secondaryEdges);
+		corpus = treebank.createCorpus();
+	}
+
+	/** Counts the mapped tokens and segments. **/
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long tokens;
+		public long segments;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			tokens = 0;
+			segments = 0;
+		}
+	}
+
+	@Benchmark
+	public SDocument map(Counters counters) {
+		SDocument document = mapDocument(corpus, parallelSegments);
+		counters.tokens += document.getDocumentGraph().getTokens().size();
+		counters.segments += corpus.getSegments().size();
+		return document;
+	}
+
+	/**
+	 * Maps the given corpus to a new {@link SDocument} with the default
+	 * properties.
+	 */
+	static SDocument mapDocument(Corpus corpus, boolean parallelSegments) {
+		Tiger22SaltMapper mapper = new Tiger22SaltMapper();
+		SDocument document = SaltFactory.createSDocument();
+		document.setName("benchmark");
+		mapper.setDocument(document);
+		Tiger2ImporterProperties properties = new Tiger2ImporterProperties();
+		((PepperModuleProperty<Boolean>) properties.getProperty(Tiger2ImporterProperties.PROP_PARALLEL_SEGMENTS)).setValue(parallelSegments);
+		mapper.setProperties(properties);
+		mapper.setCorpus(corpus);
+		mapper.mapSDocument();
+		return document;
+	}
+}
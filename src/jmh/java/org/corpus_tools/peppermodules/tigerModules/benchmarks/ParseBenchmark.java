@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.corpus_tools.peppermodules.tigerModules.samples.SyntheticTreebank;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
+
+/**
+ * Measures the time needed to parse a TigerXML file, once into an entire
+ * &lt;tiger2/&gt; model via {@link TigerResourceFactory} and once segment by
+ * segment via {@link TigerXMLStreamReader}. No Salt objects are created.
+ * The file is generated by {@link SyntheticTreebank}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParseBenchmark {
+	@Param("1000")
+	public int segments;
+	@Param("20")
+	public int terminals;
+
+	private File file;
+
+	@Setup
+	public void createFile() throws IOException {
+		file = File.createTempFile("benchmark", "." + TigerResourceFactory.FILE_ENDING_TIGERXML);
+		SyntheticTreebank treebank = new SyntheticTreebank();
+		treebank.setSegments(segments);
+		treebank.setTerminals(terminals);
+		treebank.writeTigerXML(file);
+	}
+
+	@TearDown
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Benchmark
+	public void parseResource(Blackhole blackhole) throws IOException {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGERXML, new TigerResourceFactory());
+		Resource resource = resourceSet.createResource(URI.createFileURI(file.getAbsolutePath()));
+		resource.load(null);
+		blackhole.consume(resource.getContents().get(0));
+		resource.unload();
+	}
+
+	@Benchmark
+	public void parseStream(Blackhole blackhole) {
+		try (TigerXMLStreamReader reader = new TigerXMLStreamReader(file)) {
+			while (reader.hasNext()) {
+				blackhole.consume(reader.next());
+			}
+		}
+	}
+}
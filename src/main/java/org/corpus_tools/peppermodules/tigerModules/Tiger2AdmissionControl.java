@@ -0,0 +1,101 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of documents mapped at the same time by the heap their
+ * mapping is estimated to need, see
+ * {@link Tiger2ImporterProperties#PROP_MEMORY_BUDGET}. A mapper is admitted
+ * via {@link #acquire(long)} before it reads its file and leaves via
+ * {@link #release(long)} when the document is mapped.
+ * <br/>
+ * Mappers are admitted in the order they arrive, so that a large document is
+ * not overtaken by smaller ones forever. A document, whose estimate exceeds
+ * the budget on its own, is admitted when no other document is admitted.
+ */
+public class Tiger2AdmissionControl {
+	private final long budget;
+	/** the sum of the estimates of all admitted documents **/
+	private long admitted = 0;
+	/** the number of admitted documents **/
+	private int running = 0;
+	/** the waiting documents in the order they arrived **/
+	private final LinkedList<Object> queue = new LinkedList<>();
+	private final AtomicInteger waits = new AtomicInteger();
+
+	/**
+	 * @param budget
+	 *            the maximal sum of the estimates of all admitted documents in
+	 *            bytes
+	 */
+	public Tiger2AdmissionControl(long budget) {
+		this.budget = budget;
+	}
+
+	/** Returns the maximal sum of the estimates of all admitted documents. **/
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Waits until the document having the given estimate fits into the budget
+	 * and all documents, which arrived earlier, are admitted.
+	 * 
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting, the document is
+	 *             not admitted then
+	 */
+	public synchronized void acquire(long estimate) throws InterruptedException {
+		Object waiting = new Object();
+		queue.add(waiting);
+		boolean waited = false;
+		try {
+			while ((queue.peek() != waiting) || ((running > 0) && (admitted + estimate > budget))) {
+				waited = true;
+				wait();
+			}
+		} finally {
+			queue.remove(waiting);
+			// the next document may fit as well
+			notifyAll();
+		}
+		if (waited) {
+			waits.incrementAndGet();
+		}
+		admitted += estimate;
+		running++;
+	}
+
+	/** Releases the memory of a document admitted with the given estimate. **/
+	public synchronized void release(long estimate) {
+		admitted -= estimate;
+		running--;
+		notifyAll();
+	}
+
+	/**
+	 * Returns the number of documents, which had to wait for other documents
+	 * before they were admitted.
+	 */
+	public int getNumberOfWaits() {
+		return waits.get();
+	}
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentReader;
+import org.corpus_tools.peppermodules.tigerModules.readers.Tiger2BinaryReader;
+import org.corpus_tools.peppermodules.tigerModules.readers.Tiger2BinaryWriter;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Meta;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+/**
+ * Stores parsed &lt;tiger2/&gt; models on disk in the format of
+ * {@link Tiger2BinaryWriter}, so that importing an unchanged file again skips
+ * parsing its XML, see {@link Tiger2ImporterProperties#PROP_CACHE}.
+ * <br/>
+ * An entry is identified by a key computed from the content of the file, the
+ * {@link Tiger2BinaryWriter#FORMAT_VERSION}, the way the file is read
+ * together with the version of its reader, see
+ * {@link #getReaderVersion(boolean)}, and the {@link SegmentRange} to be
+ * mapped. The content of a file is hashed once and reused for the keys of
+ * all its parts, as long as size and modification time of the file are
+ * unchanged. Since a changed file gets a new key, an
+ * entry never needs to be invalidated, outdated entries are just no longer
+ * used and are evicted eventually. The mapping properties are not part of the
+ * key, because the cached model does not depend on them.
+ * <br/>
+ * An entry is written to a temporary file and renamed when it is complete,
+ * so that concurrent mappers never read a partial entry. When the entries
+ * exceed the maximal size, the least recently used ones are deleted. The
+ * time an entry was last used is its modification time, which is updated
+ * on each hit.
+ */
+public class Tiger2Cache {
+	private static final Logger logger = LoggerFactory.getLogger(Tiger2Cache.class);
+	/** file ending of a cache entry **/
+	public static final String FILE_ENDING = "t2b";
+	/** file ending of an entry, which is still being written **/
+	public static final String FILE_ENDING_TEMPORARY = "tmp";
+
+	private final File directory;
+	private final long maxSize;
+	private final AtomicInteger hits = new AtomicInteger();
+	private Tiger2ContentHashes contentHashes = new Tiger2ContentHashes();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * @param directory
+	 *            the directory containing the entries, it is created if it does
+	 *            not exist
+	 * @param maxSize
+	 *            maximal size of all entries in bytes
+	 */
+	public Tiger2Cache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		if ((!directory.isDirectory()) && (!directory.mkdirs())) {
+			throw new PepperModuleException("Cannot create cache directory '" + directory.getAbsolutePath() + "'.");
+		}
+	}
+
+	/** Returns the directory containing the entries. **/
+	public File getDirectory() {
+		return directory;
+	}
+
+	/** Returns the maximal size of all entries in bytes. **/
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/** Returns the number of entries found by {@link #open(String)}. **/
+	public int getNumberOfHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the {@link Tiger2ContentHashes}, which hash the content of the
+	 * files for the keys.
+	 */
+	public Tiger2ContentHashes getContentHashes() {
+		return contentHashes;
+	}
+
+	public void setContentHashes(Tiger2ContentHashes contentHashes) {
+		this.contentHashes = contentHashes;
+	}
+
+	/** Returns the number of entries not found by {@link #open(String)}. **/
+	public int getNumberOfMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Computes the key of the entry for the given file. Reading the file to
+	 * hash its content is much cheaper than parsing it, and it is done only
+	 * once for all parts of a file, see {@link #getContentHashes()}.
+	 * 
+	 * @param file
+	 *            the TigerXML or tiger2 file
+	 * @param loaded
+	 *            whether the file is loaded via the EMF resource mechanism
+	 *            instead of being read segment by segment
+	 * @param range
+	 *            the segments to be mapped, or <code>null</code> for all
+	 */
+	public String getKey(File file, boolean loaded, SegmentRange range) throws IOException {
+		MessageDigest digest = Tiger2ContentHashes.createDigest();
+		String prefix = Tiger2BinaryWriter.FORMAT_VERSION + "|" + getReaderVersion(loaded) + "|" + ((range == null) ? "" : range.getFrom() + "-" + range.getTo()) + "|";
+		digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+		digest.update(contentHashes.get(file).getBytes(StandardCharsets.UTF_8));
+		return Tiger2ContentHashes.toHex(digest.digest());
+	}
+
+	/**
+	 * Returns the version of the reader, which parses a file loaded via the
+	 * EMF resource mechanism or read segment by segment. This is the version
+	 * of the tiger2 library, as far as its jar declares one, or
+	 * {@link TigerXMLStreamReader#READER_VERSION}.
+	 */
+	static String getReaderVersion(boolean loaded) {
+		if (loaded) {
+			Package tiger2 = Corpus.class.getPackage();
+			return "load-" + (((tiger2 == null) || (tiger2.getImplementationVersion() == null)) ? "unknown" : tiger2.getImplementationVersion());
+		}
+		return "stream-" + TigerXMLStreamReader.READER_VERSION;
+	}
+
+	/**
+	 * Returns a reader for the entry having the given key, or
+	 * <code>null</code> if there is none. An entry, which cannot be read, is
+	 * deleted.
+	 */
+	public SegmentReader open(String key) {
+		File file = getFile(key);
+		if (file.isFile()) {
+			try {
+				SegmentReader reader = new Tiger2BinaryReader(file);
+				file.setLastModified(System.currentTimeMillis());
+				hits.incrementAndGet();
+				return reader;
+			} catch (PepperModuleException e) {
+				logger.warn("Deleting unreadable cache entry '{}'. ", file.getAbsolutePath(), e);
+				file.delete();
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Starts writing the entry having the given key. The entry is not visible
+	 * until it has been passed to {@link #commit(Entry)}.
+	 */
+	public Entry create(String key, Meta meta, AnnotationScheme annotationScheme) throws IOException {
+		File temporary = File.createTempFile(key + ".", "." + FILE_ENDING_TEMPORARY, directory);
+		try {
+			return new Entry(key, temporary, new Tiger2BinaryWriter(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16), meta, annotationScheme));
+		} catch (IOException | RuntimeException e) {
+			temporary.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Completes the given entry and makes it visible. Afterwards the least
+	 * recently used entries are evicted, if the cache exceeds its size. An
+	 * entry, which could not be written entirely, is discarded.
+	 */
+	public void commit(Entry entry) {
+		if (entry.failed) {
+			discard(entry);
+			return;
+		}
+		try {
+			entry.writer.finish();
+			entry.writer.close();
+			Files.move(entry.temporary.toPath(), getFile(entry.key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Cannot write cache entry '{}'. ", getFile(entry.key).getAbsolutePath(), e);
+			discard(entry);
+			return;
+		}
+		evict();
+	}
+
+	/**
+	 * Drops the given entry without making it visible.
+	 */
+	public void discard(Entry entry) {
+		try {
+			entry.writer.close();
+		} catch (IOException e) {
+			// nothing to do, the file is deleted anyway
+		}
+		entry.temporary.delete();
+	}
+
+	/**
+	 * Deletes the least recently used entries, until all entries fit into
+	 * {@link #getMaxSize()}.
+	 */
+	public synchronized void evict() {
+		File[] entries = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith("." + FILE_ENDING);
+			}
+		});
+		if (entries == null) {
+			return;
+		}
+		long size = 0;
+		for (File file : entries) {
+			size += file.length();
+		}
+		if (size <= maxSize) {
+			return;
+		}
+		final long[] lastUsed = new long[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			lastUsed[i] = entries[i].lastModified();
+		}
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		// the modification time may change while sorting, so it is read once
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(lastUsed[o1], lastUsed[o2]);
+			}
+		});
+		for (int i = 0; (i < order.length) && (size > maxSize); i++) {
+			File file = entries[order[i]];
+			long length = file.length();
+			if (file.delete()) {
+				size -= length;
+				logger.debug("Evicted cache entry '{}'.", file.getName());
+			}
+		}
+	}
+
+	private File getFile(String key) {
+		return new File(directory, key + "." + FILE_ENDING);
+	}
+
+	/**
+	 * An entry of the cache, which is being written. Segments are added via
+	 * {@link #write(Segment)} in document order. If writing fails, the entry
+	 * is marked as failed and is discarded on {@link Tiger2Cache#commit(Entry)},
+	 * but mapping the document continues.
+	 */
+	public static class Entry {
+		private final String key;
+		private final File temporary;
+		private final Tiger2BinaryWriter writer;
+		private boolean failed = false;
+
+		private Entry(String key, File temporary, Tiger2BinaryWriter writer) {
+			this.key = key;
+			this.temporary = temporary;
+			this.writer = writer;
+		}
+
+		/** Returns the key of the entry. **/
+		public String getKey() {
+			return key;
+		}
+
+		/** Adds the given segment to the entry. **/
+		public void write(Segment segment) {
+			if (failed) {
+				return;
+			}
+			try {
+				writer.write(segment);
+			} catch (IOException | RuntimeException e) {
+				logger.warn("Cannot write segment '{}' to cache entry '{}', the entry is discarded. ", segment.getId(), key, e);
+				failed = true;
+			}
+		}
+	}
+}
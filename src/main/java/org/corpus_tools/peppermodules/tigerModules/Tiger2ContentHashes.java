@@ -0,0 +1,122 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+
+/**
+ * The SHA-256 hashes of the content of files. The content of a file is
+ * hashed once and the hash is reused, as long as size and modification time
+ * of the file are unchanged.
+ * <br/>
+ * The {@link Tiger2Importer} shares one instance between its
+ * {@link Tiger2Cache} and its {@link Tiger2Manifest}, so that a file split
+ * into several parts is read once per import to compute the cache keys and
+ * the manifest entries of all its parts.
+ */
+public class Tiger2ContentHashes {
+	/** the content hash of each file by its absolute path **/
+	private final ConcurrentMap<String, ContentHash> contentHashes = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the SHA-256 hash of the content of the given file. Callers
+	 * asking for the same file at the same time wait for a single
+	 * computation.
+	 */
+	public String get(File file) throws IOException {
+		long size = file.length();
+		long lastModified = file.lastModified();
+		String path = file.getAbsolutePath();
+		ContentHash contentHash = contentHashes.get(path);
+		while ((contentHash == null) || (contentHash.size != size) || (contentHash.lastModified != lastModified)) {
+			ContentHash created = new ContentHash(size, lastModified);
+			boolean stored = (contentHash == null) ? (contentHashes.putIfAbsent(path, created) == null) : contentHashes.replace(path, contentHash, created);
+			contentHash = stored ? created : contentHashes.get(path);
+		}
+		synchronized (contentHash) {
+			if (contentHash.hash == null) {
+				contentHash.hash = hash(file);
+			}
+			return contentHash.hash;
+		}
+	}
+
+	/**
+	 * Returns a new SHA-256 digest.
+	 * 
+	 * @throws PepperModuleException
+	 *             if SHA-256 is not supported
+	 */
+	public static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new PepperModuleException("Cannot hash files, because SHA-256 is not supported. ", e);
+		}
+	}
+
+	/**
+	 * Reads the given file and returns the SHA-256 hash of its content,
+	 * without reusing an earlier hash.
+	 */
+	public static String hash(File file) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/** Returns the given bytes as lower case hexadecimal string. **/
+	public static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * The content hash of a file having the given size and modification time,
+	 * <code>null</code> until it has been computed.
+	 */
+	private static class ContentHash {
+		final long size;
+		final long lastModified;
+		String hash = null;
+
+		ContentHash(long size, long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+	}
+}
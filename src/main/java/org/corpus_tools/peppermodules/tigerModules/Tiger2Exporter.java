@@ -0,0 +1,72 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import org.corpus_tools.pepper.common.PepperConfiguration;
+import org.corpus_tools.pepper.impl.PepperExporterImpl;
+import org.corpus_tools.pepper.modules.PepperExporter;
+import org.corpus_tools.pepper.modules.PepperMapper;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Salt2TigerXMLMapper;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.graph.Identifier;
+import org.eclipse.emf.common.util.URI;
+import org.osgi.service.component.annotations.Component;
+
+import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
+
+/**
+ * Exports each document of a Salt model to a TigerXML file. The files are
+ * written by a {@link Salt2TigerXMLMapper} segment by segment, without
+ * creating a &lt;tiger2/&gt; model, see {@link Tiger2ExporterProperties} for
+ * how the mapping of the {@link Tiger2Importer} is reversed.
+ */
+@Component(name = "Tiger2ExporterComponent", factory = "PepperExporterComponentFactory")
+public class Tiger2Exporter extends PepperExporterImpl implements PepperExporter {
+	/**
+	 * Initializes an exporter, exporting data to TigerXML.
+	 */
+	public Tiger2Exporter() {
+		super();
+		setName("Tiger2Exporter");
+		setSupplierContact(URI.createURI(PepperConfiguration.EMAIL));
+		setSupplierHomepage(URI.createURI("https://github.com/korpling/pepperModules-TigerModules"));
+		setDesc("This exporter transforms a Salt model to TigerXML. ");
+		this.addSupportedFormat("tigerXML", "1.0", null);
+		setExportMode(EXPORT_MODE.DOCUMENTS_IN_FILES);
+		setDocumentEnding(TigerResourceFactory.FILE_ENDING_TIGERXML);
+		setProperties(new Tiger2ExporterProperties());
+	}
+
+	/**
+	 * Creates a mapper writing the document given by the identifier to the
+	 * file assigned to it.
+	 */
+	@Override
+	public PepperMapper createPepperMapper(Identifier sElementId) {
+		Salt2TigerXMLMapper mapper = new Salt2TigerXMLMapper();
+		if (sElementId.getIdentifiableElement() instanceof SDocument) {
+			URI outputUri = this.getIdentifier2ResourceTable().get(sElementId);
+			if (outputUri == null) {
+				throw new PepperModuleException(this, "There was no matching uri found corresponding to document '" + sElementId + "'.");
+			}
+			mapper.setResourceURI(outputUri);
+		}
+		return (mapper);
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.corpus_tools.pepper.modules.PepperModuleProperties;
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.pepper.modules.exceptions.PepperModulePropertyException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.MappingDiagnostics;
+import org.corpus_tools.salt.SALT_TYPE;
+
+/**
+ * Properties to customize the mapping of a Salt model to TigerXML. The
+ * properties shared with the {@link Tiger2ImporterProperties} have the same
+ * names and syntax and are applied in the reverse direction, so that the
+ * values used for an import can be used for exporting the data again.
+ */
+@SuppressWarnings("serial")
+public class Tiger2ExporterProperties extends PepperModuleProperties {
+	/**
+	 * Determines, which edge types have been mapped to which kind of
+	 * {@link org.corpus_tools.salt.core.SRelation}, see
+	 * {@link Tiger2ImporterProperties#PROP_EDGE_2_SRELATION}.
+	 */
+	public static final String PROP_EDGE_2_SRELATION = Tiger2ImporterProperties.PROP_EDGE_2_SRELATION;
+	/**
+	 * The renaming table of edge types used for the import, see
+	 * {@link Tiger2ImporterProperties#PROP_RENAME_EDGE_TYPE}.
+	 */
+	public static final String PROP_RENAME_EDGE_TYPE = Tiger2ImporterProperties.PROP_RENAME_EDGE_TYPE;
+	/**
+	 * The renaming table of annotation names used for the import, see
+	 * {@link Tiger2ImporterProperties#PROP_RENAME_ANNOTATION_NAME}.
+	 */
+	public static final String PROP_RENAME_ANNOTATION_NAME = Tiger2ImporterProperties.PROP_RENAME_ANNOTATION_NAME;
+	/**
+	 * The edge types, whose direction has been reversed by the import, see
+	 * {@link Tiger2ImporterProperties#PROP_EDGE_REVERSE}.
+	 */
+	public static final String PROP_EDGE_REVERSE = Tiger2ImporterProperties.PROP_EDGE_REVERSE;
+	/**
+	 * The number of examples kept for each kind of relation, which cannot be
+	 * exported as given, see {@link MappingDiagnostics}.
+	 */
+	public static final String PROP_DIAGNOSTIC_SAMPLES = Tiger2ImporterProperties.PROP_DIAGNOSTIC_SAMPLES;
+
+	public Tiger2ExporterProperties() {
+		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_2_SRELATION, String.class, "The mapping of edge types to kinds of SRelation used for the import, with the syntax type:SALT_TYPE(, type:SALT_TYPE)*. A relation, whose type is mapped to " + SALT_TYPE.SDOMINANCE_RELATION + ", is written as <edge/>, one mapped to " + SALT_TYPE.SPOINTING_RELATION + " as <secedge/>. The types 'prim' and 'sec' are always written as <edge/> and <secedge/>.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_RENAME_EDGE_TYPE, String.class, "The renaming table for edge types used for the import, with the syntax 'OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*'. The table is applied in reverse, so that a relation of type NEWNAME is exported as edge of type OLDNAME.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_RENAME_ANNOTATION_NAME, String.class, "The renaming table for annotation names used for the import, with the syntax 'OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*'. The table is applied in reverse, so that an annotation named NEWNAME is exported as attribute OLDNAME.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_REVERSE, String.class, "A comma separated list of edge types, whose direction has been reversed by the import. The direction of relations having these types is reversed again, so that the edge is written at its original source node.", "secedge,sec", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_DIAGNOSTIC_SAMPLES, Integer.class, "Relations, which cannot be exported as given, like relations between different segments, are not logged one by one, but counted per edge type and kinds of nodes, and a single summary is logged per document. This property gives the number of examples listed in the summary for each of them.", MappingDiagnostics.DEFAULT_SAMPLES, false));
+	}
+
+	/**
+	 * Returns the kinds of {@link org.corpus_tools.salt.core.SRelation} the
+	 * edge types have been mapped to, see {@link #PROP_EDGE_2_SRELATION}.
+	 */
+	public Map<String, SALT_TYPE> getRelationTypes() {
+		Object value = getProperty(PROP_EDGE_2_SRELATION).getValue();
+		return Tiger2ImporterProperties.parseRelationTypes((value == null) ? null : value.toString(), PROP_EDGE_2_SRELATION);
+	}
+
+	/**
+	 * Returns the renaming table of {@link #PROP_RENAME_EDGE_TYPE} in reverse,
+	 * with key= type of the relation and value= type of the edge.
+	 */
+	public Map<String, String> getEdgeTypes() {
+		return invert(Tiger2ImporterProperties.parseRenaming((String) getProperty(PROP_RENAME_EDGE_TYPE).getValue(), PROP_RENAME_EDGE_TYPE));
+	}
+
+	/**
+	 * Returns the renaming table of {@link #PROP_RENAME_ANNOTATION_NAME} in
+	 * reverse, with key= name of the annotation and value= name of the
+	 * attribute.
+	 */
+	public Map<String, String> getAnnotationNames() {
+		return invert(Tiger2ImporterProperties.parseRenaming((String) getProperty(PROP_RENAME_ANNOTATION_NAME).getValue(), PROP_RENAME_ANNOTATION_NAME));
+	}
+
+	/**
+	 * Returns the edge types, whose direction is reversed, see
+	 * {@link #PROP_EDGE_REVERSE}.
+	 */
+	public Set<String> getRelationReversed() {
+		return Tiger2ImporterProperties.parseTypes((String) getProperty(PROP_EDGE_REVERSE).getValue());
+	}
+
+	/**
+	 * Returns the number of examples kept per anomaly, see
+	 * {@link #PROP_DIAGNOSTIC_SAMPLES}.
+	 */
+	public int getDiagnosticSamples() {
+		Integer samples = (Integer) getProperty(PROP_DIAGNOSTIC_SAMPLES).getValue();
+		if (samples == null) {
+			return MappingDiagnostics.DEFAULT_SAMPLES;
+		}
+		if (samples < 0) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + samples + "' for property '" + PROP_DIAGNOSTIC_SAMPLES + "', because it is negative.");
+		}
+		return samples;
+	}
+
+	/**
+	 * Inverts the given renaming table. When several old names have been
+	 * renamed to the same new name, the first one in alphabetical order is
+	 * taken.
+	 */
+	private static Map<String, String> invert(Map<String, String> renaming) {
+		Map<String, String> inverted = new Hashtable<>();
+		for (Map.Entry<String, String> entry : new TreeMap<>(renaming).entrySet()) {
+			if (!inverted.containsKey(entry.getValue())) {
+				inverted.put(entry.getValue(), entry.getKey());
+			}
+		}
+		return inverted;
+	}
+}
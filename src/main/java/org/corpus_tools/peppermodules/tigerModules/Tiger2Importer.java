@@ -17,23 +17,35 @@
  */
 package org.corpus_tools.peppermodules.tigerModules;
 
-import java.io.IOException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.corpus_tools.pepper.common.PepperConfiguration;
 import org.corpus_tools.pepper.impl.PepperImporterImpl;
 import org.corpus_tools.pepper.modules.PepperImporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleNotReadyException;
+import org.corpus_tools.pepper.modules.exceptions.PepperModulePropertyException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.AnnotationInterner;
 import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLPartitioner;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
 import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
-import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import de.hu_berlin.german.korpling.tiger2.Corpus;
 import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
 
 /**
@@ -59,6 +71,8 @@ import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
  */
 @Component(name = "Tiger2ImporterComponent", factory = "PepperImporterComponentFactory")
 public class Tiger2Importer extends PepperImporterImpl implements PepperImporter {
+	private static final Logger logger = LoggerFactory.getLogger(Tiger2Importer.class);
+
 	/**
 	 * Initializes an importer, importing data from a <tiger2/> model.
 	 */
@@ -83,27 +97,310 @@ public class Tiger2Importer extends PepperImporterImpl implements PepperImporter
 	}
 
 	/**
-	 * {@link ResourceSet} object to load models via emf resource mechanism.
+	 * Loads the &lt;tiger2/&gt; models of all documents, which are not read
+	 * segment by segment.
 	 */
-	private ResourceSet resourceSet = null;
+	private Tiger2ResourceLoader resourceLoader = new Tiger2ResourceLoader();
 
-	private ResourceSet getResourceSet() {
-		if (resourceSet == null) {
-			synchronized (this) {
-				if (resourceSet == null) {
-					resourceSet = new ResourceSetImpl();
-					resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGER2, new TigerResourceFactory());
-					resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGER2_2, new TigerResourceFactory());
-					resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGERXML, new TigerResourceFactory());
-					resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGERXML_2, new TigerResourceFactory());
-				}
+	/**
+	 * Returns the loader, which is passed to each {@link Tiger22SaltMapper} to
+	 * load the &lt;tiger2/&gt; model of its document.
+	 */
+	public Tiger2ResourceLoader getResourceLoader() {
+		return resourceLoader;
+	}
+
+	public void setResourceLoader(Tiger2ResourceLoader resourceLoader) {
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * Shares the names and values of annotations among all documents of the
+	 * import.
+	 */
+	private AnnotationInterner annotationInterner = new AnnotationInterner();
+
+	/**
+	 * Returns the {@link AnnotationInterner}, which is passed to each
+	 * {@link Tiger22SaltMapper}.
+	 */
+	public AnnotationInterner getAnnotationInterner() {
+		return annotationInterner;
+	}
+
+	public void setAnnotationInterner(AnnotationInterner annotationInterner) {
+		this.annotationInterner = annotationInterner;
+	}
+
+	/**
+	 * Hashes the content of each file once for the {@link Tiger2Cache} and the
+	 * {@link Tiger2Manifest}.
+	 */
+	private final Tiger2ContentHashes contentHashes = new Tiger2ContentHashes();
+
+	/**
+	 * The cache given by {@link Tiger2ImporterProperties#PROP_CACHE}, created
+	 * when first needed.
+	 */
+	private Tiger2Cache cache = null;
+
+	/**
+	 * Returns the {@link Tiger2Cache}, which is passed to each
+	 * {@link Tiger22SaltMapper}, or <code>null</code> if
+	 * {@link Tiger2ImporterProperties#PROP_CACHE} is not set.
+	 */
+	public synchronized Tiger2Cache getCache() {
+		if (cache == null) {
+			Tiger2ImporterProperties props = (Tiger2ImporterProperties) getProperties();
+			if (props.getCacheDirectory() != null) {
+				cache = new Tiger2Cache(props.getCacheDirectory(), props.getCacheSize());
+				cache.setContentHashes(contentHashes);
 			}
 		}
-		return (resourceSet);
+		return cache;
+	}
+
+	public synchronized void setCache(Tiger2Cache cache) {
+		this.cache = cache;
 	}
 
 	/**
-	 * Creates a mapper of type {@link Tiger22SaltMapper}. {@inheritDoc
+	 * The manifest given by {@link Tiger2ImporterProperties#PROP_INCREMENTAL},
+	 * read when first needed.
+	 */
+	private Tiger2Manifest manifest = null;
+
+	/**
+	 * Returns the {@link Tiger2Manifest}, which is passed to each
+	 * {@link Tiger22SaltMapper} and is saved at the {@link #end()} of the
+	 * import, or <code>null</code> if
+	 * {@link Tiger2ImporterProperties#PROP_INCREMENTAL} is not set.
+	 */
+	public synchronized Tiger2Manifest getManifest() {
+		if (manifest == null) {
+			File location = ((Tiger2ImporterProperties) getProperties()).getIncrementalManifest();
+			if (location != null) {
+				manifest = new Tiger2Manifest(location);
+				manifest.setContentHashes(contentHashes);
+			}
+		}
+		return manifest;
+	}
+
+	public synchronized void setManifest(Tiger2Manifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * The pool to map segments in parallel, created when first needed and
+	 * shut down at the {@link #end()} of the import.
+	 */
+	private ForkJoinPool segmentPool = null;
+
+	/**
+	 * Returns the pool, which all {@link Tiger22SaltMapper} objects share to
+	 * map segments in parallel, or <code>null</code> if
+	 * {@link Tiger2ImporterProperties#PROP_PARALLEL_SEGMENTS} is not set. It
+	 * has one thread for each available processor.
+	 */
+	public synchronized ForkJoinPool getSegmentPool() {
+		if ((segmentPool == null) && (((Tiger2ImporterProperties) getProperties()).isParallelSegments())) {
+			segmentPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+		return segmentPool;
+	}
+
+	/**
+	 * The prefetcher given by {@link Tiger2ImporterProperties#PROP_PREFETCH},
+	 * created when first needed.
+	 */
+	private Tiger2Prefetcher prefetcher = null;
+
+	/**
+	 * Returns the {@link Tiger2Prefetcher}, which loads the files of upcoming
+	 * documents in the background, or <code>null</code> if
+	 * {@link Tiger2ImporterProperties#PROP_PREFETCH} is 0.
+	 */
+	public synchronized Tiger2Prefetcher getPrefetcher() {
+		if (prefetcher == null) {
+			Tiger2ImporterProperties props = (Tiger2ImporterProperties) getProperties();
+			int depth = props.getPrefetch();
+			if (depth > 0) {
+				prefetcher = new Tiger2Prefetcher(getResourceLoader(), Math.min(depth, Runtime.getRuntime().availableProcessors()), props.getPrefetchMemory());
+			}
+		}
+		return prefetcher;
+	}
+
+	public synchronized void setPrefetcher(Tiger2Prefetcher prefetcher) {
+		this.prefetcher = prefetcher;
+	}
+
+	/**
+	 * The admission control given by
+	 * {@link Tiger2ImporterProperties#PROP_MEMORY_BUDGET}, created when first
+	 * needed.
+	 */
+	private Tiger2AdmissionControl admissionControl = null;
+
+	/**
+	 * Returns the {@link Tiger2AdmissionControl}, which is passed to each
+	 * {@link Tiger22SaltMapper}, or <code>null</code> if
+	 * {@link Tiger2ImporterProperties#PROP_MEMORY_BUDGET} is not set.
+	 */
+	public synchronized Tiger2AdmissionControl getAdmissionControl() {
+		if (admissionControl == null) {
+			long budget = ((Tiger2ImporterProperties) getProperties()).getMemoryBudget();
+			if (budget > 0) {
+				admissionControl = new Tiger2AdmissionControl(budget);
+			}
+		}
+		return admissionControl;
+	}
+
+	public synchronized void setAdmissionControl(Tiger2AdmissionControl admissionControl) {
+		this.admissionControl = admissionControl;
+	}
+
+	/**
+	 * The metrics given by {@link Tiger2ImporterProperties#PROP_METRICS},
+	 * created when first needed.
+	 */
+	private Tiger2Metrics metrics = null;
+
+	/**
+	 * Returns the {@link Tiger2Metrics}, which collect the metrics of each
+	 * {@link Tiger22SaltMapper}, or <code>null</code> if no metrics are
+	 * recorded. The metrics are registered via JMX when they are created.
+	 */
+	public synchronized Tiger2Metrics getMetrics() {
+		if ((metrics == null) && (((Tiger2ImporterProperties) getProperties()).isMetrics())) {
+			metrics = new Tiger2Metrics();
+			metrics.register(getName());
+		}
+		return metrics;
+	}
+
+	public synchronized void setMetrics(Tiger2Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * The number of segments of each split file, used to estimate the memory
+	 * needed for a part.
+	 */
+	private final Map<URI, Integer> uri2NumberOfSegments = new ConcurrentHashMap<>();
+
+	/**
+	 * The documents in the order of the corpus graph, which is the order
+	 * Pepper passes them to the mappers. It determines the upcoming documents
+	 * to be prefetched.
+	 */
+	private final List<Identifier> documentOrder = new ArrayList<>();
+	/** the position of each document in {@link #documentOrder} **/
+	private final Map<Identifier, Integer> documentPositions = new HashMap<>();
+
+	/**
+	 * Returns the documents in the order they are expected to be mapped, see
+	 * {@link #importCorpusStructure(SCorpusGraph)}.
+	 */
+	public List<Identifier> getDocumentOrder() {
+		return documentOrder;
+	}
+
+	/**
+	 * Stores the {@link SegmentRange} for each document, which has been
+	 * created by splitting a file, see
+	 * {@link Tiger2ImporterProperties#PROP_SPLIT}.
+	 */
+	private final Map<Identifier, SegmentRange> identifier2SegmentRange = new ConcurrentHashMap<>();
+
+	/**
+	 * Compiles the {@link Tiger2MappingPlan}, checks the split mode, the
+	 * segment selection and the cache size and reads the manifest, so that
+	 * invalid property values are reported before any document is mapped.
+	 */
+	@Override
+	public boolean isReadyToStart() throws PepperModuleNotReadyException {
+		boolean retVal = super.isReadyToStart();
+		Tiger2ImporterProperties props = (Tiger2ImporterProperties) getProperties();
+		try {
+			props.getMappingPlan();
+			props.getSplitMode();
+			props.getSegmentSelection();
+			props.getSegmentFilter();
+			props.getMemoryBudget();
+			if (props.getPrefetch() > 0) {
+				props.getPrefetchMemory();
+			}
+			if (props.getCacheDirectory() != null) {
+				props.getCacheSize();
+			}
+		} catch (PepperModulePropertyException e) {
+			throw new PepperModuleNotReadyException(this, "Cannot start importer '" + getName() + "', because of an invalid property value. " + e.getMessage(), e);
+		}
+		try {
+			getManifest();
+		} catch (PepperModuleException e) {
+			throw new PepperModuleNotReadyException(this, "Cannot start importer '" + getName() + "', because the manifest of the last import cannot be read. " + e.getMessage(), e);
+		}
+		return (retVal);
+	}
+
+	/**
+	 * Creates the corpus structure as usual, but replaces each document whose
+	 * TigerXML file is split by {@link Tiger2ImporterProperties#PROP_SPLIT}
+	 * with one document for each part. All parts refer to the same file.
+	 * Afterwards the order of the documents is recorded for prefetching.
+	 */
+	@Override
+	public void importCorpusStructure(SCorpusGraph corpusGraph) throws PepperModuleException {
+		super.importCorpusStructure(corpusGraph);
+		if (((Tiger2ImporterProperties) getProperties()).getSplitMode() != null) {
+			split(corpusGraph);
+		}
+		for (SDocument sDocument : corpusGraph.getDocuments()) {
+			if (getIdentifier2ResourceTable().containsKey(sDocument.getIdentifier())) {
+				documentOrder.add(sDocument.getIdentifier());
+			}
+		}
+	}
+
+	/**
+	 * Replaces each document whose TigerXML file is split by
+	 * {@link Tiger2ImporterProperties#PROP_SPLIT} with one document for each
+	 * part.
+	 */
+	private void split(SCorpusGraph corpusGraph) {
+		Tiger2ImporterProperties props = (Tiger2ImporterProperties) getProperties();
+		TigerXMLPartitioner partitioner = new TigerXMLPartitioner(props.getSplitMode(), props.getSplitSize());
+		for (SDocument sDocument : new ArrayList<>(corpusGraph.getDocuments())) {
+			URI inputUri = getIdentifier2ResourceTable().get(sDocument.getIdentifier());
+			if ((inputUri == null) || (!isTigerXML(inputUri))) {
+				continue;
+			}
+			List<SegmentRange> ranges = partitioner.partition(new File(inputUri.toFileString()));
+			if (ranges.size() < 2) {
+				continue;
+			}
+			uri2NumberOfSegments.put(inputUri, ranges.get(ranges.size() - 1).getTo());
+			SCorpus sCorpus = corpusGraph.getCorpus(sDocument);
+			getIdentifier2ResourceTable().remove(sDocument.getIdentifier());
+			corpusGraph.removeNode(sDocument);
+			for (SegmentRange range : ranges) {
+				SDocument part = corpusGraph.createDocument(sCorpus, sDocument.getName() + "_" + range.getName());
+				getIdentifier2ResourceTable().put(part.getIdentifier(), inputUri);
+				identifier2SegmentRange.put(part.getIdentifier(), range);
+			}
+			logger.debug("Split file '{}' into {} documents.", inputUri, ranges.size());
+		}
+	}
+
+	/**
+	 * Creates a mapper of type {@link Tiger22SaltMapper}. The file of the
+	 * document is not read here, but by the mapper itself, so that reading
+	 * runs in parallel with the other mappers and a file, which cannot be
+	 * read, only fails its own document. {@inheritDoc
 	 * PepperModule#createPepperMapper(Identifier)}
 	 */
 	@Override
@@ -116,23 +413,162 @@ public class Tiger2Importer extends PepperImporterImpl implements PepperImporter
 			if (inputUri == null)
 				throw new PepperModuleException(this, "There was no matching uri found corresponding to document '" + sElementId + "'.");
 
-			// load resource
-			Resource resourceLoad = getResourceSet().createResource(inputUri);
-
-			if (resourceLoad == null)
-				throw new PepperModuleException(this, "Cannot map the data stored at given uri '" + inputUri + "', because no resource object could have been created to read these data.");
-			try {
-				resourceLoad.load(null);
-			} catch (IOException e) {
-				throw new PepperModuleException(this, "Cannot load <tiger2/> model from file '" + inputUri + "'.", e);
+			mapper.setResourceURI(inputUri);
+			mapper.setAnnotationInterner(getAnnotationInterner());
+			mapper.setCache(getCache());
+			mapper.setManifest(getManifest());
+			mapper.setMetrics(getMetrics());
+			mapper.setSegmentPool(getSegmentPool());
+			mapper.setSegmentFilter(((Tiger2ImporterProperties) getProperties()).getSegmentFilter());
+			if (getAdmissionControl() != null) {
+				mapper.setAdmissionControl(getAdmissionControl());
+				mapper.setMemoryEstimate(estimateMemory(sElementId, inputUri));
+				if ((mapper.getMemoryEstimate() > getAdmissionControl().getBudget()) && (isTigerXML(inputUri))) {
+					logger.info("Reading document '{}' segment by segment, because it is estimated to need {} MB, which exceeds the memory budget.", sElementId, mapper.getMemoryEstimate() / (1024 * 1024));
+				}
+			}
+			if (isReadSegmentBySegment(sElementId, inputUri)) {
+				// the mapper reads the file segment by segment, a filter is
+				// applied while reading
+				mapper.setSegmentRange(identifier2SegmentRange.get(sElementId));
+				mapper.setSegmentSelection(isTigerXML(inputUri) ? ((Tiger2ImporterProperties) getProperties()).getSegmentSelection() : null);
+			} else if (isLoadedLazily(inputUri)) {
+				// the segments are parsed one by one, nothing to prefetch
+				mapper.setLazy(true);
+			} else {
+				mapper.setResourceLoader(getResourceLoader());
+				mapper.setPrefetcher(getPrefetcher());
+			}
+			if (getPrefetcher() != null) {
+				prefetchAfter(sElementId);
 			}
-			Object objCorpus = resourceLoad.getContents().get(0);
-			if (!(objCorpus instanceof Corpus))
-				throw new PepperModuleException(this, "Cannot map the data stored at given uri '" + inputUri + "', because they could not have been mapped to a tiger2 corpus model object.");
-			Corpus corpus = (Corpus) resourceLoad.getContents().get(0);
-			mapper.setCorpus(corpus);
 		}
 
 		return (mapper);
 	}
+
+	/**
+	 * Returns whether the file of the given document is read segment by
+	 * segment instead of being loaded entirely. This is the case for parts
+	 * of a split file, a selection of segments, streaming and filtering of
+	 * TigerXML files, and for TigerXML files exceeding the memory budget.
+	 */
+	protected boolean isReadSegmentBySegment(Identifier sElementId, URI inputUri) {
+		Tiger2ImporterProperties props = (Tiger2ImporterProperties) getProperties();
+		if ((identifier2SegmentRange.containsKey(sElementId)) || (isStreamable(inputUri))) {
+			return true;
+		}
+		if ((getAdmissionControl() != null) && (isTigerXML(inputUri)) && (estimateMemory(sElementId, inputUri) > getAdmissionControl().getBudget())) {
+			return true;
+		}
+		return (isTigerXML(inputUri)) && ((props.getSegmentSelection() != null) || (props.getSegmentFilter() != null));
+	}
+
+	/**
+	 * Returns the heap in bytes, which mapping the given document is estimated
+	 * to need: {@link Tiger2Prefetcher#MODEL_SIZE_FACTOR} times the size of
+	 * its file, or of its share of the segments for a part of a split file.
+	 */
+	protected long estimateMemory(Identifier sElementId, URI inputUri) {
+		long estimate = new File(inputUri.toFileString()).length() * Tiger2Prefetcher.MODEL_SIZE_FACTOR;
+		SegmentRange range = identifier2SegmentRange.get(sElementId);
+		Integer numberOfSegments = uri2NumberOfSegments.get(inputUri);
+		if ((range != null) && (numberOfSegments != null) && (numberOfSegments > 0)) {
+			estimate = estimate * (range.getTo() - range.getFrom()) / numberOfSegments;
+		}
+		return estimate;
+	}
+
+	/**
+	 * Starts prefetching the files of the documents following the given one
+	 * in {@link #getDocumentOrder()}, as far as they are loaded entirely.
+	 */
+	private synchronized void prefetchAfter(Identifier sElementId) {
+		if (documentPositions.size() != documentOrder.size()) {
+			documentPositions.clear();
+			for (int i = 0; i < documentOrder.size(); i++) {
+				documentPositions.put(documentOrder.get(i), i);
+			}
+		}
+		Integer position = documentPositions.get(sElementId);
+		if (position == null) {
+			return;
+		}
+		int end = Math.min(documentOrder.size(), position + 1 + ((Tiger2ImporterProperties) getProperties()).getPrefetch());
+		for (int i = position + 1; i < end; i++) {
+			Identifier next = documentOrder.get(i);
+			URI nextUri = getIdentifier2ResourceTable().get(next);
+			if ((nextUri != null) && (!isReadSegmentBySegment(next, nextUri)) && (!isLoadedLazily(nextUri))) {
+				getPrefetcher().prefetch(nextUri);
+			}
+		}
+	}
+
+	/**
+	 * Reports the number of distinct annotation names and values of the
+	 * import and how many files have been read from the cache or prefetched,
+	 * writes and unregisters the metrics, shuts down the pool of
+	 * {@link Tiger2ImporterProperties#PROP_PARALLEL_SEGMENTS}, stops
+	 * prefetching and saves the manifest of an incremental import.
+	 */
+	@Override
+	public void end() throws PepperModuleException {
+		super.end();
+		logger.info("Mapped {} distinct annotation names and {} distinct annotation values.", getAnnotationInterner().getNumberOfNames(), getAnnotationInterner().getNumberOfValues());
+		if (cache != null) {
+			logger.info("Read {} documents from cache '{}', parsed {} documents.", cache.getNumberOfHits(), cache.getDirectory().getAbsolutePath(), cache.getNumberOfMisses());
+		}
+		if (metrics != null) {
+			logger.info("Mapped {} documents, time per phase in ms: {}, created objects: {}.", metrics.getNumberOfDocuments(), metrics.getPhaseMillis(), metrics.getCounts());
+			File report = ((Tiger2ImporterProperties) getProperties()).getMetricsReport();
+			if (report != null) {
+				metrics.writeReport(report);
+			}
+			metrics.unregister();
+		}
+		if (admissionControl != null) {
+			logger.info("{} documents waited for the memory budget of {} MB.", admissionControl.getNumberOfWaits(), admissionControl.getBudget() / (1024 * 1024));
+		}
+		synchronized (this) {
+			if (segmentPool != null) {
+				segmentPool.shutdown();
+				segmentPool = null;
+			}
+		}
+		if (prefetcher != null) {
+			prefetcher.close();
+			logger.info("Took {} prefetched files, loaded {} files while mapping.", prefetcher.getNumberOfHits(), prefetcher.getNumberOfMisses());
+		}
+		if (manifest != null) {
+			manifest.save();
+			logger.info("Skipped {} unchanged documents, manifest '{}' contains {} documents.", manifest.getNumberOfSkipped(), manifest.getLocation().getAbsolutePath(), manifest.size());
+		}
+	}
+
+	/**
+	 * Returns true, if {@link Tiger2ImporterProperties#PROP_STREAMING} is set
+	 * and the file located at the given uri is a TigerXML file, which can be
+	 * read by a {@link TigerXMLStreamReader}.
+	 */
+	protected boolean isStreamable(URI inputUri) {
+		return ((Tiger2ImporterProperties) getProperties()).isStreaming() && isTigerXML(inputUri);
+	}
+
+	/**
+	 * Returns true, if {@link Tiger2ImporterProperties#PROP_LAZY} is set and
+	 * the file located at the given uri is a TigerXML file, whose segments can
+	 * be parsed one by one from their byte ranges.
+	 */
+	protected boolean isLoadedLazily(URI inputUri) {
+		return ((Tiger2ImporterProperties) getProperties()).isLazy() && isTigerXML(inputUri);
+	}
+
+	/**
+	 * Returns true, if the file located at the given uri has a file ending of
+	 * TigerXML.
+	 */
+	protected boolean isTigerXML(URI inputUri) {
+		String ending = inputUri.fileExtension();
+		return ((TigerResourceFactory.FILE_ENDING_TIGERXML.equalsIgnoreCase(ending)) || (TigerResourceFactory.FILE_ENDING_TIGERXML_2.equalsIgnoreCase(ending)));
+	}
 }
@@ -17,15 +17,24 @@
  */
 package org.corpus_tools.peppermodules.tigerModules;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperties;
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
 import org.corpus_tools.pepper.modules.exceptions.PepperModulePropertyException;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2MappingPlan.Projection;
+import org.corpus_tools.peppermodules.tigerModules.mappers.MappingDiagnostics;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentFilter;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentSelection;
 import org.corpus_tools.salt.SALT_TYPE;
 import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.core.SAnnotation;
@@ -88,19 +97,221 @@ public class Tiger2ImporterProperties extends PepperModuleProperties {
 	 * Property to determine, which edge types should be reversed.
 	 */
 	public static final String PROP_EDGE_REVERSE = "edge.reverse";
+	/**
+	 * A comma separated list of edge types. If set, only edges having one of
+	 * these types are mapped.
+	 */
+	public static final String PROP_EDGE_INCLUDE = "edge.include";
+	/**
+	 * A comma separated list of edge types, edges having one of these types
+	 * are not mapped.
+	 */
+	public static final String PROP_EDGE_EXCLUDE = "edge.exclude";
+	/**
+	 * A comma separated list of annotation names. If set, only annotations
+	 * having one of these names are mapped.
+	 */
+	public static final String PROP_ANNOTATION_INCLUDE = "annotation.include";
+	/**
+	 * A comma separated list of annotation names, annotations having one of
+	 * these names are not mapped.
+	 */
+	public static final String PROP_ANNOTATION_EXCLUDE = "annotation.exclude";
+
+	/**
+	 * If true, TigerXML files are read with a pull parser segment by segment
+	 * instead of loading the entire &lt;tiger2/&gt; model into memory. Must be
+	 * mappable to a {@link Boolean} value.
+	 */
+	public static final String PROP_STREAMING = "streaming";
+
+	/**
+	 * If true, a TigerXML file, which is loaded entirely, is held as proxies
+	 * giving the byte range of each segment, and a segment is parsed only when
+	 * it is mapped. Must be mappable to a {@link Boolean} value.
+	 */
+	public static final String PROP_LAZY = "lazy";
+
+	/**
+	 * Determines whether and how a TigerXML file is split into several
+	 * documents. The syntax is 'MODE(:SIZE)?', where MODE is one of
+	 * {@value #SPLIT_SEGMENTS}, {@value #SPLIT_TOKENS} or
+	 * {@value #SPLIT_SUBCORPUS}, for instance 'segments:1000'.
+	 */
+	public static final String PROP_SPLIT = "split";
+	/** split mode creating a document for each SIZE segments **/
+	public static final String SPLIT_SEGMENTS = "segments";
+	/** split mode creating a document for each SIZE terminals **/
+	public static final String SPLIT_TOKENS = "tokens";
+	/** split mode creating a document for each &lt;subcorpus/&gt; element **/
+	public static final String SPLIT_SUBCORPUS = "subcorpus";
+
+	/**
+	 * If true, the segments of a document are mapped in parallel and merged
+	 * into the document graph in their original order. Must be mappable to a
+	 * {@link Boolean} value.
+	 */
+	public static final String PROP_PARALLEL_SEGMENTS = "parallelSegments";
+
+	/**
+	 * A directory, in which parsed files are cached in a binary format. If not
+	 * set, no cache is used.
+	 */
+	public static final String PROP_CACHE = "cache";
+
+	/**
+	 * The maximal size of the cache given by {@link #PROP_CACHE} in megabytes.
+	 * Must be mappable to a positive {@link Integer} value.
+	 */
+	public static final String PROP_CACHE_SIZE = "cache.size";
+	/** the default of {@link #PROP_CACHE_SIZE} **/
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	/**
+	 * The number of upcoming documents, whose files are loaded in the
+	 * background while earlier documents are mapped. 0 disables prefetching.
+	 */
+	public static final String PROP_PREFETCH = "prefetch";
+	/**
+	 * The maximal estimated heap in megabytes, which the models loaded by
+	 * {@link #PROP_PREFETCH} may take.
+	 */
+	public static final String PROP_PREFETCH_MEMORY = "prefetch.memory";
+	/** the default of {@link #PROP_PREFETCH_MEMORY} **/
+	public static final int DEFAULT_PREFETCH_MEMORY = 512;
+
+	/**
+	 * The maximal heap in megabytes, which the documents mapped at the same
+	 * time are estimated to need, see {@link Tiger2AdmissionControl}. If not
+	 * set, the number of documents mapped at the same time is not limited by
+	 * memory.
+	 */
+	public static final String PROP_MEMORY_BUDGET = "memory.budget";
+
+	/**
+	 * The number of examples kept for each kind of anomaly found while mapping
+	 * a document, see {@link MappingDiagnostics}.
+	 */
+	public static final String PROP_DIAGNOSTIC_SAMPLES = "diagnostics.samples";
+	/**
+	 * If true, the time spent in each phase of mapping a document and the
+	 * number of created objects are recorded, see {@link Tiger2Metrics}.
+	 */
+	public static final String PROP_METRICS = "metrics";
+	/**
+	 * A file, to which the metrics given by {@link #PROP_METRICS} are written
+	 * as JSON at the end of the import. Setting it enables the metrics.
+	 */
+	public static final String PROP_METRICS_REPORT = "metrics.report";
+
+	/**
+	 * A file, in which the state of each imported document is recorded, so
+	 * that documents whose file and properties are unchanged are skipped on
+	 * the next import. If not set, all documents are imported.
+	 */
+	public static final String PROP_INCREMENTAL = "incremental";
+
+	/**
+	 * A comma separated list of segment ids and ranges of segment ids, for
+	 * instance 's1, s10..s20'. If set, only these segments of TigerXML files
+	 * are read, see {@link SegmentSelection}.
+	 */
+	public static final String PROP_SEGMENT_IDS = "segmentIds";
+
+	/**
+	 * A comma separated list of subcorpus names. If set, only segments
+	 * contained in one of these subcorpora are imported, see
+	 * {@link SegmentFilter}.
+	 */
+	public static final String PROP_FILTER_SUBCORPUS = "filter.subcorpus";
+	/**
+	 * The minimal number of terminals of an imported segment, see
+	 * {@link SegmentFilter}.
+	 */
+	public static final String PROP_FILTER_MIN_LENGTH = "filter.minLength";
+	/**
+	 * The maximal number of terminals of an imported segment, see
+	 * {@link SegmentFilter}.
+	 */
+	public static final String PROP_FILTER_MAX_LENGTH = "filter.maxLength";
+	/**
+	 * A comma separated list of categories. If set, only segments containing
+	 * a non-terminal having one of these categories are imported, see
+	 * {@link SegmentFilter}.
+	 */
+	public static final String PROP_FILTER_CATEGORY = "filter.category";
+
+	/**
+	 * Properties, which do not influence the created Salt model and therefore
+	 * are not part of the {@link #getFingerprint()}.
+	 */
+	private static final Set<String> UNFINGERPRINTED = new HashSet<>(Arrays.asList(PROP_PARALLEL_SEGMENTS, PROP_CACHE, PROP_CACHE_SIZE, PROP_INCREMENTAL, PROP_PREFETCH, PROP_PREFETCH_MEMORY, PROP_MEMORY_BUDGET, PROP_METRICS, PROP_METRICS_REPORT, PROP_DIAGNOSTIC_SAMPLES));
 
 	public Tiger2ImporterProperties() {
 		this.addProperty(new PepperModuleProperty<>(PROP_CREATE_SSPAN, Boolean.class, "This flag determines if a SSpan object shall be created for each segment. Must be mappable to a Boolean value.", false, false));
-		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_2_SRELATION, String.class, "Property to determine, which Egde type shall be mapped to which kind of SRelation. A mapping has the syntax type=SALT_TYPE(, type=SALT_TYPE)*. For instance 'dep=" + SALT_TYPE.SPOINTING_RELATION + ", prim=" + SALT_TYPE.SDOMINANCE_RELATION + "'.", "secedge:" + SALT_TYPE.SDOMINANCE_RELATION, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_2_SRELATION, String.class, "Property to determine, which Egde type shall be mapped to which kind of SRelation. A mapping has the syntax type:SALT_TYPE(, type:SALT_TYPE)*. For instance 'dep:" + SALT_TYPE.SPOINTING_RELATION + ", prim:" + SALT_TYPE.SDOMINANCE_RELATION + "'.", "secedge:" + SALT_TYPE.SDOMINANCE_RELATION, false));
 		this.addProperty(new PepperModuleProperty<>(PROP_TERMINAL_SEPARATOR, String.class, "Determines the separator between terminal nodes. The default separator is '" + DEFAULT_SEPARATOR + "'.", DEFAULT_SEPARATOR, false));
 		this.addProperty(new PepperModuleProperty<>(PROP_RENAME_EDGE_TYPE, String.class, "Gives a renaming table for the sType of a SRelation. The syntax of defining such a table is 'OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*', for instance the property value prim=edge, sec=secedge, will rename all sType values from 'prim' to edge and 'sec' to secedge.", false));
 		this.addProperty(new PepperModuleProperty<>(PROP_RENAME_ANNOTATION_NAME, String.class, "Gives a renaming table for the name of an annotation, or more specific, which value the sName of the SAnnotation object shall get. The syntax of defining such a table is 'OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*', for instance the property value prim=edge, sec=secedge, will rename all sType values from 'prim' to edge and 'sec' to secedge.", false));
 		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_REVERSE, String.class, "If true this will reverse the direction of edges having the given types.\n" + "Thus the source node becomes the target node and the target node\n" + "becomes the source node. This is useful when secondary edges are mapped to dominance\n" + "edges and the annotation scheme would introduce cycles. \n" + "By inverting the edges, cycles are avoided.\n" + "This must be a list of type names, seperated by comma.", "secedge,sec", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_INCLUDE, String.class, "A comma separated list of edge types, for instance 'prim'. If set, only edges having one of these types are mapped to relations, all other edges are dropped. The types are the ones of the <tiger2/> model, before they are renamed by '" + PROP_RENAME_EDGE_TYPE + "'.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_EDGE_EXCLUDE, String.class, "A comma separated list of edge types, for instance 'sec'. Edges having one of these types are dropped. The types are the ones of the <tiger2/> model, before they are renamed by '" + PROP_RENAME_EDGE_TYPE + "'.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_ANNOTATION_INCLUDE, String.class, "A comma separated list of annotation names, for instance 'pos, cat'. If set, only annotations having one of these names are mapped, all other annotations of terminals, non-terminals and edges are dropped. The names are the ones of the <tiger2/> model, before they are renamed by '" + PROP_RENAME_ANNOTATION_NAME + "'.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_ANNOTATION_EXCLUDE, String.class, "A comma separated list of annotation names, for instance 'morph, lemma'. Annotations having one of these names are dropped. The names are the ones of the <tiger2/> model, before they are renamed by '" + PROP_RENAME_ANNOTATION_NAME + "'.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_STREAMING, Boolean.class, "If true, TigerXML files are read with a pull parser segment by segment instead of loading the entire <tiger2/> model into memory. Each segment is mapped to Salt directly after it has been read, so that the memory needed for reading depends on the largest segment and not on the size of the file. This only applies to TigerXML files, files in the tiger2 format are always loaded entirely.", false, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_LAZY, Boolean.class, "If true, TigerXML files, which are otherwise loaded entirely, are not materialized as a whole <tiger2/> model. Instead, the byte offsets of all <s/> elements are taken from the index also used by '" + PROP_SEGMENT_IDS + "', and each segment is parsed from the memory-mapped file when the mapping reaches it and is released after it has been mapped. Thus at most one segment, or one batch of segments when '" + PROP_PARALLEL_SEGMENTS + "' is set, is held in memory. Files in the tiger2 format are always loaded entirely.", false, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_SPLIT, String.class, "Determines whether and how a TigerXML file is split into several documents, which can be mapped in parallel. The syntax is 'MODE(:SIZE)?', where MODE is one of '" + SPLIT_SEGMENTS + "' (a document for each SIZE segments), '" + SPLIT_TOKENS + "' (a document for each SIZE terminals, but at least one segment) or '" + SPLIT_SUBCORPUS + "' (a document for each <subcorpus/> element). For instance 'segments:1000'. The parts are read segment by segment, as if '" + PROP_STREAMING + "' was set.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_PARALLEL_SEGMENTS, Boolean.class, "If true, the segments of a document are mapped to Salt in parallel and are merged into the document graph in their original order afterwards. The resulting document graph is the same as when mapping the segments one after another. This is useful for corpora having few but large documents.", false, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_CACHE, String.class, "A directory, in which each read file is stored in a compact binary format. When a file with the same content is imported again, it is read from this directory instead of being parsed. Entries are identified by a hash of the file content, so changed files are parsed again. If not set, no cache is used.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_CACHE_SIZE, Integer.class, "The maximal size of the cache given by '" + PROP_CACHE + "' in megabytes. If the cache grows larger, the least recently used entries are deleted. The default is " + DEFAULT_CACHE_SIZE + ".", DEFAULT_CACHE_SIZE, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_PREFETCH, Integer.class, "The number of upcoming documents, whose files are loaded on background threads while earlier documents are mapped, so that reading and mapping overlap. This applies to files, which are loaded entirely, and not to files read segment by segment. 0 disables prefetching, which is the default.", 0, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_PREFETCH_MEMORY, Integer.class, "The maximal heap in megabytes, which the files loaded ahead by '" + PROP_PREFETCH + "' may take. The heap of a loaded file is estimated as " + Tiger2Prefetcher.MODEL_SIZE_FACTOR + " times its size. A file exceeding the budget is loaded by its mapper instead. The default is " + DEFAULT_PREFETCH_MEMORY + ".", DEFAULT_PREFETCH_MEMORY, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_MEMORY_BUDGET, Integer.class, "The maximal heap in megabytes, which the documents mapped at the same time may need. The heap needed for a document is estimated as " + Tiger2Prefetcher.MODEL_SIZE_FACTOR + " times the size of its file (or of its part or selected segments), and a document waits until it fits into the budget. A TigerXML document exceeding the budget on its own is read segment by segment, as if '" + PROP_STREAMING + "' was set. A document read segment by segment only holds one segment (or one batch of segments with '" + PROP_PARALLEL_SEGMENTS + "') at a time and is estimated by its largest segment, if an index of the file has been saved by '" + PROP_SEGMENT_IDS + "' or '" + PROP_LAZY + "', so it is mapped alongside other documents. A file in the tiger2 format exceeding the budget is mapped alone. If not set, the memory is not limited.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_DIAGNOSTIC_SAMPLES, Integer.class, "Anomalies found while mapping a document, like dominance relations starting at a token, are not logged one by one, but counted per edge type and kinds of nodes, and a single summary is logged per document. This property gives the number of examples listed in the summary for each of them.", MappingDiagnostics.DEFAULT_SAMPLES, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_METRICS, Boolean.class, "If true, the time spent for loading, terminals, non-terminals, relations, annotations, text and spans and the number of created tokens, structures, relations and annotations are recorded for each document. The totals are logged at the end of the import and are exposed as an MXBean via JMX.", false, false));
+		this.addProperty(new PepperModuleProperty<>(PROP_METRICS_REPORT, String.class, "A file, to which the metrics of '" + PROP_METRICS + "' are written as JSON at the end of the import, containing the totals and the metrics of each document. Setting it enables the metrics.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_INCREMENTAL, String.class, "A file, in which size, modification time and content hash of each imported file are recorded together with a fingerprint of the properties. On the next import, documents whose file and properties are unchanged are skipped and only new or modified files are mapped. If not set, all documents are imported.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_SEGMENT_IDS, String.class, "A comma separated list of segment ids and ranges of segment ids, for instance 's1, s10..s20'. A range contains all segments from the first to the last id in document order. If set, only these segments of TigerXML files are read: the byte offsets of all <s/> elements are stored in an index next to the file, and only the head and the requested segments are read from the memory-mapped file.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_FILTER_SUBCORPUS, String.class, "A comma separated list of subcorpus names (or ids, if a subcorpus has no name). If set, only segments contained in one of these <subcorpus/> elements of TigerXML files are imported. Segments of other subcorpora are skipped by the reader without being parsed.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_FILTER_MIN_LENGTH, Integer.class, "If set, only segments having at least this number of terminals are imported. Other segments are dropped after they have been read, before any Salt object is created for them.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_FILTER_MAX_LENGTH, Integer.class, "If set, only segments having at most this number of terminals are imported. Other segments are dropped after they have been read, before any Salt object is created for them.", false));
+		this.addProperty(new PepperModuleProperty<>(PROP_FILTER_CATEGORY, String.class, "A comma separated list of categories, for instance 'S, CS'. If set, only segments containing a non-terminal, whose '" + SegmentFilter.ANNOTATION_CATEGORY + "' annotation has one of these values, are imported.", false));
 	}
 
 	public void reset() {
-		renamingRelationType = null;
-		renamingAnnotationName = null;
+		synchronized (this) {
+			edge2Relation = null;
+			renamingRelationType = null;
+			renamingAnnotationName = null;
+			mappingPlan = null;
+		}
+	}
+
+	/** the compiled mapping plan, see {@link #getMappingPlan()} **/
+	private volatile Tiger2MappingPlan mappingPlan = null;
+
+	/**
+	 * Returns an immutable plan containing the parsed values of all properties
+	 * relevant for mapping a single element. The plan is compiled on the
+	 * first call and shared afterwards, until the property values are changed
+	 * via {@link #setPropertyValues(Properties)} or {@link #reset()} is
+	 * called.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if a property value cannot be parsed
+	 */
+	public Tiger2MappingPlan getMappingPlan() {
+		Tiger2MappingPlan plan = mappingPlan;
+		if (plan == null) {
+			synchronized (this) {
+				plan = mappingPlan;
+				if (plan == null) {
+					plan = new Tiger2MappingPlan(getPropRelation2SRelation(), getRenamingMap_RelationType(), getRelationReversed(), getRenamingMap_AnnotationName(), new Projection(getList(PROP_ANNOTATION_INCLUDE), getList(PROP_ANNOTATION_EXCLUDE)), new Projection(getList(PROP_EDGE_INCLUDE), getList(PROP_EDGE_EXCLUDE)), getSeparator(), propCreateSSpan4Segment());
+					mappingPlan = plan;
+				}
+			}
+		}
+		return (plan);
 	}
 
 	/**
@@ -114,9 +325,282 @@ public class Tiger2ImporterProperties extends PepperModuleProperties {
 		return ((Boolean) this.getProperty(PROP_CREATE_SSPAN).getValue());
 	}
 
+	/**
+	 * Returns whether TigerXML files shall be read segment by segment. If the
+	 * value {@value #PROP_STREAMING} is not set, the default is
+	 * <code>false</code>.
+	 */
+	public boolean isStreaming() {
+		return ((Boolean) this.getProperty(PROP_STREAMING).getValue());
+	}
+
+	/**
+	 * Returns whether TigerXML files shall be held as segment proxies, which
+	 * are parsed when they are mapped. If the value {@value #PROP_LAZY} is not
+	 * set, the default is <code>false</code>.
+	 */
+	public boolean isLazy() {
+		return ((Boolean) this.getProperty(PROP_LAZY).getValue());
+	}
+
+	/**
+	 * Returns whether the segments of a document shall be mapped in parallel.
+	 * If the value {@value #PROP_PARALLEL_SEGMENTS} is not set, the default is
+	 * <code>false</code>.
+	 */
+	public boolean isParallelSegments() {
+		return ((Boolean) this.getProperty(PROP_PARALLEL_SEGMENTS).getValue());
+	}
+
+	/**
+	 * Returns the directory given by {@link #PROP_CACHE}, or <code>null</code>
+	 * if no cache shall be used.
+	 */
+	public File getCacheDirectory() {
+		String raw = (String) getProperty(PROP_CACHE).getValue();
+		if ((raw == null) || (raw.trim().isEmpty())) {
+			return null;
+		}
+		return new File(raw.trim());
+	}
+
+	/**
+	 * Returns the maximal size of the cache in bytes, see
+	 * {@link #PROP_CACHE_SIZE}.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if the size is not positive
+	 */
+	public long getCacheSize() {
+		Integer size = (Integer) getProperty(PROP_CACHE_SIZE).getValue();
+		if ((size == null) || (size < 1)) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + size + "' for property '" + PROP_CACHE_SIZE + "', because it is not a positive number.");
+		}
+		return size * 1024L * 1024L;
+	}
+
+	/**
+	 * Returns the number of documents to be loaded ahead, see
+	 * {@link #PROP_PREFETCH}.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if the number is negative
+	 */
+	public int getPrefetch() {
+		Integer prefetch = (Integer) getProperty(PROP_PREFETCH).getValue();
+		if (prefetch == null) {
+			return 0;
+		}
+		if (prefetch < 0) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + prefetch + "' for property '" + PROP_PREFETCH + "', because it is negative.");
+		}
+		return prefetch;
+	}
+
+	/**
+	 * Returns the memory budget of prefetching in bytes, see
+	 * {@link #PROP_PREFETCH_MEMORY}.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if the budget is not positive
+	 */
+	public long getPrefetchMemory() {
+		Integer memory = (Integer) getProperty(PROP_PREFETCH_MEMORY).getValue();
+		if ((memory == null) || (memory < 1)) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + memory + "' for property '" + PROP_PREFETCH_MEMORY + "', because it is not a positive number.");
+		}
+		return memory * 1024L * 1024L;
+	}
+
+	/**
+	 * Returns the memory budget of all documents mapped at the same time in
+	 * bytes, or 0 if it is not limited, see {@link #PROP_MEMORY_BUDGET}.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if the budget is not positive
+	 */
+	public long getMemoryBudget() {
+		Integer memory = (Integer) getProperty(PROP_MEMORY_BUDGET).getValue();
+		if (memory == null) {
+			return 0;
+		}
+		if (memory < 1) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + memory + "' for property '" + PROP_MEMORY_BUDGET + "', because it is not a positive number.");
+		}
+		return memory * 1024L * 1024L;
+	}
+
+	/**
+	 * Returns the number of examples kept per anomaly, see
+	 * {@link #PROP_DIAGNOSTIC_SAMPLES}.
+	 */
+	public int getDiagnosticSamples() {
+		Integer samples = (Integer) getProperty(PROP_DIAGNOSTIC_SAMPLES).getValue();
+		if (samples == null) {
+			return MappingDiagnostics.DEFAULT_SAMPLES;
+		}
+		if (samples < 0) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + samples + "' for property '" + PROP_DIAGNOSTIC_SAMPLES + "', because it is negative.");
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns whether metrics are recorded, see {@link #PROP_METRICS} and
+	 * {@link #PROP_METRICS_REPORT}.
+	 */
+	public boolean isMetrics() {
+		Boolean metrics = (Boolean) getProperty(PROP_METRICS).getValue();
+		return ((metrics != null) && (metrics)) || (getMetricsReport() != null);
+	}
+
+	/**
+	 * Returns the file given by {@link #PROP_METRICS_REPORT}, or
+	 * <code>null</code> if no report is written.
+	 */
+	public File getMetricsReport() {
+		String raw = (String) getProperty(PROP_METRICS_REPORT).getValue();
+		if ((raw == null) || (raw.trim().isEmpty())) {
+			return null;
+		}
+		return new File(raw.trim());
+	}
+
+	/**
+	 * Returns the manifest file given by {@link #PROP_INCREMENTAL}, or
+	 * <code>null</code> if all documents shall be imported.
+	 */
+	public File getIncrementalManifest() {
+		String raw = (String) getProperty(PROP_INCREMENTAL).getValue();
+		if ((raw == null) || (raw.trim().isEmpty())) {
+			return null;
+		}
+		return new File(raw.trim());
+	}
+
+	/**
+	 * Returns the selection given by {@link #PROP_SEGMENT_IDS}, or
+	 * <code>null</code> if all segments shall be read.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if the selection cannot be parsed
+	 */
+	public SegmentSelection getSegmentSelection() {
+		String raw = (String) getProperty(PROP_SEGMENT_IDS).getValue();
+		if ((raw == null) || (raw.trim().isEmpty())) {
+			return null;
+		}
+		try {
+			return SegmentSelection.parse(raw);
+		} catch (IllegalArgumentException e) {
+			throw new PepperModulePropertyException("Cannot parse the given property value '" + raw + "' for property '" + PROP_SEGMENT_IDS + "', because it does not follow the form ID(" + SegmentSelection.RANGE_SEPARATOR + "ID)? (, ID(" + SegmentSelection.RANGE_SEPARATOR + "ID)?)*. " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the filter given by {@link #PROP_FILTER_SUBCORPUS},
+	 * {@link #PROP_FILTER_MIN_LENGTH}, {@link #PROP_FILTER_MAX_LENGTH} and
+	 * {@link #PROP_FILTER_CATEGORY}, or <code>null</code> if none of them is
+	 * set.
+	 * 
+	 * @throws PepperModulePropertyException
+	 *             if a length is negative or the minimal length is greater
+	 *             than the maximal one
+	 */
+	public SegmentFilter getSegmentFilter() {
+		Set<String> subcorpora = getList(PROP_FILTER_SUBCORPUS);
+		Set<String> categories = getList(PROP_FILTER_CATEGORY);
+		Integer minLength = (Integer) getProperty(PROP_FILTER_MIN_LENGTH).getValue();
+		Integer maxLength = (Integer) getProperty(PROP_FILTER_MAX_LENGTH).getValue();
+		if ((subcorpora == null) && (categories == null) && (minLength == null) && (maxLength == null)) {
+			return null;
+		}
+		if ((minLength != null) && (minLength < 0)) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + minLength + "' for property '" + PROP_FILTER_MIN_LENGTH + "', because it is negative.");
+		}
+		if ((maxLength != null) && (maxLength < 0)) {
+			throw new PepperModulePropertyException("Cannot use the given property value '" + maxLength + "' for property '" + PROP_FILTER_MAX_LENGTH + "', because it is negative.");
+		}
+		if ((minLength != null) && (maxLength != null) && (minLength > maxLength)) {
+			throw new PepperModulePropertyException("Cannot use the given property values for properties '" + PROP_FILTER_MIN_LENGTH + "' and '" + PROP_FILTER_MAX_LENGTH + "', because the minimal length " + minLength + " is greater than the maximal length " + maxLength + ".");
+		}
+		return new SegmentFilter(subcorpora, (minLength == null) ? 0 : minLength, (maxLength == null) ? Integer.MAX_VALUE : maxLength, categories);
+	}
+
+	/**
+	 * Returns the entries of the comma separated list given by the passed
+	 * property, or <code>null</code> if the list is not set or empty.
+	 */
+	private Set<String> getList(String name) {
+		String raw = (String) getProperty(name).getValue();
+		if (raw == null) {
+			return null;
+		}
+		Set<String> result = new LinkedHashSet<>();
+		for (String entry : raw.split(",")) {
+			if (!entry.trim().isEmpty()) {
+				result.add(entry.trim());
+			}
+		}
+		return (result.isEmpty()) ? null : result;
+	}
+
+	/**
+	 * Returns a hash of the values of all properties, which influence the
+	 * created Salt model. Two imports having the same fingerprint map the
+	 * same file to the same document.
+	 */
+	public String getFingerprint() {
+		StringBuilder values = new StringBuilder();
+		for (String name : new TreeSet<>(getPropertyNames())) {
+			if (UNFINGERPRINTED.contains(name)) {
+				continue;
+			}
+			Object value = getProperty(name).getValue();
+			values.append(name).append('=').append(value).append('\n');
+		}
+		return Tiger2ContentHashes.toHex(Tiger2ContentHashes.createDigest().digest(values.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Returns the mode given by {@link #PROP_SPLIT}, or <code>null</code> if
+	 * files shall not be split.
+	 */
+	public String getSplitMode() {
+		String[] split = parseSplit();
+		return (split == null) ? null : split[0];
+	}
+
+	/**
+	 * Returns the size given by {@link #PROP_SPLIT}, or 0 if there is none.
+	 */
+	public int getSplitSize() {
+		String[] split = parseSplit();
+		return ((split == null) || (split.length < 2)) ? 0 : Integer.parseInt(split[1]);
+	}
+
+	private String[] parseSplit() {
+		String raw = (String) getProperty(PROP_SPLIT).getValue();
+		if ((raw == null) || (raw.trim().isEmpty())) {
+			return null;
+		}
+		String[] parts = raw.replace(" ", "").split(":");
+		boolean valid = false;
+		if ((parts.length == 1) && (SPLIT_SUBCORPUS.equals(parts[0]))) {
+			valid = true;
+		} else if ((parts.length == 2) && ((SPLIT_SEGMENTS.equals(parts[0])) || (SPLIT_TOKENS.equals(parts[0])))) {
+			valid = parts[1].matches("[1-9][0-9]*");
+		}
+		if (!valid) {
+			throw new PepperModulePropertyException("Cannot parse the given property value '" + raw + "' for property '" + PROP_SPLIT + "', because it does not follow the form '" + SPLIT_SEGMENTS + ":SIZE', '" + SPLIT_TOKENS + ":SIZE' or '" + SPLIT_SUBCORPUS + "', where SIZE is a positive number.");
+		}
+		return parts;
+	}
+
 	@Override
 	public void setPropertyValues(Properties properties) {
 		super.setPropertyValues(properties);
+		reset();
 	}
 
 	/**
@@ -133,24 +617,38 @@ public class Tiger2ImporterProperties extends PepperModuleProperties {
 	 */
 	public synchronized Map<String, SALT_TYPE> getPropRelation2SRelation() {
 		if (edge2Relation == null) {
-			edge2Relation = new Hashtable<String, SALT_TYPE>();
-			if (getProperty(PROP_EDGE_2_SRELATION).getValue() != null) {
-				String edgeTypes = getProperty(PROP_EDGE_2_SRELATION).getValue().toString();
-				if ((edgeTypes != null) && (!edgeTypes.isEmpty())) {
-					String[] mappings = edgeTypes.split(",");
-					for (String mapping : mappings) {
-						String[] parts = mapping.split(":");
-						if ((parts[0] != null) && (!parts[0].isEmpty()) && (parts[1] != null) && (!parts[1].isEmpty())) {
-							SALT_TYPE saltType = SALT_TYPE.valueOf(parts[1].trim());
-							if (saltType != null) {
-								edge2Relation.put(parts[0].trim(), saltType);
-							}
-						}
+			Object value = getProperty(PROP_EDGE_2_SRELATION).getValue();
+			edge2Relation = parseRelationTypes((value == null) ? null : value.toString(), PROP_EDGE_2_SRELATION);
+		}
+		return (edge2Relation);
+	}
+
+	/**
+	 * Parses a table mapping edge types to kinds of {@link SRelation} of the
+	 * form <code>type:SALT_TYPE (, type:SALT_TYPE)*</code>, given as value of
+	 * the property having the given name.
+	 */
+	static Map<String, SALT_TYPE> parseRelationTypes(String edgeTypes, String property) {
+		Map<String, SALT_TYPE> table = new Hashtable<String, SALT_TYPE>();
+		if ((edgeTypes != null) && (!edgeTypes.isEmpty())) {
+			String[] mappings = edgeTypes.split(",");
+			for (String mapping : mappings) {
+				String[] parts = mapping.split(":");
+				if (parts.length != 2) {
+					throw new PepperModulePropertyException("Cannot parse the given property value '" + edgeTypes + "' for property '" + property + "', because it does not follow the form type:SALT_TYPE (, type:SALT_TYPE)*.");
+				}
+				if ((parts[0] != null) && (!parts[0].trim().isEmpty()) && (parts[1] != null) && (!parts[1].trim().isEmpty())) {
+					SALT_TYPE saltType = null;
+					try {
+						saltType = SALT_TYPE.valueOf(parts[1].trim());
+					} catch (IllegalArgumentException e) {
+						throw new PepperModulePropertyException("Cannot parse the given property value '" + edgeTypes + "' for property '" + property + "', because '" + parts[1].trim() + "' is not a SALT_TYPE.", e);
 					}
+					table.put(parts[0].trim(), saltType);
 				}
 			}
 		}
-		return (edge2Relation);
+		return table;
 	}
 
 	/**
@@ -173,23 +671,7 @@ public class Tiger2ImporterProperties extends PepperModuleProperties {
 				if (renamingRelationType == null) {// double check if
 													// STyperenaming
 													// isn't set.
-					Map<String, String> renamingTable = new Hashtable<String, String>();
-					String renamingString = (String) getProperty(PROP_RENAME_EDGE_TYPE).getValue();
-					if (renamingString != null) {
-						renamingString = renamingString.replace(" ", "");
-						if (!renamingString.isEmpty()) {
-							String[] mappings = renamingString.split(",");
-							if (mappings.length > 0) {
-								for (String mapping : mappings) {
-									String[] parts = mapping.split("=");
-									if (parts.length != 2)
-										throw new PepperModulePropertyException("Cannot parse the given property value '" + (String) getProperty(PROP_RENAME_EDGE_TYPE).getValue() + "' for property '" + PROP_TERMINAL_SEPARATOR + "', because it does not follow the form OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*. Note, that neither an empty String nor the whitespace is allowed as sType.");
-									renamingTable.put(parts[0], parts[1]);
-								}
-							}
-						}
-					}
-					renamingRelationType = renamingTable;
+					renamingRelationType = parseRenaming((String) getProperty(PROP_RENAME_EDGE_TYPE).getValue(), PROP_RENAME_EDGE_TYPE);
 				}
 			}
 		}
@@ -210,33 +692,53 @@ public class Tiger2ImporterProperties extends PepperModuleProperties {
 		if (renamingAnnotationName == null) {
 			synchronized (this) {
 				if (renamingAnnotationName == null) {
-					Map<String, String> renamingTable = new Hashtable<String, String>();
-					String renamingString = (String) getProperty(PROP_RENAME_ANNOTATION_NAME).getValue();
-					if (renamingString != null) {
-						renamingString = renamingString.replace(" ", "");
-						if (!renamingString.isEmpty()) {
-							String[] mappings = renamingString.split(",");
-							if (mappings.length > 0) {
-								for (String mapping : mappings) {
-									String[] parts = mapping.split("=");
-									if (parts.length != 2) {
-										throw new PepperModulePropertyException("Cannot parse the given property value '" + (String) getProperty(PROP_RENAME_EDGE_TYPE).getValue() + "' for property '" + PROP_TERMINAL_SEPARATOR + "', because it does not follow the form OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*. Note, that neither an empty String nor the whitespace is allowed as sName.");
-									}
-									renamingTable.put(parts[0], parts[1]);
-								}
-							}
-						}
-					}
-					renamingAnnotationName = renamingTable;
+					renamingAnnotationName = parseRenaming((String) getProperty(PROP_RENAME_ANNOTATION_NAME).getValue(), PROP_RENAME_ANNOTATION_NAME);
 				}
 			}
 		}
 		return (renamingAnnotationName);
 	}
 
+	/**
+	 * Parses a renaming table of the form
+	 * <code>OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*</code>, given as value of the
+	 * property having the given name, with key= old value and value= new
+	 * value. Whitespace is ignored.
+	 */
+	static Map<String, String> parseRenaming(String renamingString, String property) {
+		Map<String, String> renamingTable = new Hashtable<String, String>();
+		if (renamingString != null) {
+			String stripped = renamingString.replace(" ", "");
+			if (!stripped.isEmpty()) {
+				for (String mapping : stripped.split(",")) {
+					String[] parts = mapping.split("=");
+					if (parts.length != 2) {
+						throw new PepperModulePropertyException("Cannot parse the given property value '" + renamingString + "' for property '" + property + "', because it does not follow the form OLDNAME=NEWNAME (,OLDNAME=NEWNAME)*. Note, that neither an empty String nor the whitespace is allowed as name.");
+					}
+					renamingTable.put(parts[0], parts[1]);
+				}
+			}
+		}
+		return renamingTable;
+	}
+
+	/**
+	 * Returns the types of all edges, whose direction shall be reversed, see
+	 * {@link #PROP_EDGE_REVERSE}.
+	 */
 	public Set<String> getRelationReversed() {
+		return parseTypes((String) getProperty(PROP_EDGE_REVERSE).getValue());
+	}
+
+	/**
+	 * Parses a comma separated list of types, ignoring whitespace and empty
+	 * entries.
+	 */
+	static Set<String> parseTypes(String raw) {
 		Set<String> result = new LinkedHashSet<>();
-		String raw = ((String) getProperty(PROP_EDGE_REVERSE).getValue());
+		if (raw == null) {
+			return result;
+		}
 		for (String t : raw.split(",")) {
 			String trimmed = t.trim();
 			if (!trimmed.isEmpty()) {
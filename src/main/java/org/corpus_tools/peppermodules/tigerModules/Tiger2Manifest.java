@@ -0,0 +1,210 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+
+/**
+ * Records the state of each imported document, so that a later import can
+ * skip documents whose file and properties are unchanged, see
+ * {@link Tiger2ImporterProperties#PROP_INCREMENTAL}.
+ * <br/>
+ * For each document the size, modification time and content hash of its
+ * file and the {@link Tiger2ImporterProperties#getFingerprint()} are stored.
+ * A document is unchanged, if its fingerprint is the same and either size
+ * and modification time are the same or, if only the modification time
+ * differs, the content hash is the same. Thus an unchanged file is only
+ * hashed, when it has been touched. The parts of a split file share one
+ * hash, see {@link Tiger2ContentHashes}.
+ * <br/>
+ * The manifest is a text file containing one document per line. It is read
+ * when the manifest is created and written by {@link #save()}, which the
+ * {@link Tiger2Importer} calls at the end of an import.
+ */
+public class Tiger2Manifest {
+	/** the first line of a manifest file **/
+	public static final String HEADER = "# tiger2 manifest 1";
+	private static final String SEPARATOR = "\t";
+
+	/** the recorded state of a document **/
+	private static class Entry {
+		final long size;
+		final long lastModified;
+		final String hash;
+		final String fingerprint;
+
+		Entry(long size, long lastModified, String hash, String fingerprint) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	private final File location;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private Tiger2ContentHashes contentHashes = new Tiger2ContentHashes();
+
+	/**
+	 * Creates a manifest stored at the given location and reads it, if the
+	 * file exists.
+	 * 
+	 * @throws PepperModuleException
+	 *             if the file exists, but cannot be read
+	 */
+	public Tiger2Manifest(File location) {
+		this.location = location;
+		if (location.isFile()) {
+			load();
+		}
+	}
+
+	/** Returns the location of the manifest file. **/
+	public File getLocation() {
+		return location;
+	}
+
+	/**
+	 * Returns the {@link Tiger2ContentHashes}, which hash the content of the
+	 * recorded files.
+	 */
+	public Tiger2ContentHashes getContentHashes() {
+		return contentHashes;
+	}
+
+	public void setContentHashes(Tiger2ContentHashes contentHashes) {
+		this.contentHashes = contentHashes;
+	}
+
+	/** Returns the number of documents recorded in the manifest. **/
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of documents found to be unchanged by
+	 * {@link #isUnchanged(File, SegmentRange, String)}.
+	 */
+	public int getNumberOfSkipped() {
+		return skipped.get();
+	}
+
+	/**
+	 * Returns whether the document for the given file and range has been
+	 * imported with the given properties fingerprint before and the file has
+	 * not changed since.
+	 */
+	public boolean isUnchanged(File file, SegmentRange range, String fingerprint) throws IOException {
+		String key = getKey(file, range);
+		Entry entry = entries.get(key);
+		if ((entry == null) || (!entry.fingerprint.equals(fingerprint)) || (entry.size != file.length())) {
+			return false;
+		}
+		long lastModified = file.lastModified();
+		if (entry.lastModified != lastModified) {
+			if (!entry.hash.equals(contentHashes.get(file))) {
+				return false;
+			}
+			// touched, but unchanged: no need to hash it next time
+			entries.put(key, new Entry(entry.size, lastModified, entry.hash, entry.fingerprint));
+		}
+		skipped.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Records that the document for the given file and range has been
+	 * imported with the given properties fingerprint.
+	 */
+	public void record(File file, SegmentRange range, String fingerprint) throws IOException {
+		// size and modification time are taken before hashing, so a change
+		// during hashing is detected on the next import
+		long size = file.length();
+		long lastModified = file.lastModified();
+		entries.put(getKey(file, range), new Entry(size, lastModified, contentHashes.get(file), fingerprint));
+	}
+
+	/**
+	 * Writes the manifest to its location. The file is replaced at once, so
+	 * that an interrupted import never leaves a partial manifest.
+	 */
+	public void save() {
+		File temporary = new File(location.getAbsolutePath() + ".tmp");
+		try {
+			if ((location.getParentFile() != null) && (!location.getParentFile().isDirectory())) {
+				location.getParentFile().mkdirs();
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(temporary.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.newLine();
+				for (Map.Entry<String, Entry> entry : new TreeMap<>(entries).entrySet()) {
+					Entry value = entry.getValue();
+					writer.write(value.size + SEPARATOR + value.lastModified + SEPARATOR + value.hash + SEPARATOR + value.fingerprint + SEPARATOR + entry.getKey());
+					writer.newLine();
+				}
+			}
+			Files.move(temporary.toPath(), location.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			temporary.delete();
+			throw new PepperModuleException("Cannot write manifest '" + location.getAbsolutePath() + "'.", e);
+		}
+	}
+
+	private void load() {
+		try (BufferedReader reader = Files.newBufferedReader(location.toPath(), StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			if (!HEADER.equals(line)) {
+				throw new PepperModuleException("Cannot read manifest '" + location.getAbsolutePath() + "', because it does not start with '" + HEADER + "'.");
+			}
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				String[] parts = line.split(SEPARATOR, 5);
+				if (parts.length != 5) {
+					throw new PepperModuleException("Cannot read manifest '" + location.getAbsolutePath() + "', because of the malformed line '" + line + "'.");
+				}
+				entries.put(parts[4], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2], parts[3]));
+			}
+		} catch (IOException | NumberFormatException e) {
+			throw new PepperModuleException("Cannot read manifest '" + location.getAbsolutePath() + "'.", e);
+		}
+	}
+
+	/**
+	 * Returns the key of a document, which is the absolute path of its file
+	 * followed by the name of its range, if the file has been split.
+	 */
+	private String getKey(File file, SegmentRange range) {
+		return (range == null) ? file.getAbsolutePath() : file.getAbsolutePath() + "#" + range.getName();
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.salt.SALT_TYPE;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SRelation;
+
+import de.hu_berlin.german.korpling.tiger2.Edge;
+
+/**
+ * An immutable snapshot of the mapping related properties of a
+ * {@link Tiger2ImporterProperties} object, see
+ * {@link Tiger2ImporterProperties#getMappingPlan()}. All property values are
+ * parsed and validated once when the plan is created, so that a mapper only
+ * needs lookups in unmodifiable tables and never takes a lock.
+ */
+public final class Tiger2MappingPlan {
+	/**
+	 * The decision how {@link Edge} objects of a certain type are mapped to
+	 * {@link SRelation} objects.
+	 */
+	public static final class EdgeMapping {
+		private final boolean reversed;
+		private final SALT_TYPE saltType;
+		private final String type;
+
+		EdgeMapping(boolean reversed, SALT_TYPE saltType, String type) {
+			this.reversed = reversed;
+			this.saltType = saltType;
+			this.type = type;
+		}
+
+		/**
+		 * Returns whether source and target of the edge are swapped, see
+		 * {@link Tiger2ImporterProperties#PROP_EDGE_REVERSE}.
+		 */
+		public boolean isReversed() {
+			return reversed;
+		}
+
+		/**
+		 * Returns the kind of {@link SRelation} the edge is mapped to, or
+		 * <code>null</code> if it depends on source and target only, see
+		 * {@link Tiger2ImporterProperties#PROP_EDGE_2_SRELATION}.
+		 */
+		public SALT_TYPE getSaltType() {
+			return saltType;
+		}
+
+		/**
+		 * Returns the type of the created {@link SRelation}, which is the
+		 * given type of the edge unless it is renamed, see
+		 * {@link Tiger2ImporterProperties#PROP_RENAME_EDGE_TYPE}.
+		 */
+		public String getType(String edgeType) {
+			return (type == null) ? edgeType : type;
+		}
+	}
+
+	/**
+	 * Determines which names are kept, given by a list of included and a list
+	 * of excluded names. A name is kept, if it is included and not excluded.
+	 */
+	public static final class Projection {
+		private final Set<String> included;
+		private final Set<String> excluded;
+
+		/**
+		 * @param included
+		 *            the kept names, <code>null</code> to keep all names
+		 *            which are not excluded
+		 * @param excluded
+		 *            the dropped names, <code>null</code> to drop none
+		 */
+		public Projection(Set<String> included, Set<String> excluded) {
+			this.included = (included == null) ? null : Collections.unmodifiableSet(new HashSet<>(included));
+			this.excluded = (excluded == null) ? Collections.<String> emptySet() : Collections.unmodifiableSet(new HashSet<>(excluded));
+		}
+
+		/**
+		 * Returns whether the given name is kept. A missing name is treated
+		 * as the empty name.
+		 */
+		public boolean contains(String name) {
+			String key = (name == null) ? "" : name;
+			return ((included == null) || (included.contains(key))) && (!excluded.contains(key));
+		}
+	}
+
+	/** mapping of all edge types not mentioned in any property **/
+	private static final EdgeMapping DEFAULT_EDGE_MAPPING = new EdgeMapping(false, null, null);
+
+	private final Map<String, EdgeMapping> edgeMappings;
+	private final Map<String, String> annotationNames;
+	private final Projection annotationProjection;
+	private final Projection edgeProjection;
+	private final String separator;
+	private final boolean createSSpan4Segment;
+
+	/**
+	 * Compiles a plan from the given tables, which have already been parsed
+	 * by the {@link Tiger2ImporterProperties} object.
+	 */
+	Tiger2MappingPlan(Map<String, SALT_TYPE> edge2Relation, Map<String, String> renamingRelationType, Set<String> relationReversed, Map<String, String> renamingAnnotationName, Projection annotationProjection, Projection edgeProjection, String separator, boolean createSSpan4Segment) {
+		Set<String> edgeTypes = new HashSet<>();
+		edgeTypes.addAll(edge2Relation.keySet());
+		edgeTypes.addAll(renamingRelationType.keySet());
+		edgeTypes.addAll(relationReversed);
+		Map<String, EdgeMapping> mappings = new HashMap<>();
+		for (String edgeType : edgeTypes) {
+			mappings.put(edgeType, new EdgeMapping(relationReversed.contains(edgeType), edge2Relation.get(edgeType), renamingRelationType.get(edgeType)));
+		}
+		this.edgeMappings = Collections.unmodifiableMap(mappings);
+		this.annotationNames = Collections.unmodifiableMap(new HashMap<>(renamingAnnotationName));
+		this.annotationProjection = annotationProjection;
+		this.edgeProjection = edgeProjection;
+		this.separator = separator;
+		this.createSSpan4Segment = createSSpan4Segment;
+	}
+
+	/**
+	 * Returns how edges having the given type are mapped, never
+	 * <code>null</code>.
+	 */
+	public EdgeMapping getEdgeMapping(String edgeType) {
+		EdgeMapping mapping = (edgeType == null) ? null : edgeMappings.get(edgeType);
+		return (mapping == null) ? DEFAULT_EDGE_MAPPING : mapping;
+	}
+
+	/**
+	 * Returns the name of the {@link SAnnotation} created for an annotation
+	 * having the given name, see
+	 * {@link Tiger2ImporterProperties#PROP_RENAME_ANNOTATION_NAME}.
+	 */
+	public String getAnnotationName(String name) {
+		String newName = annotationNames.get(name);
+		return (newName == null) ? name : newName;
+	}
+
+	/**
+	 * Returns whether annotations having the given name are mapped at all,
+	 * see {@link Tiger2ImporterProperties#PROP_ANNOTATION_INCLUDE} and
+	 * {@link Tiger2ImporterProperties#PROP_ANNOTATION_EXCLUDE}. The name is
+	 * the one of the &lt;tiger2/&gt; model, before it is renamed.
+	 */
+	public boolean isAnnotationMapped(String name) {
+		return annotationProjection.contains(name);
+	}
+
+	/**
+	 * Returns whether edges having the given type are mapped at all, see
+	 * {@link Tiger2ImporterProperties#PROP_EDGE_INCLUDE} and
+	 * {@link Tiger2ImporterProperties#PROP_EDGE_EXCLUDE}. The type is the one
+	 * of the &lt;tiger2/&gt; model, before it is renamed.
+	 */
+	public boolean isEdgeMapped(String edgeType) {
+		return edgeProjection.contains(edgeType);
+	}
+
+	/**
+	 * Returns the separator between terminals, see
+	 * {@link Tiger2ImporterProperties#PROP_TERMINAL_SEPARATOR}.
+	 */
+	public String getSeparator() {
+		return separator;
+	}
+
+	/**
+	 * Returns whether a span is created for each segment, see
+	 * {@link Tiger2ImporterProperties#PROP_CREATE_SSPAN}.
+	 */
+	public boolean isCreateSSpan4Segment() {
+		return createSSpan4Segment;
+	}
+}
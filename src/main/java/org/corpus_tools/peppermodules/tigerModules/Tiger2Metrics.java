@@ -0,0 +1,259 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Count;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the {@link DocumentMetrics} of all documents of an import, see
+ * {@link Tiger2ImporterProperties#PROP_METRICS}. The metrics are exposed as
+ * an MXBean via {@link #register(String)} and can be written as a JSON
+ * report via {@link #writeReport(File)}.
+ */
+public class Tiger2Metrics implements Tiger2MetricsMXBean {
+	private static final Logger logger = LoggerFactory.getLogger(Tiger2Metrics.class);
+	/** the domain of the object names of registered metrics **/
+	public static final String JMX_DOMAIN = "org.corpus_tools.peppermodules.tigerModules";
+
+	private final List<DocumentMetrics> documents = new ArrayList<>();
+	private ObjectName objectName = null;
+
+	/** Adds the metrics of a mapped document. **/
+	public synchronized void add(DocumentMetrics metrics) {
+		documents.add(metrics);
+	}
+
+	/** Returns the metrics of all mapped documents. **/
+	public synchronized List<DocumentMetrics> getDocuments() {
+		return new ArrayList<>(documents);
+	}
+
+	@Override
+	public synchronized int getNumberOfDocuments() {
+		return documents.size();
+	}
+
+	@Override
+	public synchronized Map<String, Long> getPhaseMillis() {
+		Map<String, Long> millis = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			millis.put(toKey(phase), getTime(phase) / 1000000);
+		}
+		return millis;
+	}
+
+	/** Returns the time spent in the given phase over all documents. **/
+	private long getTime(Phase phase) {
+		long nanos = 0;
+		for (DocumentMetrics document : documents) {
+			nanos += document.getTime(phase);
+		}
+		return nanos;
+	}
+
+	@Override
+	public synchronized Map<String, Long> getCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (Count count : Count.values()) {
+			long number = 0;
+			for (DocumentMetrics document : documents) {
+				number += document.get(count);
+			}
+			counts.put(toKey(count), number);
+		}
+		return counts;
+	}
+
+	@Override
+	public synchronized long getAllocatedBytes() {
+		long bytes = 0;
+		for (DocumentMetrics document : documents) {
+			if (document.getAllocatedBytes() < 0) {
+				return -1;
+			}
+			bytes += document.getAllocatedBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns a JSON document containing the totals and the metrics of each
+	 * document. Times are given in milliseconds.
+	 */
+	@Override
+	public synchronized String getReport() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"documents\": ").append(documents.size()).append(",\n");
+		long total = 0;
+		for (DocumentMetrics document : documents) {
+			total += document.getTotalTime();
+		}
+		json.append("  \"totalMillis\": ").append(toMillis(total)).append(",\n");
+		json.append("  \"phaseMillis\": {");
+		for (Phase phase : Phase.values()) {
+			json.append(phase.ordinal() == 0 ? "" : ", ").append('"').append(toKey(phase)).append("\": ").append(toMillis(getTime(phase)));
+		}
+		json.append("},\n");
+		json.append("  \"counts\": {");
+		boolean first = true;
+		for (Map.Entry<String, Long> entry : getCounts().entrySet()) {
+			json.append(first ? "" : ", ").append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+			first = false;
+		}
+		json.append("},\n");
+		json.append("  \"allocatedBytes\": ").append(getAllocatedBytes()).append(",\n");
+		json.append("  \"perDocument\": [");
+		first = true;
+		for (DocumentMetrics document : documents) {
+			json.append(first ? "\n" : ",\n");
+			appendDocument(json, document);
+			first = false;
+		}
+		json.append(first ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	private void appendDocument(StringBuilder json, DocumentMetrics document) {
+		json.append("    {\"document\": \"").append(escape(document.getDocument())).append("\", ");
+		json.append("\"totalMillis\": ").append(toMillis(document.getTotalTime())).append(", ");
+		json.append("\"phaseMillis\": {");
+		for (Phase phase : Phase.values()) {
+			json.append(phase.ordinal() == 0 ? "" : ", ").append('"').append(toKey(phase)).append("\": ").append(toMillis(document.getTime(phase)));
+		}
+		json.append("}, \"counts\": {");
+		for (Count count : Count.values()) {
+			json.append(count.ordinal() == 0 ? "" : ", ").append('"').append(toKey(count)).append("\": ").append(document.get(count));
+		}
+		json.append("}, \"allocatedBytes\": ").append(document.getAllocatedBytes()).append("}");
+	}
+
+	/**
+	 * Writes the report given by {@link #getReport()} to the given file.
+	 * 
+	 * @throws PepperModuleException
+	 *             if the file cannot be written
+	 */
+	public void writeReport(File file) {
+		if ((file.getParentFile() != null) && (!file.getParentFile().exists())) {
+			file.getParentFile().mkdirs();
+		}
+		try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+			writer.write(getReport());
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot write metrics report '" + file.getAbsolutePath() + "'. ", e);
+		}
+	}
+
+	/**
+	 * Registers the metrics at the platform mbean server under the given
+	 * name, replacing metrics registered under the same name by an earlier
+	 * import. A failure is only logged, since metrics are not essential.
+	 */
+	public synchronized void register(String name) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName newName = new ObjectName(JMX_DOMAIN + ":type=" + Tiger2Metrics.class.getSimpleName() + ",name=" + ObjectName.quote(name));
+			if (server.isRegistered(newName)) {
+				server.unregisterMBean(newName);
+			}
+			server.registerMBean(this, newName);
+			objectName = newName;
+		} catch (JMException | RuntimeException e) {
+			logger.warn("Cannot register import metrics '{}' via JMX. ", name, e);
+		}
+	}
+
+	/**
+	 * Unregisters the metrics from the platform mbean server, if they have
+	 * been registered by {@link #register(String)}. A failure is only logged.
+	 */
+	public synchronized void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException | RuntimeException e) {
+			logger.warn("Cannot unregister import metrics '{}' via JMX. ", objectName, e);
+		}
+		objectName = null;
+	}
+
+	/** Returns the name the metrics are registered under, or <code>null</code>. **/
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/** Returns a key like <code>nonTerminals</code> for the given constant. **/
+	static String toKey(Enum<?> constant) {
+		StringBuilder key = new StringBuilder();
+		for (String part : constant.name().toLowerCase(Locale.ROOT).split("_")) {
+			key.append((key.length() == 0) ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+		}
+		return key.toString();
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+	}
+
+	private static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ((c == '"') || (c == '\\')) {
+				escaped.append('\\').append(c);
+			} else if (c < 0x20) {
+				escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+}
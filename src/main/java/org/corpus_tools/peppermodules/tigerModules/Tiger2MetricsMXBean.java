@@ -0,0 +1,44 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link Tiger2Metrics}, which exposes the
+ * metrics of an import via JMX.
+ */
+public interface Tiger2MetricsMXBean {
+	/** Returns the number of mapped documents. **/
+	int getNumberOfDocuments();
+
+	/** Returns the time spent in each phase over all documents in milliseconds. **/
+	Map<String, Long> getPhaseMillis();
+
+	/** Returns the number of created objects of each kind over all documents. **/
+	Map<String, Long> getCounts();
+
+	/**
+	 * Returns the number of bytes allocated by the threads mapping the
+	 * documents, or -1 if it is unknown.
+	 */
+	long getAllocatedBytes();
+
+	/** Returns all metrics as a JSON document. **/
+	String getReport();
+}
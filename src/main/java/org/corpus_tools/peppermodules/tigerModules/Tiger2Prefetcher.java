@@ -0,0 +1,266 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.common.util.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+
+/**
+ * Loads the &lt;tiger2/&gt; models of upcoming documents on background
+ * threads, while earlier documents are being mapped, see
+ * {@link Tiger2ImporterProperties#PROP_PREFETCH}. A mapper takes the
+ * prefetched model of its file via {@link #take(URI)} instead of loading it
+ * itself, a model which is not needed is dropped via {@link #discard(URI)}.
+ * <br/>
+ * The memory of the prefetched models is bounded: the heap needed for a model
+ * is estimated as {@value #MODEL_SIZE_FACTOR} times the size of its file, and
+ * a file is only prefetched, if the estimates of all prefetched models which
+ * have not been taken yet stay within the budget. A file which is not
+ * prefetched is simply loaded by its mapper.
+ */
+public class Tiger2Prefetcher {
+	private static final Logger logger = LoggerFactory.getLogger(Tiger2Prefetcher.class);
+	/**
+	 * rough ratio between the heap needed for a loaded model and the size of
+	 * its file
+	 */
+	public static final int MODEL_SIZE_FACTOR = 10;
+
+	private final Tiger2ResourceLoader loader;
+	private final long memoryBudget;
+	private final ExecutorService executor;
+	/** the prefetches not yet taken or discarded, guarded by this **/
+	private final Map<URI, Prefetch> prefetches = new HashMap<>();
+	/** the estimated memory of all entries of {@link #prefetches} **/
+	private long reserved = 0;
+	private boolean closed = false;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * @param loader
+	 *            the loader used to load the models
+	 * @param threads
+	 *            the number of background threads
+	 * @param memoryBudget
+	 *            the maximal estimated memory of all prefetched models in
+	 *            bytes
+	 */
+	public Tiger2Prefetcher(Tiger2ResourceLoader loader, int threads, long memoryBudget) {
+		this.loader = loader;
+		this.memoryBudget = memoryBudget;
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger number = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "tiger2-prefetch-" + number.incrementAndGet());
+				// never keeps the jvm alive
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/** Returns the maximal estimated memory of all prefetched models. **/
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Starts loading the model stored at the given uri in the background,
+	 * unless it is already being prefetched or would exceed the memory
+	 * budget.
+	 * 
+	 * @return true, if the model is prefetched
+	 */
+	public synchronized boolean prefetch(URI uri) {
+		if ((closed) || (!uri.isFile()) || (prefetches.containsKey(uri))) {
+			return false;
+		}
+		long estimate = new File(uri.toFileString()).length() * MODEL_SIZE_FACTOR;
+		if (reserved + estimate > memoryBudget) {
+			logger.debug("Not prefetching '{}', because {} bytes are already reserved for prefetched models. ", uri, reserved);
+			return false;
+		}
+		Prefetch prefetch = new Prefetch(uri, estimate);
+		reserved += estimate;
+		prefetches.put(uri, prefetch);
+		prefetch.future = executor.submit(prefetch);
+		return true;
+	}
+
+	/**
+	 * Returns the prefetched model stored at the given uri and waits until it
+	 * is loaded. The caller is responsible for releasing the model. Returns
+	 * <code>null</code>, if the model has not been prefetched or could not be
+	 * loaded, so that the caller loads it itself and reports the failure.
+	 */
+	public Corpus take(URI uri) {
+		Prefetch prefetch = remove(uri);
+		if (prefetch == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		try {
+			prefetch.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			prefetch.discard();
+			return null;
+		} catch (ExecutionException e) {
+			logger.debug("Prefetching '{}' failed, it is loaded again. ", uri, e.getCause());
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return prefetch.take();
+	}
+
+	/**
+	 * Drops the prefetched model stored at the given uri, if there is one. A
+	 * model, which is still being loaded, is released as soon as it is
+	 * loaded.
+	 */
+	public void discard(URI uri) {
+		Prefetch prefetch = remove(uri);
+		if (prefetch != null) {
+			prefetch.discard();
+		}
+	}
+
+	private synchronized Prefetch remove(URI uri) {
+		Prefetch prefetch = prefetches.remove(uri);
+		if (prefetch != null) {
+			reserved -= prefetch.estimate;
+		}
+		return prefetch;
+	}
+
+	/**
+	 * Discards all models, which have not been taken, and stops the
+	 * background threads.
+	 */
+	public void close() {
+		List<Prefetch> remaining;
+		synchronized (this) {
+			closed = true;
+			remaining = new ArrayList<>(prefetches.values());
+			prefetches.clear();
+			reserved = 0;
+		}
+		for (Prefetch prefetch : remaining) {
+			prefetch.discard();
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** Returns the number of models, which have been taken after prefetching. **/
+	public int getNumberOfHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of models, which have been requested but were not
+	 * prefetched.
+	 */
+	public int getNumberOfMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * A single model being prefetched. The loaded model is handed over to
+	 * either {@link #take()} or {@link #discard()}, whichever comes first
+	 * after loading, so that a model is never lost without being released.
+	 */
+	private class Prefetch implements Callable<Void> {
+		private final URI uri;
+		private final long estimate;
+		private Future<Void> future = null;
+		/** the loaded model, guarded by this **/
+		private Corpus corpus = null;
+		/** whether the model is not needed, guarded by this **/
+		private boolean discarded = false;
+
+		Prefetch(URI uri, long estimate) {
+			this.uri = uri;
+			this.estimate = estimate;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			Corpus loaded = loader.load(uri);
+			try {
+				// the mapper takes the scheme without reading the file again
+				loader.getAnnotationScheme(uri);
+			} catch (RuntimeException e) {
+				// the mapper reports it
+			}
+			synchronized (this) {
+				if (!discarded) {
+					corpus = loaded;
+					return null;
+				}
+			}
+			loader.release(loaded);
+			return null;
+		}
+
+		synchronized Corpus take() {
+			Corpus taken = corpus;
+			corpus = null;
+			return taken;
+		}
+
+		void discard() {
+			Corpus loaded;
+			synchronized (this) {
+				discarded = true;
+				loaded = corpus;
+				corpus = null;
+			}
+			if (loaded != null) {
+				loader.release(loaded);
+			} else {
+				future.cancel(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
+
+/**
+ * Loads &lt;tiger2/&gt; models via the EMF resource mechanism. The loader is
+ * shared by all mappers of a {@link Tiger2Importer} and is called on the
+ * mapper threads, so that parsing a file is part of mapping its document.
+ * <br/>
+ * A {@link ResourceSet} is not safe for concurrent loading, therefore each
+ * thread gets its own resource set having the same resource factory
+ * registrations.
+ * <br/>
+ * The EMF model does not contain the annotation scheme declared in the head
+ * of a TigerXML file, it is read separately once per file by
+ * {@link #getAnnotationScheme(URI)}.
+ */
+public class Tiger2ResourceLoader {
+	/**
+	 * {@link ResourceSet} objects to load models via emf resource mechanism,
+	 * one for each thread.
+	 */
+	private final ThreadLocal<ResourceSet> resourceSets = new ThreadLocal<ResourceSet>() {
+		@Override
+		protected ResourceSet initialValue() {
+			return (createResourceSet());
+		}
+	};
+
+	/** the annotation scheme of each TigerXML file by its uri **/
+	private final ConcurrentMap<URI, AnnotationScheme> annotationSchemes = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link ResourceSet} object, which is able to load
+	 * &lt;tiger2/&gt; and TigerXML files.
+	 */
+	protected ResourceSet createResourceSet() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGER2, new TigerResourceFactory());
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGER2_2, new TigerResourceFactory());
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGERXML, new TigerResourceFactory());
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(TigerResourceFactory.FILE_ENDING_TIGERXML_2, new TigerResourceFactory());
+		return (resourceSet);
+	}
+
+	/**
+	 * Returns the {@link ResourceSet} of the current thread.
+	 */
+	protected ResourceSet getResourceSet() {
+		return (resourceSets.get());
+	}
+
+	/**
+	 * Loads the &lt;tiger2/&gt; model stored at the given uri into the
+	 * resource set of the current thread. The resource containing the model
+	 * stays in the resource set, until the mapper releases it. If loading
+	 * fails, the resource is removed immediately.
+	 *
+	 * @throws IOException
+	 *             if the file could not be read
+	 * @throws PepperModuleException
+	 *             if the file does not contain a &lt;tiger2/&gt; model
+	 */
+	public Corpus load(URI inputUri) throws IOException {
+		ResourceSet resourceSet = getResourceSet();
+		Resource resourceLoad = null;
+		// the lock is only contended, when a model is released on another
+		// thread than the one which loaded it
+		synchronized (resourceSet) {
+			resourceLoad = resourceSet.createResource(inputUri);
+		}
+		if (resourceLoad == null) {
+			throw new PepperModuleException("Cannot map the data stored at given uri '" + inputUri + "', because no resource object could have been created to read these data.");
+		}
+		boolean loaded = false;
+		try {
+			resourceLoad.load(null);
+			Object objCorpus = (resourceLoad.getContents().isEmpty()) ? null : resourceLoad.getContents().get(0);
+			if (!(objCorpus instanceof Corpus)) {
+				throw new PepperModuleException("Cannot map the data stored at given uri '" + inputUri + "', because they could not have been mapped to a tiger2 corpus model object.");
+			}
+			loaded = true;
+			return ((Corpus) objCorpus);
+		} finally {
+			if (!loaded) {
+				release(resourceLoad);
+			}
+		}
+	}
+
+	/**
+	 * Unloads the resource containing the given model and removes it from its
+	 * {@link ResourceSet}. This is used for models, which have been loaded but
+	 * are not mapped.
+	 */
+	public void release(Corpus corpus) {
+		Resource resource = corpus.eResource();
+		if (resource != null) {
+			release(resource);
+		}
+	}
+
+	/**
+	 * Unloads the given resource and removes it from its {@link ResourceSet}.
+	 */
+	private void release(Resource resource) {
+		ResourceSet resourceSet = resource.getResourceSet();
+		if (resourceSet != null) {
+			synchronized (resourceSet) {
+				resourceSet.getResources().remove(resource);
+			}
+		}
+		resource.unload();
+	}
+
+	/**
+	 * Returns the annotation scheme declared in the head of the given TigerXML
+	 * file, or <code>null</code> if the file is not a TigerXML file. The head
+	 * is read once per file, the scheme is kept for all later calls.
+	 * 
+	 * @throws PepperModuleException
+	 *             if the head cannot be read
+	 */
+	public AnnotationScheme getAnnotationScheme(URI inputUri) {
+		String ending = inputUri.fileExtension();
+		if ((!TigerResourceFactory.FILE_ENDING_TIGERXML.equalsIgnoreCase(ending)) && (!TigerResourceFactory.FILE_ENDING_TIGERXML_2.equalsIgnoreCase(ending))) {
+			return null;
+		}
+		AnnotationScheme annotationScheme = annotationSchemes.get(inputUri);
+		if (annotationScheme == null) {
+			annotationScheme = AnnotationScheme.read(new File(inputUri.toFileString()));
+			AnnotationScheme existing = annotationSchemes.putIfAbsent(inputUri, annotationScheme);
+			if (existing != null) {
+				annotationScheme = existing;
+			}
+		}
+		return annotationScheme;
+	}
+}
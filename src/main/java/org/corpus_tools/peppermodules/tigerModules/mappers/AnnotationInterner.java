@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.corpus_tools.salt.core.SAnnotation;
+
+/**
+ * Deduplicates the names and values of annotations, so that all
+ * {@link SAnnotation} objects having the same name or value share a single
+ * {@link String} object. Treebank annotations are taken from a small
+ * vocabulary, while the parsers create a new string for each occurrence.
+ * <br/>
+ * An interner is meant to be shared by all mappers of an import and is safe
+ * for concurrent use. To bound its memory, at most {@link #getLimit()} names
+ * and values are kept each, further strings are passed through unchanged.
+ */
+public class AnnotationInterner {
+	/** default maximal number of distinct names and of distinct values **/
+	public static final int DEFAULT_LIMIT = 1 << 20;
+
+	private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+	private final int limit;
+
+	public AnnotationInterner() {
+		this(DEFAULT_LIMIT);
+	}
+
+	/**
+	 * @param limit
+	 *            maximal number of distinct names and of distinct values to
+	 *            be kept
+	 */
+	public AnnotationInterner(int limit) {
+		this.limit = limit;
+	}
+
+	/** Returns the maximal number of distinct names and values kept. **/
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the shared instance of the given annotation name.
+	 */
+	public String internName(String name) {
+		return intern(names, name);
+	}
+
+	/**
+	 * Returns the shared instance of the given annotation value.
+	 */
+	public String internValue(String value) {
+		return intern(values, value);
+	}
+
+	/** Returns the number of distinct annotation names seen so far. **/
+	public int getNumberOfNames() {
+		return names.size();
+	}
+
+	/** Returns the number of distinct annotation values seen so far. **/
+	public int getNumberOfValues() {
+		return values.size();
+	}
+
+	private String intern(ConcurrentMap<String, String> strings, String string) {
+		if (string == null) {
+			return null;
+		}
+		String shared = strings.get(string);
+		if (shared != null) {
+			return shared;
+		}
+		if (strings.size() >= limit) {
+			return string;
+		}
+		shared = strings.putIfAbsent(string, string);
+		return (shared == null) ? string : shared;
+	}
+}
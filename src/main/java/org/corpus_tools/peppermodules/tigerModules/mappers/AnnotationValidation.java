@@ -0,0 +1,106 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+
+/**
+ * Collects the annotation values of a document, which are not declared in
+ * the {@link AnnotationScheme} of its file. For each feature the number of
+ * undeclared occurrences is counted and up to {@link #MAX_SAMPLES} distinct
+ * values are kept as examples. The methods are synchronized, since segments
+ * may be mapped in parallel, but they are only called for undeclared values.
+ */
+public class AnnotationValidation {
+	/** maximal number of distinct example values kept per feature **/
+	public static final int MAX_SAMPLES = 10;
+
+	private final Map<String, Integer> counts = new TreeMap<>();
+	private final Map<String, Set<String>> samples = new TreeMap<>();
+
+	/**
+	 * Records an occurrence of a value, which is not declared for the given
+	 * feature.
+	 */
+	public synchronized void addUndeclaredValue(String feature, String value) {
+		Integer count = counts.get(feature);
+		counts.put(feature, (count == null) ? 1 : count + 1);
+		Set<String> values = samples.get(feature);
+		if (values == null) {
+			values = new LinkedHashSet<>();
+			samples.put(feature, values);
+		}
+		if (values.size() < MAX_SAMPLES) {
+			values.add(value);
+		}
+	}
+
+	/** Returns whether all values have been declared. **/
+	public synchronized boolean isEmpty() {
+		return counts.isEmpty();
+	}
+
+	/**
+	 * Returns the number of occurrences of undeclared values of the given
+	 * feature.
+	 */
+	public synchronized int getNumberOfUndeclaredValues(String feature) {
+		Integer count = counts.get(feature);
+		return (count == null) ? 0 : count;
+	}
+
+	/**
+	 * Returns up to {@link #MAX_SAMPLES} undeclared values of the given
+	 * feature in the order of their first occurrence.
+	 */
+	public synchronized Set<String> getSamples(String feature) {
+		Set<String> values = samples.get(feature);
+		return (values == null) ? new LinkedHashSet<String>() : new LinkedHashSet<>(values);
+	}
+
+	/**
+	 * Returns a summary like <code>pos: 2 (PPER, ITJ); cat: 1 (X)</code>,
+	 * listing each feature with the number of undeclared occurrences and some
+	 * examples.
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder summary = new StringBuilder();
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			if (summary.length() > 0) {
+				summary.append("; ");
+			}
+			summary.append(entry.getKey()).append(": ").append(entry.getValue()).append(" (");
+			boolean first = true;
+			for (String value : samples.get(entry.getKey())) {
+				if (!first) {
+					summary.append(", ");
+				}
+				summary.append(value);
+				first = false;
+			}
+			summary.append(")");
+		}
+		return summary.toString();
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+
+/**
+ * The time spent in each phase of mapping a single document and the number
+ * of created objects, see {@link Tiger2ImporterProperties#PROP_METRICS}. The
+ * values are kept in atomic arrays, since segments may be mapped in
+ * parallel. A {@link Tiger22SaltMapper} only records metrics, if it has been
+ * given a {@link DocumentMetrics} object, otherwise it only checks for
+ * <code>null</code>.
+ */
+public class DocumentMetrics {
+	/** A phase of mapping a document. **/
+	public enum Phase {
+		/** loading or parsing the file, including parsing while streaming **/
+		LOAD,
+		/** mapping terminals to tokens, including their annotations **/
+		TERMINALS,
+		/** mapping non-terminals to structures, including their annotations **/
+		NON_TERMINALS,
+		/** mapping edges to relations, including their annotations **/
+		RELATIONS,
+		/**
+		 * mapping annotations, this time is contained in the time of
+		 * terminals, non-terminals and relations
+		 */
+		ANNOTATIONS,
+		/** adding text and elements of the segments to the document graph **/
+		TEXT,
+		/** creating a span for each segment **/
+		SPANS
+	}
+
+	/** A kind of objects counted while mapping a document. **/
+	public enum Count {
+		SEGMENTS, TOKENS, STRUCTURES, RELATIONS, ANNOTATIONS,
+		/** edges, whose direction has been reversed by the properties **/
+		REVERSED_EDGES,
+		/**
+		 * edges, whose direction has been flipped, because a dominance
+		 * relation cannot start at a token
+		 */
+		FLIPPED_EDGES
+	}
+
+	private final String document;
+	private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+	private final AtomicLongArray counts = new AtomicLongArray(Count.values().length);
+	private long totalNanos = 0;
+	private long allocatedBytes = -1;
+
+	/**
+	 * @param document
+	 *            the id of the document
+	 */
+	public DocumentMetrics(String document) {
+		this.document = document;
+	}
+
+	/** Returns the id of the document. **/
+	public String getDocument() {
+		return document;
+	}
+
+	/** Adds the given time in nanoseconds to the given phase. **/
+	public void addTime(Phase phase, long time) {
+		nanos.addAndGet(phase.ordinal(), time);
+	}
+
+	/** Returns the time in nanoseconds spent in the given phase. **/
+	public long getTime(Phase phase) {
+		return nanos.get(phase.ordinal());
+	}
+
+	/** Adds the given number of objects of the given kind. **/
+	public void add(Count count, long number) {
+		counts.addAndGet(count.ordinal(), number);
+	}
+
+	/** Returns the number of objects of the given kind. **/
+	public long get(Count count) {
+		return counts.get(count.ordinal());
+	}
+
+	/** Returns the time in nanoseconds mapping the document took in total. **/
+	public long getTotalTime() {
+		return totalNanos;
+	}
+
+	public void setTotalTime(long totalNanos) {
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the thread mapping the
+	 * document, or -1 if it is unknown. Objects allocated by threads mapping
+	 * segments in parallel are not contained.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far, or
+	 * -1 if the jvm does not measure it. The value is queried from the
+	 * platform mbean server, so that no jvm specific class is needed.
+	 */
+	public static long getCurrentThreadAllocatedBytes() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			Object bytes = server.invoke(new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME), "getThreadAllocatedBytes", new Object[] { Thread.currentThread().getId() }, new String[] { long.class.getName() });
+			return (bytes instanceof Long) ? (Long) bytes : -1;
+		} catch (JMException | RuntimeException e) {
+			return -1;
+		}
+	}
+}
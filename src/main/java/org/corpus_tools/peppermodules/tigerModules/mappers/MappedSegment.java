@@ -0,0 +1,169 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
+
+/**
+ * Contains the Salt objects created for a single {@link Segment}, before they
+ * are added to the {@link SDocumentGraph}. Creating these objects does not
+ * touch the document graph, so that several segments can be mapped at the
+ * same time. Afterwards the segments are merged into the document graph one
+ * after another by {@link Tiger22SaltMapper#mergeSegment(MappedSegment,
+ * org.corpus_tools.salt.common.STextualDS)}.
+ * <br/>
+ * The text of the segment is laid out as if the document text in front of it
+ * was not empty, so that the separator precedes each terminal. The offsets of
+ * the tokens are kept in primitive arrays and are relative to the beginning of
+ * the segment, until the segment is merged. Text and offsets are sized once
+ * via {@link #reserve(int, int)} before the words are appended.
+ */
+public class MappedSegment {
+	/**
+	 * Maps a {@link SyntacticNode} object of the current {@link Graph} to the
+	 * corresponding mapped {@link SNode} object. Edges never leave their
+	 * graph, therefore the lookup is cleared for each graph. The nodes are
+	 * compared by identity.
+	 */
+	Map<SyntacticNode, SNode> synNode2sNode = null;
+	/**
+	 * Maps a {@link SyntacticNode} object of the segment to the corresponding
+	 * mapped {@link SNode} object, <code>null</code> if the lookups are not
+	 * kept.
+	 */
+	final Map<SyntacticNode, SNode> keptNodes;
+	/**
+	 * Maps an {@link Edge} object of the segment to the corresponding mapped
+	 * {@link SRelation} object, <code>null</code> if the lookups are not
+	 * kept.
+	 */
+	final Map<Edge, SRelation> edge2sRelation;
+	/**
+	 * All created nodes and relations in the order they are added to the
+	 * document graph.
+	 */
+	final List<Object> elements = new ArrayList<>();
+	/**
+	 * The tokens of the segment, <code>null</code> if the segment has a single
+	 * graph without terminals.
+	 */
+	List<SToken> sTokens = null;
+	/** the text of the segment **/
+	final StringBuilder text = new StringBuilder();
+	/** start offsets of the tokens relative to the segment **/
+	int[] starts = new int[0];
+	/** end offsets of the tokens relative to the segment **/
+	int[] ends = new int[0];
+	/** number of tokens in the segment **/
+	int numberOfTokens = 0;
+
+	/**
+	 * @param keepLookups
+	 *            whether the lookups of all graphs shall be kept, see
+	 *            {@link Tiger22SaltMapper#isKeepLookups()}
+	 */
+	MappedSegment(boolean keepLookups) {
+		keptNodes = keepLookups ? new IdentityHashMap<SyntacticNode, SNode>() : null;
+		edge2sRelation = keepLookups ? new IdentityHashMap<Edge, SRelation>() : null;
+	}
+
+	/**
+	 * Prepares the node lookup for the given graph. The lookup is sized to the
+	 * number of nodes in the graph, so that it never needs to grow. Missing
+	 * lists of terminals or non-terminals count as empty.
+	 */
+	void startGraph(Graph graph) {
+		int size = 0;
+		if (graph.getTerminals() != null) {
+			size += graph.getTerminals().size();
+		}
+		if (graph.getNonTerminals() != null) {
+			size += graph.getNonTerminals().size();
+		}
+		if ((synNode2sNode == null) || (size > lookupSize)) {
+			synNode2sNode = new IdentityHashMap<>(size);
+			lookupSize = size;
+		}
+	}
+
+	/** maximal number of nodes the current lookup was sized for **/
+	private int lookupSize = 0;
+
+	/**
+	 * Drops the node lookup of the current graph, after copying it into
+	 * {@link #keptNodes} if the lookups are kept.
+	 */
+	void endGraph() {
+		if (keptNodes != null) {
+			keptNodes.putAll(synNode2sNode);
+		}
+		synNode2sNode.clear();
+	}
+
+	/**
+	 * Sizes the offsets and the text for the given number of tokens and
+	 * characters, so that appending the words never needs to grow them.
+	 */
+	void reserve(int tokens, int characters) {
+		if (tokens > starts.length) {
+			starts = Arrays.copyOf(starts, tokens);
+			ends = Arrays.copyOf(ends, tokens);
+		}
+		text.ensureCapacity(characters);
+	}
+
+	/**
+	 * Appends the given word to the text of the segment and returns the
+	 * position of the word.
+	 */
+	int appendWord(String separator, String word) {
+		if (numberOfTokens == starts.length) {
+			starts = Arrays.copyOf(starts, Math.max(16, numberOfTokens * 2));
+			ends = Arrays.copyOf(ends, Math.max(16, numberOfTokens * 2));
+		}
+		text.append(separator);
+		starts[numberOfTokens] = text.length();
+		text.append(word);
+		ends[numberOfTokens] = text.length();
+		return numberOfTokens++;
+	}
+
+	/** Returns the number of tokens in the segment. **/
+	public int getNumberOfTokens() {
+		return numberOfTokens;
+	}
+
+	/** Returns the tokens of the segment. **/
+	public List<SToken> getTokens() {
+		return sTokens;
+	}
+}
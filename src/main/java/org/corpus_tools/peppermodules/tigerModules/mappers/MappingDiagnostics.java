@@ -0,0 +1,225 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates the anomalies found while mapping a document, for instance
+ * edges, whose direction had to be changed, or relations, which cannot be
+ * exported. Instead of logging each
+ * occurrence, the occurrences are counted per anomaly, edge type and node
+ * kinds, and up to a given number of examples is kept for each of them, so
+ * that a single summary can be logged per document. An example is only
+ * created while there is room for it. The methods are synchronized, since
+ * segments may be mapped in parallel, but they are only called for
+ * anomalies.
+ */
+public class MappingDiagnostics {
+	/** default number of examples kept per anomaly **/
+	public static final int DEFAULT_SAMPLES = 10;
+
+	/**
+	 * A dominance relation, whose source is a token, is mapped with source
+	 * and target exchanged.
+	 */
+	public static final String REVERSED_TOKEN_DOMINANCE = "dominance relation reversed, since its source can't be a token";
+	/** the kinds of the nodes of an edge from a token to a token **/
+	public static final String TOKEN_TO_TOKEN = "token -> token";
+	/** the kinds of the nodes of an edge from a token to a structure **/
+	public static final String TOKEN_TO_STRUCTURE = "token -> structure";
+	/** the kinds of the nodes of an edge from a structure to a token **/
+	public static final String STRUCTURE_TO_TOKEN = "structure -> token";
+	/** the kinds of the nodes of an edge from a structure to a structure **/
+	public static final String STRUCTURE_TO_STRUCTURE = "structure -> structure";
+	/**
+	 * A relation is not exported, because its nodes are written in different
+	 * segments.
+	 */
+	public static final String RELATION_ACROSS_SEGMENTS = "relation not exported, since its nodes are in different segments";
+	/**
+	 * A primary edge is exported as secondary edge, because its target
+	 * already is the target of another primary edge.
+	 */
+	public static final String SECOND_PARENT = "exported as secondary edge, since its target already has a parent";
+
+	/**
+	 * Identifies a kind of anomaly by its description, the edge type and the
+	 * kinds of the nodes involved.
+	 */
+	private static class Key implements Comparable<Key> {
+		private final String anomaly;
+		private final String edgeType;
+		private final String nodeKinds;
+
+		private Key(String anomaly, String edgeType, String nodeKinds) {
+			this.anomaly = anomaly;
+			this.edgeType = (edgeType == null) ? "" : edgeType;
+			this.nodeKinds = nodeKinds;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return anomaly.equals(other.anomaly) && edgeType.equals(other.edgeType) && nodeKinds.equals(other.nodeKinds);
+		}
+
+		@Override
+		public int hashCode() {
+			return (anomaly.hashCode() * 31 + edgeType.hashCode()) * 31 + nodeKinds.hashCode();
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			return toString().compareTo(other.toString());
+		}
+
+		@Override
+		public String toString() {
+			return anomaly + " (type '" + edgeType + "', " + nodeKinds + ")";
+		}
+	}
+
+	/**
+	 * Returns one of {@link #TOKEN_TO_TOKEN}, {@link #TOKEN_TO_STRUCTURE},
+	 * {@link #STRUCTURE_TO_TOKEN} and {@link #STRUCTURE_TO_STRUCTURE}.
+	 */
+	public static String getNodeKinds(boolean sourceIsToken, boolean targetIsToken) {
+		if (sourceIsToken) {
+			return targetIsToken ? TOKEN_TO_TOKEN : TOKEN_TO_STRUCTURE;
+		}
+		return targetIsToken ? STRUCTURE_TO_TOKEN : STRUCTURE_TO_STRUCTURE;
+	}
+
+	private final int maxSamples;
+	private final Map<Key, Integer> counts = new HashMap<>();
+	private final Map<Key, List<String>> samples = new HashMap<>();
+
+	public MappingDiagnostics() {
+		this(DEFAULT_SAMPLES);
+	}
+
+	/**
+	 * @param maxSamples
+	 *            the number of examples kept per anomaly, edge type and node
+	 *            kinds
+	 */
+	public MappingDiagnostics(int maxSamples) {
+		this.maxSamples = maxSamples;
+	}
+
+	/** Returns the number of examples kept per anomaly. **/
+	public int getMaxSamples() {
+		return maxSamples;
+	}
+
+	/**
+	 * Records an occurrence of the given anomaly for an edge of the given type
+	 * between the nodes having the given ids. The example
+	 * <code>source -&gt; target</code> is only created, if there is still
+	 * room for it.
+	 * 
+	 * @param anomaly
+	 *            a description of what happened
+	 * @param edgeType
+	 *            the type of the edge, may be <code>null</code>
+	 * @param nodeKinds
+	 *            the kinds of the nodes, like <code>token -&gt; structure</code>
+	 */
+	public synchronized void addEdge(String anomaly, String edgeType, String nodeKinds, String sourceId, String targetId) {
+		Key key = new Key(anomaly, edgeType, nodeKinds);
+		Integer count = counts.get(key);
+		counts.put(key, (count == null) ? 1 : count + 1);
+		List<String> examples = samples.get(key);
+		if (examples == null) {
+			examples = new ArrayList<>();
+			samples.put(key, examples);
+		}
+		if (examples.size() < maxSamples) {
+			examples.add(sourceId + " -> " + targetId);
+		}
+	}
+
+	/** Returns whether no anomaly has been recorded. **/
+	public synchronized boolean isEmpty() {
+		return counts.isEmpty();
+	}
+
+	/**
+	 * Returns the number of occurrences of the given anomaly for the given
+	 * edge type and node kinds.
+	 */
+	public synchronized int getCount(String anomaly, String edgeType, String nodeKinds) {
+		Integer count = counts.get(new Key(anomaly, edgeType, nodeKinds));
+		return (count == null) ? 0 : count;
+	}
+
+	/** Returns the number of occurrences of all anomalies. **/
+	public synchronized int getCount() {
+		int count = 0;
+		for (Integer number : counts.values()) {
+			count += number;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the examples kept for the given anomaly, edge type and node
+	 * kinds in the order of their occurrence.
+	 */
+	public synchronized List<String> getSamples(String anomaly, String edgeType, String nodeKinds) {
+		List<String> examples = samples.get(new Key(anomaly, edgeType, nodeKinds));
+		return (examples == null) ? new ArrayList<String>() : new ArrayList<>(examples);
+	}
+
+	/**
+	 * Returns a summary listing each anomaly with its edge type and node
+	 * kinds, the number of occurrences and some examples, like
+	 * <code>reversed dominance edge (type 'sec', token -&gt; structure): 2 (s1_1 -&gt; s1_500, s2_3 -&gt; s2_501)</code>.
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder summary = new StringBuilder();
+		for (Map.Entry<Key, Integer> entry : new TreeMap<>(counts).entrySet()) {
+			if (summary.length() > 0) {
+				summary.append("; ");
+			}
+			summary.append(entry.getKey()).append(": ").append(entry.getValue()).append(" (");
+			boolean first = true;
+			for (String example : samples.get(entry.getKey())) {
+				if (!first) {
+					summary.append(", ");
+				}
+				summary.append(example);
+				first = false;
+			}
+			if (entry.getValue() > samples.get(entry.getKey()).size()) {
+				summary.append(first ? "..." : ", ...");
+			}
+			summary.append(")");
+		}
+		return summary.toString();
+	}
+}
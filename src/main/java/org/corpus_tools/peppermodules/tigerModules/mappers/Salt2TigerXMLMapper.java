@@ -0,0 +1,498 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.impl.PepperMapperImpl;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ExporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.corpus_tools.salt.SALT_TYPE;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.SPointingRelation;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SMetaAnnotation;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps a {@link SDocumentGraph} to a TigerXML file. The file is written with
+ * a {@link XMLStreamWriter} one segment after another, without creating a
+ * &lt;tiger2/&gt; model, so that besides the document graph only the
+ * {@link SaltSegmentation} and the objects of the current segment are held
+ * in memory.
+ * <br/>
+ * The mapping reverses the one of {@link Tiger22SaltMapper}:
+ * <ul>
+ * <li>each {@link SToken} becomes a &lt;t/&gt; element, its overlapped text
+ * the attribute <i>word</i>, and each {@link SStructure} becomes a
+ * &lt;nt/&gt; element; annotations become attributes</li>
+ * <li>a {@link SDominanceRelation} or {@link SPointingRelation} becomes an
+ * &lt;edge/&gt; or &lt;secedge/&gt; element at its source node, carrying the
+ * annotation {@value TigerXMLStreamReader#ANNOTATION_EDGE_LABEL} as label</li>
+ * <li>the renaming of edge types and annotation names and the reversal of
+ * edges given by the {@link Tiger2ExporterProperties} are undone</li>
+ * </ul>
+ * The ids of segments and nodes are created following the TIGER convention,
+ * for instance <i>s1</i>, <i>s1_1</i> for the first terminal and
+ * <i>s1_500</i> for the first non-terminal.
+ */
+public class Salt2TigerXMLMapper extends PepperMapperImpl {
+	private static final Logger log = LoggerFactory.getLogger(Salt2TigerXMLMapper.class);
+
+	/** number of the first non-terminal of a segment **/
+	public static final int NONTERMINAL_OFFSET = 500;
+
+	public static final String TAG_CORPUS = "corpus";
+	public static final String TAG_TERMINALS = "terminals";
+	public static final String TAG_NONTERMINALS = "nonterminals";
+	public static final String ATT_ROOT = "root";
+
+	/** the names of meta annotations written into the &lt;meta/&gt; element **/
+	private static final String[] META_NAMES = { "author", "date", "description", "format", "history" };
+
+	public Tiger2ExporterProperties getProps() {
+		return ((Tiger2ExporterProperties) this.getProperties());
+	}
+
+	/**
+	 * Collects the relations, which could not be exported as given, which are
+	 * logged as one summary per document.
+	 */
+	private MappingDiagnostics mappingDiagnostics = new MappingDiagnostics();
+
+	/**
+	 * Returns the relations of the last exported document, which could not
+	 * be exported as given.
+	 */
+	public MappingDiagnostics getMappingDiagnostics() {
+		return mappingDiagnostics;
+	}
+
+	/** the kinds of relations given by the properties, by edge type **/
+	private Map<String, SALT_TYPE> relationTypes = null;
+	/** the edge type of each relation type **/
+	private Map<String, String> edgeTypes = null;
+	/** the attribute name of each annotation name **/
+	private Map<String, String> annotationNames = null;
+	/** the edge types, whose direction is reversed **/
+	private Set<String> reversedTypes = null;
+
+	/**
+	 * An edge written at its source node.
+	 */
+	private static class TigerEdge {
+		private final String targetId;
+		private final String label;
+		private final boolean primary;
+
+		private TigerEdge(String targetId, String label, boolean primary) {
+			this.targetId = targetId;
+			this.label = label;
+			this.primary = primary;
+		}
+	}
+
+	/**
+	 * Writes the document graph to the file given by
+	 * {@link #getResourceURI()}. If the file cannot be written,
+	 * {@link DOCUMENT_STATUS#FAILED} is returned.
+	 */
+	@Override
+	public DOCUMENT_STATUS mapSDocument() {
+		SDocumentGraph graph = getDocument().getDocumentGraph();
+		if (graph == null) {
+			throw new PepperModuleException(this, "Cannot export document '" + getDocument().getId() + "', because it has no document graph.");
+		}
+		if (getResourceURI() == null) {
+			throw new PepperModuleException(this, "Cannot export document '" + getDocument().getId() + "', because no file to write was given.");
+		}
+		relationTypes = getProps().getRelationTypes();
+		edgeTypes = getProps().getEdgeTypes();
+		annotationNames = getProps().getAnnotationNames();
+		reversedTypes = getProps().getRelationReversed();
+		mappingDiagnostics = new MappingDiagnostics(getProps().getDiagnosticSamples());
+
+		SaltSegmentation segmentation = new SaltSegmentation(graph);
+		if (segmentation.getNumberOfDroppedStructures() > 0) {
+			log.warn("Document '{}' contains {} structures, which do not dominate any token and are not exported. ", getDocument().getName(), segmentation.getNumberOfDroppedStructures());
+		}
+		File file = new File(getResourceURI().toFileString());
+		if ((file.getParentFile() != null) && (!file.getParentFile().exists())) {
+			file.getParentFile().mkdirs();
+		}
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			try {
+				xml.writeStartDocument("UTF-8", "1.0");
+				newLine(xml, 0);
+				xml.writeStartElement(TAG_CORPUS);
+				writeAttribute(xml, TigerXMLStreamReader.ATT_ID, getDocument().getName());
+				writeHead(xml, graph);
+				newLine(xml, 1);
+				xml.writeStartElement(TigerXMLStreamReader.TAG_BODY);
+				for (int segment = 0; segment < segmentation.getNumberOfSegments(); segment++) {
+					writeSegment(xml, graph, segmentation, segment);
+				}
+				newLine(xml, 1);
+				xml.writeEndElement();
+				newLine(xml, 0);
+				xml.writeEndElement();
+				newLine(xml, 0);
+				xml.writeEndDocument();
+			} finally {
+				xml.close();
+			}
+		} catch (IOException | XMLStreamException e) {
+			log.error("Cannot write document '{}' to file '{}'. ", getDocument().getId(), file.getAbsolutePath(), e);
+			return (DOCUMENT_STATUS.FAILED);
+		}
+		if (!mappingDiagnostics.isEmpty()) {
+			log.warn("Document '{}' contains {} relations, which could not be exported as given: {}", getDocument().getName(), mappingDiagnostics.getCount(), mappingDiagnostics);
+		}
+		return (DOCUMENT_STATUS.COMPLETED);
+	}
+
+	/**
+	 * Writes the &lt;head/&gt; element containing the meta annotations of the
+	 * document and the declaration of all attribute names. The values of the
+	 * features are not declared, so that no value needs to be collected.
+	 */
+	protected void writeHead(XMLStreamWriter xml, SDocumentGraph graph) throws XMLStreamException {
+		newLine(xml, 1);
+		xml.writeStartElement(TigerXMLStreamReader.TAG_HEAD);
+		newLine(xml, 2);
+		xml.writeStartElement(TigerXMLStreamReader.TAG_META);
+		writeMeta(xml, TigerXMLStreamReader.ATT_NAME, getDocument().getName());
+		for (String name : META_NAMES) {
+			for (SMetaAnnotation meta : getDocument().getMetaAnnotations()) {
+				if (name.equals(meta.getName())) {
+					writeMeta(xml, name, String.valueOf(meta.getValue()));
+					break;
+				}
+			}
+		}
+		newLine(xml, 2);
+		xml.writeEndElement();
+		// start: declare features
+		Map<String, String> domains = new TreeMap<>();
+		for (SToken sToken : graph.getTokens()) {
+			addFeatures(domains, sToken, AnnotationScheme.DOMAIN_TERMINAL);
+		}
+		for (SStructure sStructure : graph.getStructures()) {
+			addFeatures(domains, sStructure, AnnotationScheme.DOMAIN_NONTERMINAL);
+		}
+		newLine(xml, 2);
+		xml.writeStartElement(AnnotationScheme.TAG_ANNOTATION);
+		for (Map.Entry<String, String> domain : domains.entrySet()) {
+			newLine(xml, 3);
+			xml.writeEmptyElement(AnnotationScheme.TAG_FEATURE);
+			xml.writeAttribute(AnnotationScheme.ATT_NAME, domain.getKey());
+			xml.writeAttribute(AnnotationScheme.ATT_DOMAIN, domain.getValue());
+		}
+		newLine(xml, 3);
+		xml.writeEmptyElement(AnnotationScheme.TAG_EDGELABEL);
+		newLine(xml, 3);
+		xml.writeEmptyElement(AnnotationScheme.TAG_SECEDGELABEL);
+		newLine(xml, 2);
+		xml.writeEndElement();
+		// end: declare features
+		newLine(xml, 1);
+		xml.writeEndElement();
+	}
+
+	private void writeMeta(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			newLine(xml, 3);
+			xml.writeStartElement(name);
+			xml.writeCharacters(value);
+			xml.writeEndElement();
+		}
+	}
+
+	/**
+	 * Adds the attribute names of the annotations of the given node to the
+	 * given domains. A name used for terminals and non-terminals gets the
+	 * domain {@value AnnotationScheme#DOMAIN_BOTH}.
+	 */
+	private void addFeatures(Map<String, String> domains, SNode sNode, String domain) {
+		for (SAnnotation sAnnotation : sNode.getAnnotations()) {
+			String name = getAttributeName(sAnnotation.getName());
+			if ((TigerXMLStreamReader.ATT_ID.equals(name)) || (TigerXMLStreamReader.ATT_WORD.equals(name))) {
+				continue;
+			}
+			String known = domains.get(name);
+			if (known == null) {
+				domains.put(name, domain);
+			} else if (!known.equals(domain)) {
+				domains.put(name, AnnotationScheme.DOMAIN_BOTH);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given segment as &lt;s/&gt; element. The ids and edges of the
+	 * nodes are only kept while the segment is written.
+	 */
+	protected void writeSegment(XMLStreamWriter xml, SDocumentGraph graph, SaltSegmentation segmentation, int segment) throws XMLStreamException {
+		String segmentId = "s" + (segment + 1);
+		int from = segmentation.getFrom(segment);
+		int to = segmentation.getTo(segment);
+		List<SStructure> sStructures = segmentation.getStructures(segment);
+		// start: create ids
+		Map<SNode, String> ids = new IdentityHashMap<>();
+		for (int i = from; i < to; i++) {
+			ids.put(segmentation.getToken(i), segmentId + "_" + (i - from + 1));
+		}
+		int offset = Math.max(NONTERMINAL_OFFSET, to - from + 1);
+		for (int i = 0; i < sStructures.size(); i++) {
+			ids.put(sStructures.get(i), segmentId + "_" + (offset + i));
+		}
+		// end: create ids
+		// start: collect edges
+		Map<SNode, List<TigerEdge>> edges = new IdentityHashMap<>();
+		Set<SNode> dominated = new HashSet<>();
+		for (SStructure sStructure : sStructures) {
+			collectEdges(graph, sStructure, ids, edges, dominated);
+		}
+		for (int i = from; i < to; i++) {
+			collectEdges(graph, segmentation.getToken(i), ids, edges, dominated);
+		}
+		String root = null;
+		for (SStructure sStructure : sStructures) {
+			if (!dominated.contains(sStructure)) {
+				root = ids.get(sStructure);
+				break;
+			}
+		}
+		if (root == null) {
+			root = ids.get(segmentation.getToken(from));
+		}
+		// end: collect edges
+		newLine(xml, 2);
+		xml.writeStartElement(TigerXMLStreamReader.TAG_SEGMENT);
+		xml.writeAttribute(TigerXMLStreamReader.ATT_ID, segmentId);
+		newLine(xml, 3);
+		xml.writeStartElement(TigerXMLStreamReader.TAG_GRAPH);
+		xml.writeAttribute(ATT_ROOT, root);
+		newLine(xml, 4);
+		xml.writeStartElement(TAG_TERMINALS);
+		Set<String> attributes = new HashSet<>();
+		for (int i = from; i < to; i++) {
+			SToken sToken = segmentation.getToken(i);
+			writeNode(xml, TigerXMLStreamReader.TAG_TERMINAL, sToken, ids.get(sToken), segmentation.getWord(i), edges.get(sToken), attributes);
+		}
+		newLine(xml, 4);
+		xml.writeEndElement();
+		newLine(xml, 4);
+		xml.writeStartElement(TAG_NONTERMINALS);
+		for (SStructure sStructure : sStructures) {
+			writeNode(xml, TigerXMLStreamReader.TAG_NONTERMINAL, sStructure, ids.get(sStructure), null, edges.get(sStructure), attributes);
+		}
+		newLine(xml, 4);
+		xml.writeEndElement();
+		newLine(xml, 3);
+		xml.writeEndElement();
+		newLine(xml, 2);
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Collects the edges to be written at the given node. These are the
+	 * relations starting at the node and the reversed relations ending at
+	 * it. A relation to a node outside of the segment is dropped. An edge is
+	 * primary, if it starts at a structure and its target has no other
+	 * primary edge, otherwise it is written as secondary edge.
+	 */
+	private void collectEdges(SDocumentGraph graph, SNode sNode, Map<SNode, String> ids, Map<SNode, List<TigerEdge>> edges, Set<SNode> dominated) {
+		List<SRelation<SNode, SNode>> outRelations = graph.getOutRelations(sNode.getId());
+		if (outRelations != null) {
+			for (SRelation<SNode, SNode> sRelation : outRelations) {
+				if ((isEdge(sRelation)) && (!reversedTypes.contains(getEdgeType(sRelation)))) {
+					addEdge(sNode, sRelation.getTarget(), sRelation, ids, edges, dominated);
+				}
+			}
+		}
+		List<SRelation<SNode, SNode>> inRelations = graph.getInRelations(sNode.getId());
+		if (inRelations != null) {
+			for (SRelation<SNode, SNode> sRelation : inRelations) {
+				if ((isEdge(sRelation)) && (reversedTypes.contains(getEdgeType(sRelation)))) {
+					addEdge(sNode, sRelation.getSource(), sRelation, ids, edges, dominated);
+				}
+			}
+		}
+	}
+
+	private void addEdge(SNode source, SNode target, SRelation<?, ?> sRelation, Map<SNode, String> ids, Map<SNode, List<TigerEdge>> edges, Set<SNode> dominated) {
+		String edgeType = getEdgeType(sRelation);
+		String targetId = ids.get(target);
+		if (targetId == null) {
+			mappingDiagnostics.addEdge(MappingDiagnostics.RELATION_ACROSS_SEGMENTS, edgeType, MappingDiagnostics.getNodeKinds(source instanceof SToken, target instanceof SToken), source.getId(), target.getId());
+			return;
+		}
+		boolean primary = (source instanceof SStructure) && (isPrimary(edgeType, sRelation));
+		if ((primary) && (!dominated.add(target))) {
+			mappingDiagnostics.addEdge(MappingDiagnostics.SECOND_PARENT, edgeType, MappingDiagnostics.getNodeKinds(false, target instanceof SToken), source.getId(), target.getId());
+			primary = false;
+		}
+		List<TigerEdge> nodeEdges = edges.get(source);
+		if (nodeEdges == null) {
+			nodeEdges = new ArrayList<>();
+			edges.put(source, nodeEdges);
+		}
+		nodeEdges.add(new TigerEdge(targetId, getLabel(sRelation), primary));
+	}
+
+	/**
+	 * Writes a &lt;t/&gt; or &lt;nt/&gt; element for the given node with its
+	 * annotations as attributes, followed by its edges. An annotation, whose
+	 * attribute name is already used by the element, is skipped.
+	 */
+	private void writeNode(XMLStreamWriter xml, String tag, SNode sNode, String id, String word, List<TigerEdge> nodeEdges, Set<String> attributes) throws XMLStreamException {
+		newLine(xml, 5);
+		if (nodeEdges == null) {
+			xml.writeEmptyElement(tag);
+		} else {
+			xml.writeStartElement(tag);
+		}
+		attributes.clear();
+		xml.writeAttribute(TigerXMLStreamReader.ATT_ID, id);
+		attributes.add(TigerXMLStreamReader.ATT_ID);
+		if (word != null) {
+			xml.writeAttribute(TigerXMLStreamReader.ATT_WORD, word);
+			attributes.add(TigerXMLStreamReader.ATT_WORD);
+		}
+		for (SAnnotation sAnnotation : sNode.getAnnotations()) {
+			String name = getAttributeName(sAnnotation.getName());
+			if ((sAnnotation.getValue() != null) && (attributes.add(name))) {
+				xml.writeAttribute(name, String.valueOf(sAnnotation.getValue()));
+			}
+		}
+		if (nodeEdges != null) {
+			// primary edges precede secondary edges
+			for (int pass = 0; pass < 2; pass++) {
+				for (TigerEdge edge : nodeEdges) {
+					if (edge.primary == (pass == 0)) {
+						newLine(xml, 6);
+						xml.writeEmptyElement(edge.primary ? TigerXMLStreamReader.TAG_EDGE : TigerXMLStreamReader.TAG_SECEDGE);
+						writeAttribute(xml, TigerXMLStreamReader.ATT_LABEL, edge.label);
+						xml.writeAttribute(TigerXMLStreamReader.ATT_IDREF, edge.targetId);
+					}
+				}
+			}
+			newLine(xml, 5);
+			xml.writeEndElement();
+		}
+	}
+
+	/** Returns whether the given relation is written as edge. **/
+	private boolean isEdge(SRelation<?, ?> sRelation) {
+		return ((sRelation instanceof SDominanceRelation) || (sRelation instanceof SPointingRelation));
+	}
+
+	/**
+	 * Returns the edge type of the given relation, which is its type before
+	 * it was renamed. A relation without type is a primary edge if it is a
+	 * {@link SDominanceRelation}, and a secondary edge otherwise.
+	 */
+	private String getEdgeType(SRelation<?, ?> sRelation) {
+		String type = sRelation.getType();
+		if (type == null) {
+			return (sRelation instanceof SDominanceRelation) ? TigerXMLStreamReader.EDGE_TYPE_PRIMARY : TigerXMLStreamReader.EDGE_TYPE_SECONDARY;
+		}
+		String edgeType = edgeTypes.get(type);
+		return (edgeType == null) ? type : edgeType;
+	}
+
+	/**
+	 * Returns whether an edge of the given type is written as &lt;edge/&gt;.
+	 * This is determined by the type for {@value TigerXMLStreamReader#EDGE_TYPE_PRIMARY}
+	 * and {@value TigerXMLStreamReader#EDGE_TYPE_SECONDARY}, by the kind of
+	 * relation the type has been mapped to, and otherwise by the kind of the
+	 * given relation.
+	 */
+	private boolean isPrimary(String edgeType, SRelation<?, ?> sRelation) {
+		if (TigerXMLStreamReader.EDGE_TYPE_PRIMARY.equals(edgeType)) {
+			return true;
+		} else if (TigerXMLStreamReader.EDGE_TYPE_SECONDARY.equals(edgeType)) {
+			return false;
+		}
+		SALT_TYPE saltType = relationTypes.get(edgeType);
+		if (saltType != null) {
+			return SALT_TYPE.SDOMINANCE_RELATION.equals(saltType);
+		}
+		return (sRelation instanceof SDominanceRelation);
+	}
+
+	/**
+	 * Returns the value of the annotation of the given relation, whose
+	 * attribute name is {@value TigerXMLStreamReader#ANNOTATION_EDGE_LABEL},
+	 * or <code>null</code>. Other annotations of relations cannot be
+	 * expressed in TigerXML.
+	 */
+	private String getLabel(SRelation<?, ?> sRelation) {
+		for (SAnnotation sAnnotation : sRelation.getAnnotations()) {
+			if ((sAnnotation.getValue() != null) && (TigerXMLStreamReader.ANNOTATION_EDGE_LABEL.equals(getAttributeName(sAnnotation.getName())))) {
+				return String.valueOf(sAnnotation.getValue());
+			}
+		}
+		return null;
+	}
+
+	/** Returns the name of the annotation before it was renamed. **/
+	private String getAttributeName(String name) {
+		String attributeName = annotationNames.get(name);
+		return (attributeName == null) ? name : attributeName;
+	}
+
+	private void writeAttribute(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			xml.writeAttribute(name, value);
+		}
+	}
+
+	/** Starts a new line indented by the given number of tabs. **/
+	private void newLine(XMLStreamWriter xml, int depth) throws XMLStreamException {
+		xml.writeCharacters(INDENTS[depth]);
+	}
+
+	private static final String[] INDENTS = { "\n", "\n\t", "\n\t\t", "\n\t\t\t", "\n\t\t\t\t", "\n\t\t\t\t\t", "\n\t\t\t\t\t\t" };
+}
@@ -0,0 +1,287 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SNode;
+
+/**
+ * Divides the tokens of a {@link SDocumentGraph} into segments, which can be
+ * written one after another. The tokens are ordered by their textual data
+ * source and their position in the text. Tokens and structures connected by
+ * {@link SDominanceRelation} objects, and tokens covered by the same
+ * {@link SSpan}, end up in the same segment, so a span created for each
+ * segment by the importer restores the original segments. A segment is
+ * closed after the last token, which is connected to a token in front of it.
+ * A token, which is neither dominated nor covered by a span, is added to the
+ * segment in front of it, like punctuation not attached to the tree.
+ * <br/>
+ * Apart from a lookup of the position of each node, only primitive arrays
+ * are created, so that no copy of the document graph is built.
+ */
+public class SaltSegmentation {
+	/** the tokens in text order **/
+	private final SToken[] tokens;
+	/** the texts of the data sources **/
+	private final String[] texts;
+	/** index of the data source of each token **/
+	private final int[] sources;
+	/** start of each token in the text of its data source **/
+	private final int[] starts;
+	/** end of each token in the text of its data source **/
+	private final int[] ends;
+	/** position of the first token of each segment, followed by the number of tokens **/
+	private final int[] segmentStarts;
+	private final int numberOfSegments;
+	/** the structures ordered by segment **/
+	private final SStructure[] structures;
+	/** position of the first structure of each segment in {@link #structures} **/
+	private final int[] structureStarts;
+	/** number of structures, which do not dominate any token **/
+	private final int numberOfDroppedStructures;
+
+	/** disjoint sets of node positions, see {@link #find(int)} **/
+	private final int[] parents;
+	private final int[] sizes;
+
+	public SaltSegmentation(SDocumentGraph graph) {
+		// start: order tokens by text
+		List<STextualDS> dataSources = graph.getTextualDSs();
+		final Map<STextualDS, Integer> sourceIndex = new IdentityHashMap<>();
+		texts = new String[dataSources.size()];
+		for (int i = 0; i < dataSources.size(); i++) {
+			sourceIndex.put(dataSources.get(i), i);
+			texts[i] = dataSources.get(i).getText();
+		}
+		final List<STextualRelation> textRelations = graph.getTextualRelations();
+		Integer[] order = new Integer[textRelations.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				STextualRelation r1 = textRelations.get(o1);
+				STextualRelation r2 = textRelations.get(o2);
+				int compared = Integer.compare(index(sourceIndex, r1.getTarget()), index(sourceIndex, r2.getTarget()));
+				if (compared == 0) {
+					compared = Integer.compare(r1.getStart(), r2.getStart());
+				}
+				return (compared == 0) ? Integer.compare(r1.getEnd(), r2.getEnd()) : compared;
+			}
+		});
+		Map<SNode, Integer> positions = new IdentityHashMap<>();
+		SToken[] orderedTokens = new SToken[order.length];
+		sources = new int[order.length];
+		starts = new int[order.length];
+		ends = new int[order.length];
+		int numberOfTokens = 0;
+		for (Integer i : order) {
+			STextualRelation relation = textRelations.get(i);
+			int source = index(sourceIndex, relation.getTarget());
+			if ((relation.getSource() == null) || (source < 0) || (positions.containsKey(relation.getSource()))) {
+				continue;
+			}
+			positions.put(relation.getSource(), numberOfTokens);
+			orderedTokens[numberOfTokens] = relation.getSource();
+			sources[numberOfTokens] = source;
+			starts[numberOfTokens] = relation.getStart();
+			ends[numberOfTokens] = relation.getEnd();
+			numberOfTokens++;
+		}
+		tokens = Arrays.copyOf(orderedTokens, numberOfTokens);
+		// end: order tokens by text
+
+		// start: connect tokens and structures
+		List<SStructure> allStructures = graph.getStructures();
+		for (SStructure structure : allStructures) {
+			positions.put(structure, positions.size());
+		}
+		for (SSpan span : graph.getSpans()) {
+			positions.put(span, positions.size());
+		}
+		parents = new int[positions.size()];
+		sizes = new int[positions.size()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+			sizes[i] = 1;
+		}
+		for (SDominanceRelation relation : graph.getDominanceRelations()) {
+			union(positions.get(relation.getSource()), positions.get(relation.getTarget()));
+		}
+		for (SSpanningRelation relation : graph.getSpanningRelations()) {
+			union(positions.get(relation.getSource()), positions.get(relation.getTarget()));
+		}
+		// end: connect tokens and structures
+
+		// start: find segments
+		int[] lastTokens = new int[parents.length];
+		Arrays.fill(lastTokens, -1);
+		for (int i = 0; i < tokens.length; i++) {
+			lastTokens[find(i)] = i;
+		}
+		int[] segmentOfToken = new int[tokens.length];
+		int[] boundaries = new int[tokens.length + 1];
+		int segments = 0;
+		int reach = -1;
+		for (int i = 0; i < tokens.length; i++) {
+			int root = find(i);
+			boolean isolated = sizes[root] == 1;
+			if ((i > reach) && ((!isolated) || (segments == 0))) {
+				boundaries[segments++] = i;
+			}
+			reach = Math.max(reach, Math.max(i, lastTokens[root]));
+			segmentOfToken[i] = segments - 1;
+		}
+		boundaries[segments] = tokens.length;
+		segmentStarts = Arrays.copyOf(boundaries, segments + 1);
+		numberOfSegments = segments;
+		// end: find segments
+
+		// start: assign structures to the segment of their first token
+		int[] firstTokens = lastTokens;
+		Arrays.fill(firstTokens, -1);
+		for (int i = tokens.length - 1; i >= 0; i--) {
+			firstTokens[find(i)] = i;
+		}
+		int[] counts = new int[segments + 1];
+		int[] segmentOfStructure = new int[allStructures.size()];
+		int dropped = 0;
+		for (int i = 0; i < allStructures.size(); i++) {
+			int firstToken = firstTokens[find(tokens.length + i)];
+			if (firstToken < 0) {
+				segmentOfStructure[i] = -1;
+				dropped++;
+			} else {
+				segmentOfStructure[i] = segmentOfToken[firstToken];
+				counts[segmentOfStructure[i] + 1]++;
+			}
+		}
+		for (int i = 1; i <= segments; i++) {
+			counts[i] += counts[i - 1];
+		}
+		structureStarts = Arrays.copyOf(counts, segments + 1);
+		structures = new SStructure[allStructures.size() - dropped];
+		for (int i = 0; i < allStructures.size(); i++) {
+			if (segmentOfStructure[i] >= 0) {
+				structures[counts[segmentOfStructure[i]]++] = allStructures.get(i);
+			}
+		}
+		numberOfDroppedStructures = dropped;
+		// end: assign structures to the segment of their first token
+	}
+
+	private static int index(Map<STextualDS, Integer> sourceIndex, STextualDS source) {
+		Integer index = sourceIndex.get(source);
+		return (index == null) ? -1 : index;
+	}
+
+	/** Returns the representative of the set containing the given node. **/
+	private int find(int node) {
+		int root = node;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		while (parents[node] != root) {
+			int next = parents[node];
+			parents[node] = root;
+			node = next;
+		}
+		return root;
+	}
+
+	/** Joins the sets of the given nodes, if both are known. **/
+	private void union(Integer node1, Integer node2) {
+		if ((node1 == null) || (node2 == null)) {
+			return;
+		}
+		int root1 = find(node1);
+		int root2 = find(node2);
+		if (root1 == root2) {
+			return;
+		}
+		if (sizes[root1] < sizes[root2]) {
+			int tmp = root1;
+			root1 = root2;
+			root2 = tmp;
+		}
+		parents[root2] = root1;
+		sizes[root1] += sizes[root2];
+	}
+
+	/** Returns the number of segments. **/
+	public int getNumberOfSegments() {
+		return numberOfSegments;
+	}
+
+	/** Returns the number of tokens having a position in a text. **/
+	public int getNumberOfTokens() {
+		return tokens.length;
+	}
+
+	/** Returns the position of the first token of the given segment. **/
+	public int getFrom(int segment) {
+		return segmentStarts[segment];
+	}
+
+	/**
+	 * Returns the position behind the last token of the given segment.
+	 */
+	public int getTo(int segment) {
+		return segmentStarts[segment + 1];
+	}
+
+	/** Returns the token at the given position. **/
+	public SToken getToken(int position) {
+		return tokens[position];
+	}
+
+	/** Returns the text overlapped by the token at the given position. **/
+	public String getWord(int position) {
+		return texts[sources[position]].substring(starts[position], ends[position]);
+	}
+
+	/**
+	 * Returns the structures of the given segment in the order of the
+	 * document graph.
+	 */
+	public List<SStructure> getStructures(int segment) {
+		return Arrays.asList(structures).subList(structureStarts[segment], structureStarts[segment + 1]);
+	}
+
+	/**
+	 * Returns the number of structures, which are not part of any segment,
+	 * because they do not dominate any token.
+	 */
+	public int getNumberOfDroppedStructures() {
+		return numberOfDroppedStructures;
+	}
+}
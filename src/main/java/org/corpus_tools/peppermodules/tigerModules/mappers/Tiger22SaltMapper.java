@@ -17,16 +17,42 @@
  */
 package org.corpus_tools.peppermodules.tigerModules.mappers;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2AdmissionControl;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Cache;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Importer;
 import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Manifest;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2MappingPlan;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Metrics;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Prefetcher;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2MappingPlan.EdgeMapping;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ResourceLoader;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Count;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Phase;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme.FeatureDictionary;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentReader;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentFilter;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentSelection;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLIndex;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
 import org.corpus_tools.salt.SALT_TYPE;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SDocument;
@@ -37,6 +63,7 @@ import org.corpus_tools.salt.common.SSpan;
 import org.corpus_tools.salt.common.SSpanningRelation;
 import org.corpus_tools.salt.common.SStructure;
 import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SAnnotationContainer;
@@ -45,6 +72,9 @@ import org.corpus_tools.salt.core.SNamedElement;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.graph.Relation;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +87,7 @@ import de.hu_berlin.german.korpling.tiger2.NonTerminal;
 import de.hu_berlin.german.korpling.tiger2.Segment;
 import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
 import de.hu_berlin.german.korpling.tiger2.Terminal;
+import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
 
 /**
  * Maps a &lt;tiger2/&gt; model given by the tiger-api to a Salt model.
@@ -87,6 +118,72 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 		this.corpus = corpus;
 	}
 
+	/**
+	 * If set, only the segments in this range of the file located at
+	 * {@link #getResourceURI()} are mapped.
+	 */
+	protected SegmentRange segmentRange = null;
+
+	/**
+	 * Returns the range of segments to be mapped, or <code>null</code> if all
+	 * segments are mapped.
+	 */
+	public SegmentRange getSegmentRange() {
+		return segmentRange;
+	}
+
+	/**
+	 * Sets the range of segments to be mapped, when the file located at
+	 * {@link #getResourceURI()} is read segment by segment.
+	 */
+	public void setSegmentRange(SegmentRange segmentRange) {
+		this.segmentRange = segmentRange;
+	}
+
+	/**
+	 * Loads the &lt;tiger2/&gt; model from {@link #getResourceURI()}, when no
+	 * {@link Corpus} object has been set.
+	 */
+	protected Tiger2ResourceLoader resourceLoader = null;
+
+	/**
+	 * Returns the loader used to load the &lt;tiger2/&gt; model, or
+	 * <code>null</code> if the model is read segment by segment.
+	 */
+	public Tiger2ResourceLoader getResourceLoader() {
+		return resourceLoader;
+	}
+
+	/**
+	 * Sets the loader used to load the &lt;tiger2/&gt; model from
+	 * {@link #getResourceURI()} at the beginning of {@link #mapSDocument()}.
+	 */
+	public void setResourceLoader(Tiger2ResourceLoader resourceLoader) {
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * If true, the TigerXML file located at {@link #getResourceURI()} is not
+	 * loaded entirely, but each segment is parsed when it is mapped.
+	 */
+	protected boolean lazy = false;
+
+	/**
+	 * Returns whether the segments are parsed one by one from their byte
+	 * ranges, see {@link Tiger2ImporterProperties#PROP_LAZY}.
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Sets whether the segments are parsed one by one from their byte ranges
+	 * given by a {@link TigerXMLIndex}, instead of loading the entire model.
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
 	/**
 	 * Returns the {@link Tiger2ImporterProperties} object containing properties
 	 * to customize the mapping from data coming from a tiger2 model to a Salt
@@ -98,87 +195,1016 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 		return (Tiger2ImporterProperties) getProperties();
 	}
 
+	/**
+	 * The compiled mapping properties, taken from {@link #getProps()} when
+	 * first needed.
+	 */
+	private Tiger2MappingPlan mappingPlan = null;
+
+	/**
+	 * Returns the {@link Tiger2MappingPlan} compiled from {@link #getProps()}.
+	 * The plan is immutable and is shared by all segments of the document.
+	 */
+	public Tiger2MappingPlan getMappingPlan() {
+		if (mappingPlan == null) {
+			mappingPlan = getProps().getMappingPlan();
+		}
+		return (mappingPlan);
+	}
+
+	/**
+	 * Deduplicates the names and values of the created annotations.
+	 */
+	private AnnotationInterner annotationInterner = null;
+
+	/**
+	 * Returns the {@link AnnotationInterner} used for all annotations of the
+	 * document. If none has been set, the mapper uses its own one.
+	 */
+	public AnnotationInterner getAnnotationInterner() {
+		if (annotationInterner == null) {
+			annotationInterner = new AnnotationInterner();
+		}
+		return (annotationInterner);
+	}
+
+	/**
+	 * Sets the {@link AnnotationInterner} to be used, for instance one shared
+	 * by all documents of an import.
+	 */
+	public void setAnnotationInterner(AnnotationInterner annotationInterner) {
+		this.annotationInterner = annotationInterner;
+	}
+
+	/**
+	 * The segments to be read, see
+	 * {@link Tiger2ImporterProperties#PROP_SEGMENT_IDS}.
+	 */
+	private SegmentSelection segmentSelection = null;
+
+	/**
+	 * Returns the segments of the TigerXML file, which are read, or
+	 * <code>null</code> if all segments are read.
+	 */
+	public SegmentSelection getSegmentSelection() {
+		return segmentSelection;
+	}
+
+	/**
+	 * Sets the segments of the TigerXML file to be read. The file is read via
+	 * its {@link TigerXMLIndex}, so that only the &lt;head/&gt; and the
+	 * selected segments are parsed. If a {@link #getSegmentRange()} is set as
+	 * well, only the selected segments in this range are read.
+	 */
+	public void setSegmentSelection(SegmentSelection segmentSelection) {
+		this.segmentSelection = segmentSelection;
+	}
+
+	/**
+	 * Limits the documents mapped at the same time, see
+	 * {@link Tiger2ImporterProperties#PROP_MEMORY_BUDGET}.
+	 */
+	private Tiger2AdmissionControl admissionControl = null;
+
+	/**
+	 * Returns the admission control, which admits the mapper before it reads
+	 * its file, or <code>null</code>.
+	 */
+	public Tiger2AdmissionControl getAdmissionControl() {
+		return admissionControl;
+	}
+
+	/**
+	 * Sets the admission control, which admits the mapper before it reads its
+	 * file, with the estimate given by {@link #getMemoryEstimate()}. When only
+	 * selected segments are read, the estimate is reduced to their share.
+	 */
+	public void setAdmissionControl(Tiger2AdmissionControl admissionControl) {
+		this.admissionControl = admissionControl;
+	}
+
+	/**
+	 * Collects the metrics of all mapped documents, see
+	 * {@link Tiger2ImporterProperties#PROP_METRICS}.
+	 */
+	private Tiger2Metrics metrics = null;
+
+	/**
+	 * Returns the {@link Tiger2Metrics}, to which the metrics of the document
+	 * are added, or <code>null</code> if no metrics are recorded.
+	 */
+	public Tiger2Metrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(Tiger2Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * The metrics of the document currently mapped, <code>null</code> if no
+	 * metrics are recorded.
+	 */
+	private DocumentMetrics documentMetrics = null;
+
+	/**
+	 * Returns the metrics of the mapped document, or <code>null</code> if
+	 * {@link #getMetrics()} is not set.
+	 */
+	public DocumentMetrics getDocumentMetrics() {
+		return documentMetrics;
+	}
+
+	/**
+	 * Returns the current time in nanoseconds, if metrics are recorded, and 0
+	 * otherwise, so that no clock is read for an import without metrics.
+	 */
+	private long startTime() {
+		return (documentMetrics == null) ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Adds the time since the given start time to the given phase, if metrics
+	 * are recorded.
+	 */
+	private void addTime(Phase phase, long startTime) {
+		if (documentMetrics != null) {
+			documentMetrics.addTime(phase, System.nanoTime() - startTime);
+		}
+	}
+
+	/** Adds the given number to the given count, if metrics are recorded. **/
+	private void count(Count count, long number) {
+		if (documentMetrics != null) {
+			documentMetrics.add(count, number);
+		}
+	}
+
+	/** estimated heap in bytes needed for mapping the document **/
+	private long memoryEstimate = 0;
+
+	/**
+	 * Returns the heap in bytes, which mapping the document is estimated to
+	 * need.
+	 */
+	public long getMemoryEstimate() {
+		return memoryEstimate;
+	}
+
+	public void setMemoryEstimate(long memoryEstimate) {
+		this.memoryEstimate = memoryEstimate;
+	}
+
+	/** the estimate the mapper has been admitted with, -1 if not admitted **/
+	private long admittedEstimate = -1;
+
+	/**
+	 * Waits until the {@link #getAdmissionControl()} admits the document
+	 * with the given estimate.
+	 */
+	private void admit(long estimate) {
+		if ((getAdmissionControl() != null) && (admittedEstimate < 0)) {
+			try {
+				getAdmissionControl().acquire(estimate);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PepperModuleException(this, "Cannot map document '" + getDocument().getId() + "', because the mapper was interrupted while waiting for memory.", e);
+			}
+			admittedEstimate = estimate;
+		}
+	}
+
+	/** Releases the memory admitted by {@link #admit(long)}. **/
+	private void dismiss() {
+		if (admittedEstimate >= 0) {
+			getAdmissionControl().release(admittedEstimate);
+			admittedEstimate = -1;
+		}
+	}
+
+	/**
+	 * Loads the model of the file in the background, see
+	 * {@link Tiger2ImporterProperties#PROP_PREFETCH}.
+	 */
+	private Tiger2Prefetcher prefetcher = null;
+
+	/**
+	 * Returns the prefetcher, which may already have loaded the model of the
+	 * file, or <code>null</code>.
+	 */
+	public Tiger2Prefetcher getPrefetcher() {
+		return prefetcher;
+	}
+
+	/**
+	 * Sets the prefetcher, which may already have loaded the model of the
+	 * file. A prefetched model is taken instead of loading it via
+	 * {@link #getResourceLoader()}, and it is discarded, if the document is
+	 * skipped or the model is read from the cache.
+	 */
+	public void setPrefetcher(Tiger2Prefetcher prefetcher) {
+		this.prefetcher = prefetcher;
+	}
+
+	/**
+	 * Drops the model prefetched for the file, because it is not needed.
+	 */
+	private void discardPrefetched() {
+		if ((getPrefetcher() != null) && (getResourceURI() != null)) {
+			getPrefetcher().discard(getResourceURI());
+		}
+	}
+
+	/**
+	 * The criteria a segment must meet to be mapped, see
+	 * {@link Tiger2ImporterProperties#getSegmentFilter()}.
+	 */
+	private SegmentFilter segmentFilter = null;
+
+	/**
+	 * Returns the criteria a segment must meet to be mapped, or
+	 * <code>null</code> if all segments are mapped.
+	 */
+	public SegmentFilter getSegmentFilter() {
+		return segmentFilter;
+	}
+
+	/**
+	 * Sets the criteria a segment must meet to be mapped. When the file is
+	 * read segment by segment, the filter is applied by the reader, so that
+	 * segments of other subcorpora are not even parsed. A model, which is
+	 * loaded entirely, contains no subcorpora, therefore only the length and
+	 * the categories are checked for it.
+	 */
+	public void setSegmentFilter(SegmentFilter segmentFilter) {
+		this.segmentFilter = segmentFilter;
+	}
+
+	/**
+	 * Stores the parsed model of the file, see
+	 * {@link Tiger2ImporterProperties#PROP_CACHE}.
+	 */
+	private Tiger2Cache cache = null;
+
+	/**
+	 * Returns the cache, in which the parsed &lt;tiger2/&gt; model of
+	 * {@link #getResourceURI()} is looked up before reading the file, or
+	 * <code>null</code> if there is none.
+	 */
+	public Tiger2Cache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Sets the cache, in which the parsed &lt;tiger2/&gt; model of
+	 * {@link #getResourceURI()} is looked up before reading the file. On a
+	 * miss, the read segments are added to the cache while they are mapped.
+	 */
+	public void setCache(Tiger2Cache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Records the imported documents, see
+	 * {@link Tiger2ImporterProperties#PROP_INCREMENTAL}.
+	 */
+	private Tiger2Manifest manifest = null;
+
+	/**
+	 * Returns the manifest, in which the document is looked up before it is
+	 * mapped, or <code>null</code> if the document is always mapped.
+	 */
+	public Tiger2Manifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Sets the manifest, in which the document is looked up before it is
+	 * mapped. If the file of the document and the properties are unchanged,
+	 * {@link #mapSDocument()} skips the document, otherwise the document is
+	 * recorded in the manifest after it has been mapped.
+	 */
+	public void setManifest(Tiger2Manifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * The annotation scheme declared in the head of the TigerXML file, or
+	 * <code>null</code> if there is none.
+	 */
+	protected AnnotationScheme annotationScheme = null;
+
+	/**
+	 * Returns the annotation scheme used to resolve and validate annotation
+	 * values, or <code>null</code> if values are not validated.
+	 */
+	public AnnotationScheme getAnnotationScheme() {
+		return annotationScheme;
+	}
+
+	/**
+	 * Sets the annotation scheme used to resolve and validate annotation
+	 * values. If no scheme is set, it is read from the head of the TigerXML
+	 * file located at {@link #getResourceURI()}.
+	 */
+	public void setAnnotationScheme(AnnotationScheme annotationScheme) {
+		this.annotationScheme = annotationScheme;
+	}
+
+	/**
+	 * Collects the annotation values not declared in the
+	 * {@link #annotationScheme}.
+	 */
+	private AnnotationValidation annotationValidation = new AnnotationValidation();
+
+	/**
+	 * Returns the annotation values of the last mapped document, which are
+	 * not declared in its {@link AnnotationScheme}.
+	 */
+	public AnnotationValidation getAnnotationValidation() {
+		return annotationValidation;
+	}
+
+	/**
+	 * Collects the anomalies found while mapping the edges, which are logged
+	 * as one summary per document.
+	 */
+	private MappingDiagnostics mappingDiagnostics = new MappingDiagnostics();
+
+	/**
+	 * Returns the anomalies found while mapping the last document, for
+	 * instance edges, whose direction had to be changed.
+	 */
+	public MappingDiagnostics getMappingDiagnostics() {
+		return mappingDiagnostics;
+	}
+
 	/**
 	 * Maps a {@link SyntacticNode} object to the corresponding mapped
-	 * {@link SNode} object.
+	 * {@link SNode} object for the entire document. Only filled, if
+	 * {@link #isKeepLookups()} is set, <code>null</code> otherwise.
 	 */
 	protected Map<SyntacticNode, SNode> synNode2sNode = null;
 
 	/**
 	 * Maps a {@link Relation} object to the corresponding mapped
-	 * {@link SRelation} object.
+	 * {@link SRelation} object for the entire document. Only filled, if
+	 * {@link #isKeepLookups()} is set, <code>null</code> otherwise.
 	 */
 	protected Map<Edge, SRelation> edge2sRelation = null;
 
+	/**
+	 * Whether {@link #synNode2sNode} and {@link #edge2sRelation} shall be
+	 * filled while mapping.
+	 */
+	protected boolean keepLookups = false;
+
+	/**
+	 * Returns whether the lookups from &lt;tiger2/&gt; nodes and edges to the
+	 * created Salt objects are kept for the entire document. Edges only refer
+	 * to nodes of their own graph, so the mapping itself only needs a lookup
+	 * for the current graph, which is dropped afterwards.
+	 */
+	public boolean isKeepLookups() {
+		return keepLookups;
+	}
+
+	/**
+	 * Sets whether the lookups from &lt;tiger2/&gt; nodes and edges to the
+	 * created Salt objects shall be kept for the entire document, for
+	 * instance for a subclass post-processing the document graph. The lookups
+	 * grow with the size of the document.
+	 */
+	public void setKeepLookups(boolean keepLookups) {
+		this.keepLookups = keepLookups;
+	}
+
 	/**
 	 * Maps the data contained in the set {@link Corpus} object (
 	 * {@link #setCorpus(Corpus)}) to the set {@link SDocument}
-	 * {@link #setsDocument(SDocument)} object.
+	 * {@link #setsDocument(SDocument)} object. If no {@link Corpus} object is
+	 * set, it is loaded from {@link #getResourceURI()} with the
+	 * {@link #getResourceLoader()}, or if there is no loader, the TigerXML file
+	 * is read segment by segment with a {@link TigerXMLStreamReader}. If
+	 * {@link #isLazy()}, the segments are parsed from their byte ranges, when
+	 * they are mapped. When the
+	 * file cannot be read, {@link DOCUMENT_STATUS#FAILED} is returned.
 	 */
 	@Override
 	public DOCUMENT_STATUS mapSDocument() {
 		if (getDocument().getDocumentGraph() == null)
 			getDocument().setDocumentGraph(SaltFactory.createSDocumentGraph());
-		synNode2sNode = Collections.synchronizedMap(new Hashtable<SyntacticNode, SNode>());
-		edge2sRelation = Collections.synchronizedMap(new Hashtable<Edge, SRelation>());
-
-		// start: map document meta data
-		this.mapMetaAnnotations(corpus, getDocument());
-		// end: map document meta data
-
-		// init internal string buffer to store entire text
-		entireTextBuffer = new StringBuffer();
-		STextualDS sTextualDs = SaltFactory.createSTextualDS();
-		getDocument().getDocumentGraph().addNode(sTextualDs);
-
-		if (this.getTigerCorpus().getSegments() != null) {
-			for (Segment segment : this.getTigerCorpus().getSegments()) {
-				// walk through all segments
-				if (segment != null) {// map segments
-					List<SToken> sTokens = null;
-					if (segment.getGraphs().size() > 1)
-						sTokens = new ArrayList<SToken>();
-					if (segment.getGraphs() != null) {// walk through all graphs
-						for (Graph graph : segment.getGraphs()) {
-							if (graph != null) {
-								// start: map terminals
-								if (sTokens == null)
-									sTokens = this.mapTerminals(graph.getTerminals(), sTextualDs);
-								else
-									sTokens.addAll(this.mapTerminals(graph.getTerminals(), sTextualDs));
-								// end: map terminals
-								// start: map non-terminals
-								this.mapNonTerminals(graph.getNonTerminals());
-								// end: map non-terminals
-								// start: map edges
-								this.mapRelations(graph.getEdges());
-								// end: map edges
-							}
+		// start: skip unchanged document
+		String fingerprint = null;
+		if ((getManifest() != null) && (getTigerCorpus() == null) && (getResourceURI() != null)) {
+			fingerprint = getProps().getFingerprint();
+			try {
+				if (getManifest().isUnchanged(new File(getResourceURI().toFileString()), getSegmentRange(), fingerprint)) {
+					log.info("Skipping document '{}', because file '{}' and the properties have not changed since the last import. ", getDocument().getId(), getResourceURI());
+					discardPrefetched();
+					return (DOCUMENT_STATUS.DELETED);
+				}
+			} catch (IOException e) {
+				log.warn("Cannot check whether file '{}' has changed, the document is mapped. ", getResourceURI(), e);
+			}
+		}
+		// end: skip unchanged document
+		long documentStartTime = 0;
+		long documentStartBytes = -1;
+		if (getMetrics() != null) {
+			documentMetrics = new DocumentMetrics(getDocument().getId());
+			documentStartTime = System.nanoTime();
+			documentStartBytes = DocumentMetrics.getCurrentThreadAllocatedBytes();
+		}
+		// take the plan and the interner before mapping in parallel
+		mappingPlan = getProps().getMappingPlan();
+		getAnnotationInterner();
+		if (isKeepLookups()) {
+			synNode2sNode = new IdentityHashMap<>();
+			edge2sRelation = new IdentityHashMap<>();
+		}
+
+		SegmentReader streamReader = null;
+		String cacheKey = null;
+		if (getTigerCorpus() == null) {
+			if (getResourceURI() == null) {
+				throw new PepperModuleException(this, "Cannot map document '" + getDocument().getId() + "', because neither a <tiger2/> corpus nor a resource to read was given.");
+			}
+			long loadStartTime = 0;
+			try {
+				if ((getSegmentSelection() == null) && (!isLazy())) {
+					if ((getResourceLoader() == null) && (isTigerXML(getResourceURI()))) {
+						// only a window of segments is held at a time
+						setMemoryEstimate(estimateStreamed(new File(getResourceURI().toFileString())));
+					}
+					admit(getMemoryEstimate());
+				}
+				loadStartTime = startTime();
+				// the key of a cache entry covers neither selection nor filter
+				if ((getCache() != null) && (getSegmentSelection() == null) && (getSegmentFilter() == null)) {
+					cacheKey = getCache().getKey(new File(getResourceURI().toFileString()), getResourceLoader() != null, getSegmentRange());
+					streamReader = getCache().open(cacheKey);
+				}
+				if (streamReader != null) {
+					// a hit, the file is not parsed at all
+					discardPrefetched();
+					setCorpus(streamReader.getCorpus());
+					cacheKey = null;
+				} else if (getSegmentSelection() != null) {
+					streamReader = openSelection(new File(getResourceURI().toFileString()));
+					setCorpus(streamReader.getCorpus());
+				} else if (isLazy()) {
+					streamReader = openLazily(new File(getResourceURI().toFileString()));
+					setCorpus(streamReader.getCorpus());
+				} else if (getResourceLoader() != null) {
+					Corpus prefetched = (getPrefetcher() == null) ? null : getPrefetcher().take(getResourceURI());
+					setCorpus((prefetched != null) ? prefetched : getResourceLoader().load(getResourceURI()));
+				} else {
+					streamReader = new TigerXMLStreamReader(new File(getResourceURI().toFileString()), getSegmentRange(), getSegmentFilter());
+					setCorpus(streamReader.getCorpus());
+				}
+			} catch (IOException | RuntimeException e) {
+				discardPrefetched();
+				dismiss();
+				log.error("Cannot load <tiger2/> model from file '{}'. ", getResourceURI(), e);
+				documentMetrics = null;
+				return (DOCUMENT_STATUS.FAILED);
+			}
+			addTime(Phase.LOAD, loadStartTime);
+		}
+		// the reader, the loaded model and the admitted memory are released
+		// in any case
+		Tiger2Cache.Entry cacheEntry = null;
+		try {
+			// start: resolve annotation scheme
+			if (getAnnotationScheme() == null) {
+				if (streamReader != null) {
+					setAnnotationScheme(streamReader.getAnnotationScheme());
+				} else if ((getResourceURI() != null) && (isTigerXML(getResourceURI()))) {
+					try {
+						// the loader reads the head once per file
+						setAnnotationScheme((getResourceLoader() != null) ? getResourceLoader().getAnnotationScheme(getResourceURI()) : AnnotationScheme.read(new File(getResourceURI().toFileString())));
+					} catch (RuntimeException e) {
+						log.warn("Cannot read the annotation scheme of file '{}', annotation values are not validated. ", getResourceURI(), e);
+					}
+				}
+			}
+			if (getAnnotationScheme() != null) {
+				getAnnotationScheme().internValues(getAnnotationInterner());
+			}
+			annotationValidation = new AnnotationValidation();
+			mappingDiagnostics = new MappingDiagnostics(getProps().getDiagnosticSamples());
+			// end: resolve annotation scheme
+			Iterator<Segment> segments = null;
+			if (streamReader != null) {
+				// parsing happens while iterating
+				segments = (documentMetrics == null) ? streamReader : timed(streamReader, Phase.LOAD);
+			} else if (getTigerCorpus().getSegments() != null) {
+				segments = getTigerCorpus().getSegments().iterator();
+				if (getSegmentFilter() != null) {
+					if (getSegmentFilter().getSubcorpora() != null) {
+						log.warn("Cannot filter the segments of document '{}' by subcorpus, because the <tiger2/> model contains no subcorpora. Only length and category are checked. ", getDocument().getName());
+					}
+					segments = filter(segments, getSegmentFilter().withoutSubcorpora());
+				}
+			}
+			if ((cacheKey != null) && (segments != null)) {
+				try {
+					cacheEntry = getCache().create(cacheKey, getTigerCorpus().getMeta(), getAnnotationScheme());
+					segments = writeThrough(segments, cacheEntry);
+				} catch (IOException | RuntimeException e) {
+					log.warn("Cannot create cache entry for file '{}'. ", getResourceURI(), e);
+				}
+			}
+			// start: map document meta data
+			String partName = getDocument().getName();
+			this.mapMetaAnnotations(corpus, getDocument());
+			if (getSegmentRange() != null) {
+				// all parts of a file share the same meta data, but must be
+				// distinguishable
+				getDocument().setName(partName);
+			}
+			// end: map document meta data
+
+			// init internal string buffer to store entire text, when all
+			// segments are in memory, its final size is known in advance
+			entireTextBuffer = new StringBuilder((streamReader == null) ? computeTextLength(getTigerCorpus().getSegments()) : 16);
+			STextualDS sTextualDs = SaltFactory.createSTextualDS();
+			getDocument().getDocumentGraph().addNode(sTextualDs);
+
+			if (segments != null) {
+				if ((getProps() != null) && (getProps().isParallelSegments())) {
+					this.mapSegmentsInParallel(segments, sTextualDs);
+				} else {
+					while (segments.hasNext()) {
+						// walk through all segments
+						Segment segment = segments.next();
+						if (segment != null) {
+							this.mergeSegment(this.buildSegment(segment), sTextualDs);
 						}
-					}// walk through all graphs
-					if ((getProps() != null) && (getProps().propCreateSSpan4Segment())) {
-						// start: create span for segment
-						getDocument().getDocumentGraph().createSpan(sTokens);
-					}// end: create span for segment
-				}// map segments
-			}// walk through all segments
-		}
-		// set SText to value of internal string buffer
-		sTextualDs.setText(entireTextBuffer.toString());
+					}// walk through all segments
+				}
+			}
+			// set SText to value of internal string buffer
+			sTextualDs.setText(entireTextBuffer.toString());
+			if (!annotationValidation.isEmpty()) {
+				log.warn("Document '{}' contains annotation values, which are not declared in the head of '{}': {}", getDocument().getName(), getResourceURI(), annotationValidation);
+			}
+			if (!mappingDiagnostics.isEmpty()) {
+				log.warn("Document '{}' contains {} edges, which could not be mapped as given: {}", getDocument().getName(), mappingDiagnostics.getCount(), mappingDiagnostics);
+			}
+			if (cacheEntry != null) {
+				getCache().commit(cacheEntry);
+				cacheEntry = null;
+			}
+			if (fingerprint != null) {
+				try {
+					getManifest().record(new File(getResourceURI().toFileString()), getSegmentRange(), fingerprint);
+				} catch (IOException e) {
+					log.warn("Cannot record file '{}' in the manifest, it is imported again next time. ", getResourceURI(), e);
+				}
+			}
+		} finally {
+			if (cacheEntry != null) {
+				getCache().discard(cacheEntry);
+			}
+			if (streamReader != null) {
+				streamReader.close();
+			}
+			releaseCorpus();
+			dismiss();
+			if (documentMetrics != null) {
+				documentMetrics.setTotalTime(System.nanoTime() - documentStartTime);
+				long documentEndBytes = DocumentMetrics.getCurrentThreadAllocatedBytes();
+				if ((documentStartBytes >= 0) && (documentEndBytes >= 0)) {
+					documentMetrics.setAllocatedBytes(documentEndBytes - documentStartBytes);
+				}
+				getMetrics().add(documentMetrics);
+			}
+		}
 		return (DOCUMENT_STATUS.COMPLETED);
 	}
 
+	/**
+	 * Opens a reader for the segments of the given file, which are selected
+	 * by {@link #getSegmentSelection()} and contained in
+	 * {@link #getSegmentRange()}.
+	 */
+	private SegmentReader openSelection(File file) {
+		TigerXMLIndex index = TigerXMLIndex.open(file);
+		List<String> unknownIds = new ArrayList<>();
+		int[] positions = getSegmentSelection().resolve(index, getSegmentRange(), unknownIds);
+		if (!unknownIds.isEmpty()) {
+			log.warn("File '{}' does not contain segments having the ids {}. ", file.getAbsolutePath(), unknownIds);
+		}
+		admit(Math.min(getMemoryEstimate(), index.getLength(positions) * Tiger2Prefetcher.MODEL_SIZE_FACTOR));
+		return index.createReader(positions, getSegmentFilter());
+	}
+
+	/**
+	 * Opens a reader, which parses the segments of the given file contained
+	 * in {@link #getSegmentRange()} one by one from their byte ranges. Only
+	 * the segments mapped at the same time are admitted, which are one
+	 * segment or a batch of {@link #PARALLEL_BATCH_SIZE} segments.
+	 */
+	private SegmentReader openLazily(File file) {
+		TigerXMLIndex index = TigerXMLIndex.open(file);
+		int[] positions = index.getPositions(getSegmentRange());
+		admit(Math.min(getMemoryEstimate(), estimateWindow(index.getMaxLength(positions), (getProps() != null) && (getProps().isParallelSegments()))));
+		return index.createReader(positions, getSegmentFilter());
+	}
+
+	/**
+	 * Returns the heap in bytes, which streaming the segments of the given
+	 * file contained in {@link #getSegmentRange()} is estimated to need. If
+	 * an index has been saved for the file, see
+	 * {@link TigerXMLIndex#openSaved(File)}, only the window of its largest
+	 * segment is charged. Otherwise the file is not scanned for it, and
+	 * {@link #getMemoryEstimate()} is kept.
+	 */
+	private long estimateStreamed(File file) {
+		if (getAdmissionControl() == null) {
+			return getMemoryEstimate();
+		}
+		TigerXMLIndex index = TigerXMLIndex.openSaved(file);
+		if (index == null) {
+			return getMemoryEstimate();
+		}
+		int[] positions = index.getPositions(getSegmentRange());
+		return Math.min(getMemoryEstimate(), estimateWindow(index.getMaxLength(positions), (getProps() != null) && (getProps().isParallelSegments())));
+	}
+
+	/**
+	 * Returns the heap in bytes, which mapping a document segment by segment
+	 * is estimated to need, when its largest segment has the given length in
+	 * bytes: {@link Tiger2Prefetcher#MODEL_SIZE_FACTOR} times the length of
+	 * the segments held at the same time, which are one segment or a batch of
+	 * {@link #PARALLEL_BATCH_SIZE} segments.
+	 */
+	public static long estimateWindow(long maxSegmentLength, boolean parallelSegments) {
+		int window = parallelSegments ? PARALLEL_BATCH_SIZE : 1;
+		return maxSegmentLength * window * Tiger2Prefetcher.MODEL_SIZE_FACTOR;
+	}
+
+	/**
+	 * Returns an iterator over the given segments, which skips all segments
+	 * not accepted by the given filter.
+	 */
+	private Iterator<Segment> filter(final Iterator<Segment> segments, final SegmentFilter filter) {
+		return new Iterator<Segment>() {
+			private Segment next = null;
+
+			@Override
+			public boolean hasNext() {
+				while ((next == null) && (segments.hasNext())) {
+					Segment segment = segments.next();
+					if ((segment != null) && (filter.accepts(segment))) {
+						next = segment;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public Segment next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Segment segment = next;
+				next = null;
+				return segment;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator over the given segments, which adds the time spent
+	 * for reading the segments to the given phase.
+	 */
+	private Iterator<Segment> timed(final Iterator<Segment> segments, final Phase phase) {
+		return new Iterator<Segment>() {
+			@Override
+			public boolean hasNext() {
+				long startTime = startTime();
+				try {
+					return segments.hasNext();
+				} finally {
+					addTime(phase, startTime);
+				}
+			}
+
+			@Override
+			public Segment next() {
+				long startTime = startTime();
+				try {
+					return segments.next();
+				} finally {
+					addTime(phase, startTime);
+				}
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator over the given segments, which adds each segment to
+	 * the given cache entry when it is returned.
+	 */
+	private Iterator<Segment> writeThrough(final Iterator<Segment> segments, final Tiger2Cache.Entry cacheEntry) {
+		return new Iterator<Segment>() {
+			@Override
+			public boolean hasNext() {
+				return segments.hasNext();
+			}
+
+			@Override
+			public Segment next() {
+				Segment segment = segments.next();
+				if (segment != null) {
+					cacheEntry.write(segment);
+				}
+				return segment;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Releases the &lt;tiger2/&gt; model after mapping. When the model has
+	 * been loaded via the EMF resource mechanism, its {@link Resource} is
+	 * unloaded and removed from its {@link ResourceSet}, otherwise the shared
+	 * resource set would keep every loaded model reachable until the importer
+	 * is gone. The lookups are dropped as well, unless
+	 * {@link #isKeepLookups()} is set.
+	 */
+	protected void releaseCorpus() {
+		if (corpus != null) {
+			Resource resource = corpus.eResource();
+			if (resource != null) {
+				ResourceSet resourceSet = resource.getResourceSet();
+				if (resourceSet != null) {
+					synchronized (resourceSet) {
+						resourceSet.getResources().remove(resource);
+					}
+				}
+				resource.unload();
+			}
+		}
+		corpus = null;
+		if (!isKeepLookups()) {
+			synNode2sNode = null;
+			edge2sRelation = null;
+		}
+	}
+
+	/**
+	 * Number of segments, which are read ahead and mapped in parallel, see
+	 * {@link Tiger2ImporterProperties#PROP_PARALLEL_SEGMENTS}.
+	 */
+	public static final int PARALLEL_BATCH_SIZE = 256;
+
+	/** pool shared by all mappers of an import to map segments in parallel **/
+	private ForkJoinPool segmentPool = null;
+
+	/**
+	 * Returns the pool used to map segments in parallel, which is owned and
+	 * shut down by the {@link Tiger2Importer}, or <code>null</code> if the
+	 * mapper creates a pool for its document.
+	 */
+	public ForkJoinPool getSegmentPool() {
+		return segmentPool;
+	}
+
+	public void setSegmentPool(ForkJoinPool segmentPool) {
+		this.segmentPool = segmentPool;
+	}
+
+	/**
+	 * Maps the given segments in batches of {@link #PARALLEL_BATCH_SIZE}. The
+	 * segments of a batch are built on the {@link #getSegmentPool()} and are
+	 * merged into the document graph in their original order afterwards, so
+	 * that the result is identical to mapping them one after another. Without
+	 * a pool, a pool having one thread for each available processor is
+	 * created for the document and shut down afterwards.
+	 * 
+	 * @param segments
+	 * @param sTextualDs
+	 */
+	protected void mapSegmentsInParallel(Iterator<Segment> segments, STextualDS sTextualDs) {
+		ForkJoinPool pool = getSegmentPool();
+		boolean ownPool = (pool == null);
+		if (ownPool) {
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+		try {
+			List<Callable<MappedSegment>> batch = new ArrayList<>(PARALLEL_BATCH_SIZE);
+			while (segments.hasNext()) {
+				final Segment segment = segments.next();
+				if (segment != null) {
+					batch.add(new Callable<MappedSegment>() {
+						@Override
+						public MappedSegment call() throws Exception {
+							return buildSegment(segment);
+						}
+					});
+				}
+				if ((batch.size() == PARALLEL_BATCH_SIZE) || ((!segments.hasNext()) && (!batch.isEmpty()))) {
+					List<Future<MappedSegment>> mappedSegments = pool.invokeAll(batch);
+					for (Future<MappedSegment> mappedSegment : mappedSegments) {
+						try {
+							this.mergeSegment(mappedSegment.get(), sTextualDs);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new PepperModuleException(this, "Interrupted while mapping the segments of document '" + getDocument().getId() + "'.", e);
+						} catch (ExecutionException e) {
+							if (e.getCause() instanceof RuntimeException) {
+								throw (RuntimeException) e.getCause();
+							}
+							throw new PepperModuleException(this, "Cannot map the segments of document '" + getDocument().getId() + "'.", e.getCause());
+						}
+					}
+					batch.clear();
+				}
+			}
+		} finally {
+			if (ownPool) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Maps all graphs of the given {@link Segment} object and creates a
+	 * {@link SSpan} for the segment, if
+	 * {@link Tiger2ImporterProperties#PROP_CREATE_SSPAN} is set.
+	 * 
+	 * @param segment
+	 * @param sTextualDs
+	 */
+	protected void mapSegment(Segment segment, STextualDS sTextualDs) {
+		this.mergeSegment(this.buildSegment(segment), sTextualDs);
+	}
+
+	/**
+	 * Creates the Salt objects for all graphs of the given {@link Segment}
+	 * object, without adding them to the document graph. This method does not
+	 * change the state of the mapper and therefore can be called for several
+	 * segments at the same time.
+	 * 
+	 * @param segment
+	 * @return the created objects
+	 */
+	protected MappedSegment buildSegment(Segment segment) {
+		MappedSegment mapped = new MappedSegment(isKeepLookups());
+		// the text of the segment is written into a buffer of its final size
+		int numberOfTokens = 0;
+		for (Graph graph : segment.getGraphs()) {
+			if ((graph != null) && (graph.getTerminals() != null)) {
+				numberOfTokens += graph.getTerminals().size();
+			}
+		}
+		mapped.reserve(numberOfTokens, computeTextLength(segment, getMappingPlan().getSeparator().length()));
+		if (segment.getGraphs().size() > 1)
+			mapped.sTokens = new ArrayList<SToken>();
+		if (segment.getGraphs() != null) {// walk through all graphs
+			for (Graph graph : segment.getGraphs()) {
+				if (graph != null) {
+					mapped.startGraph(graph);
+					// start: map terminals
+					long startTime = startTime();
+					if (mapped.sTokens == null)
+						mapped.sTokens = this.mapTerminals(graph.getTerminals(), mapped);
+					else
+						mapped.sTokens.addAll(this.mapTerminals(graph.getTerminals(), mapped));
+					addTime(Phase.TERMINALS, startTime);
+					// end: map terminals
+					// start: map non-terminals
+					startTime = startTime();
+					this.mapNonTerminals(graph.getNonTerminals(), mapped);
+					addTime(Phase.NON_TERMINALS, startTime);
+					// end: map non-terminals
+					// start: map edges
+					startTime = startTime();
+					this.mapRelations(graph.getEdges(), mapped);
+					addTime(Phase.RELATIONS, startTime);
+					// end: map edges
+					mapped.endGraph();
+				}
+			}
+		}// walk through all graphs
+		return mapped;
+	}
+
+	/**
+	 * Adds the objects created for a segment to the document graph, appends
+	 * the text of the segment to the document text and creates a
+	 * {@link SSpan} for the segment, if
+	 * {@link Tiger2ImporterProperties#PROP_CREATE_SSPAN} is set.
+	 * 
+	 * If {@link #isKeepLookups()} is set, the lookups of the segment are
+	 * added to {@link #synNode2sNode} and {@link #edge2sRelation}.
+	 * 
+	 * @param mapped
+	 * @param sTextualDs
+	 */
+	protected void mergeSegment(MappedSegment mapped, STextualDS sTextualDs) {
+		if (sTextualDs == null) {
+			throw new PepperModuleException(this, "Cannot map the terminals to salt, because the given sTextualDs is empty.");
+		}
+		SDocumentGraph documentGraph = getDocument().getDocumentGraph();
+		long startTime = startTime();
+		// start: adding the overlapped text to the data source
+		// the offsets of the segment are moved to document offsets in place
+		int[] starts = mapped.starts;
+		int[] ends = mapped.ends;
+		if (mapped.numberOfTokens > 0) {
+			if (entireTextBuffer.length() != 0) {
+				// the segment text was laid out for a non empty text
+				int offset = entireTextBuffer.length();
+				entireTextBuffer.append(mapped.text);
+				for (int i = 0; i < mapped.numberOfTokens; i++) {
+					starts[i] += offset;
+					ends[i] += offset;
+				}
+			} else {
+				// no separator in front of the words, as long as the text is
+				// empty
+				String separator = getMappingPlan().getSeparator();
+				for (int i = 0; i < mapped.numberOfTokens; i++) {
+					if (entireTextBuffer.length() != 0) {
+						entireTextBuffer.append(separator);
+					}
+					int start = entireTextBuffer.length();
+					entireTextBuffer.append(mapped.text, starts[i], ends[i]);
+					starts[i] = start;
+					ends[i] = entireTextBuffer.length();
+				}
+			}
+		}
+		// end: adding the overlapped text to the data source
+		int tokenIdx = 0;
+		int structures = 0;
+		int relations = 0;
+		for (Object element : mapped.elements) {
+			if (element instanceof SToken) {
+				documentGraph.addNode((SToken) element);
+				STextualRelation sTextRel = SaltFactory.createSTextualRelation();
+				sTextRel.setSource((SToken) element);
+				sTextRel.setTarget(sTextualDs);
+				sTextRel.setStart(starts[tokenIdx]);
+				sTextRel.setEnd(ends[tokenIdx]);
+				documentGraph.addRelation(sTextRel);
+				tokenIdx++;
+			} else if (element instanceof SNode) {
+				documentGraph.addNode((SNode) element);
+				structures++;
+			} else {
+				documentGraph.addRelation((SRelation) element);
+				relations++;
+			}
+		}
+		if ((this.synNode2sNode != null) && (mapped.keptNodes != null)) {
+			this.synNode2sNode.putAll(mapped.keptNodes);
+			this.edge2sRelation.putAll(mapped.edge2sRelation);
+		}
+		addTime(Phase.TEXT, startTime);
+		if (getMappingPlan().isCreateSSpan4Segment()) {
+			// start: create span for segment
+			startTime = startTime();
+			documentGraph.createSpan(mapped.sTokens);
+			addTime(Phase.SPANS, startTime);
+		}// end: create span for segment
+		if (documentMetrics != null) {
+			documentMetrics.add(Count.SEGMENTS, 1);
+			documentMetrics.add(Count.TOKENS, tokenIdx);
+			documentMetrics.add(Count.STRUCTURES, structures);
+			documentMetrics.add(Count.RELATIONS, relations);
+		}
+	}
+
 	/**
 	 * Maps the given list of {@link Terminal} objects to a list of
-	 * {@link SToken} objects and adds them into the global
-	 * {@link SDocumentGraph} object. The overlapped text will be mapped to the
-	 * given {@link STextualDS} object.
+	 * {@link SToken} objects and adds them to the given {@link MappedSegment}.
+	 * The overlapped text is appended to the text of the segment.
 	 * 
 	 * @param terminals
-	 * @param sTextualDs
+	 * @param mapped
 	 * @return
 	 */
-	protected List<SToken> mapTerminals(List<Terminal> terminals, STextualDS sTextualDs) {
+	protected List<SToken> mapTerminals(List<Terminal> terminals, MappedSegment mapped) {
 		List<SToken> sTokens = null;
 		if (terminals == null) {
 			throw new PepperModuleException(this, "Cannot map terminals, because the given list is empty.");
@@ -186,7 +1212,7 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 		if (terminals.size() > 0) {
 			sTokens = new ArrayList<SToken>();
 			for (Terminal terminal : terminals) {
-				sTokens.add(this.mapTerminal(terminal, sTextualDs));
+				sTokens.add(this.mapTerminal(terminal, mapped));
 			}
 		}
 		return (sTokens);
@@ -195,42 +1221,60 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 	/**
 	 * Contains the entire text of one {@link SDocument} object over all graphs.
 	 */
-	private StringBuffer entireTextBuffer = new StringBuffer();
+	private StringBuilder entireTextBuffer = new StringBuilder();
+
+	/**
+	 * Returns the maximal length of the text of the given segments, which is
+	 * the sum of the lengths of all words, each preceded by a separator.
+	 */
+	protected int computeTextLength(List<Segment> segments) {
+		long length = 0;
+		if (segments != null) {
+			int separatorLength = getMappingPlan().getSeparator().length();
+			for (Segment segment : segments) {
+				length += computeTextLength(segment, separatorLength);
+			}
+		}
+		return ((int) Math.min(length, Integer.MAX_VALUE - 8));
+	}
+
+	/**
+	 * Returns the number of characters needed for the words of all terminals
+	 * of the given segment, each preceded by a separator of the given length.
+	 */
+	private int computeTextLength(Segment segment, int separatorLength) {
+		int length = 0;
+		for (Graph graph : segment.getGraphs()) {
+			if ((graph != null) && (graph.getTerminals() != null)) {
+				for (Terminal terminal : graph.getTerminals()) {
+					if (terminal != null) {
+						// a missing word is appended as "null"
+						length += separatorLength + ((terminal.getWord() == null) ? 4 : terminal.getWord().length());
+					}
+				}
+			}
+		}
+		return (length);
+	}
 
 	/**
-	 * Creates an {@link SToken} object and the corresponding {@link STextualDS}
-	 * object and adds it to the globel {@link SDocumentGraph} object.
+	 * Creates an {@link SToken} object for the given terminal and adds it and
+	 * the overlapped text to the given {@link MappedSegment}.
 	 * 
 	 * @param terminal
-	 * @param sTextualDs
+	 * @param mapped
 	 * @return
 	 */
-	protected SToken mapTerminal(Terminal terminal, STextualDS sTextualDs) {
+	protected SToken mapTerminal(Terminal terminal, MappedSegment mapped) {
 		if (terminal == null) {
 			throw new PepperModuleException(this, "Cannot map a terminal to salt, because the terminal is empty.");
 		}
-		if (sTextualDs == null) {
-			throw new PepperModuleException(this, "Cannot map the terminal '" + terminal + "' to salt, because the given sTextualDs is empty.");
-		}
-
-		// start: adding the overlapped text to the data source
-		int startPos = 0;
-		int endPos = 0;
-		if (entireTextBuffer.length() != 0) {
-			entireTextBuffer.append(getProps().getSeparator());
-		}
-		if ((entireTextBuffer != null) && (entireTextBuffer.length() != 0)) {
-			startPos = entireTextBuffer.length();
-		}
-		// sTextualDs.setText(sTextualDs.getText()+getSeparator()+terminal.getWord());
-
-		entireTextBuffer.append(terminal.getWord());
-		if ((entireTextBuffer != null) && (entireTextBuffer.length() != 0)) {
-			endPos = entireTextBuffer.length();
-		}
-		// end: adding the overlapped text to the data source
-		SToken sToken = getDocument().getDocumentGraph().createToken(sTextualDs, startPos, endPos);
-		this.synNode2sNode.put(terminal, sToken);
+		// start: adding the overlapped text to the segment
+		mapped.appendWord(getMappingPlan().getSeparator(), terminal.getWord());
+		// end: adding the overlapped text to the segment
+		SToken sToken = SaltFactory.createSToken();
+		mapped.elements.add(sToken);
+		mapped.synNode2sNode.put(terminal, sToken);
 		// maps all annotations
 		this.mapAnnotations(terminal, sToken);
 
@@ -250,48 +1294,51 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 	 * {@link SStructure} object --> {@link SDominanceRelation}</li>
 	 * <li>otherwise --> {@link SPointingRelation}</li>
 	 * </ol>
+	 * Edges, whose type is not mapped according to
+	 * {@link Tiger2MappingPlan#isEdgeMapped(String)}, are skipped.
 	 * 
 	 * @param edges
+	 * @param mapped
+	 *            the segment containing the edges
 	 */
-	protected void mapRelations(List<Edge> edges) {
+	protected void mapRelations(List<Edge> edges, MappedSegment mapped) {
 		if (edges != null) {
 			for (Edge edge : edges) {
-				if (edge != null) {
+				if ((edge != null) && (getMappingPlan().isEdgeMapped(edge.getType()))) {
 					SRelation sRelation = null;
 					if (edge.getSource() == null) {
-						throw new PepperModuleException(this, "Cannot map the edge '" + edge + "', because its source is empty");
+						throw new PepperModuleException(this, "Cannot map the edge '" + edge.getId() + "', because its source is empty");
 					}
-					SNode sourceSNode = this.synNode2sNode.get(edge.getSource());
+					SNode sourceSNode = mapped.synNode2sNode.get(edge.getSource());
 					if (sourceSNode == null) {
-						throw new PepperModuleException(this, "Cannot map the edge '" + edge + "', because its source '" + edge.getSource() + "' has no corresponding SNode object.");
+						throw new PepperModuleException(this, "Cannot map the edge '" + edge.getId() + "', because its source '" + edge.getSource().getId() + "' has no corresponding SNode object.");
 					}
 					if (edge.getTarget() == null) {
-						throw new PepperModuleException(this, "Cannot map the edge '" + edge + "', because its target is empty");
+						throw new PepperModuleException(this, "Cannot map the edge '" + edge.getId() + "', because its target is empty");
 					}
-					SNode targetNode = this.synNode2sNode.get(edge.getTarget());
+					SNode targetNode = mapped.synNode2sNode.get(edge.getTarget());
 					if (targetNode == null) {
-						throw new PepperModuleException(this, "Cannot map the edge '" + edge + "', because its source '" + edge.getTarget() + "' has no corresponding SNode object.");
-					}
-					SALT_TYPE saltType = null;
-					if ((getProps() != null) && (edge.getType() != null)) {
-						Map<String, SALT_TYPE> saltTypes = getProps().getPropRelation2SRelation();
-						saltType = saltTypes.get(edge.getType());
+						throw new PepperModuleException(this, "Cannot map the edge '" + edge.getId() + "', because its target '" + edge.getTarget().getId() + "' has no corresponding SNode object.");
 					}
+					EdgeMapping edgeMapping = getMappingPlan().getEdgeMapping(edge.getType());
+					SALT_TYPE saltType = edgeMapping.getSaltType();
 
-					if (getProps() != null && getProps().getRelationReversed().contains(edge.getType())) {
+					boolean reversed = false;
+					if (edgeMapping.isReversed()) {
 						// reverse secondary edges
 						SNode tmpNode = sourceSNode;
 						sourceSNode = targetNode;
 						targetNode = tmpNode;
-
+						reversed = true;
+						count(Count.REVERSED_EDGES, 1);
 					}
 
 					// start: mapping rules
 					if (sourceSNode instanceof SToken) {
 						if ((saltType != null) && (SALT_TYPE.SDOMINANCE_RELATION.equals(saltType))) {
-
-							log.warn("Had to reverse the order of the edge between {} and {} " + "since the source node can't be a token.", sourceSNode.getId(), targetNode.getId());
-
+							// the source of a dominance relation can't be a token
+							mappingDiagnostics.addEdge(MappingDiagnostics.REVERSED_TOKEN_DOMINANCE, edge.getType(), (targetNode instanceof SToken) ? MappingDiagnostics.TOKEN_TO_TOKEN : MappingDiagnostics.TOKEN_TO_STRUCTURE, (reversed ? edge.getTarget() : edge.getSource()).getId(), (reversed ? edge.getSource() : edge.getTarget()).getId());
+							count(Count.FLIPPED_EDGES, 1);
 							sRelation = SaltFactory.createSDominanceRelation();
 							SNode tmpNode = sourceSNode;
 							sourceSNode = targetNode;
@@ -321,23 +1368,17 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 					// end: mapping rules
 
 					if ((edge.getType() != null) && (!edge.getType().isEmpty())) {
-						String newType = null;
-						if (getProps().getRenamingMap_RelationType() != null) {
-							newType = getProps().getRenamingMap_RelationType().get(edge.getType());
-						}
-						if (newType != null) {
-							sRelation.setType(newType);
-						} else {
-							sRelation.setType(edge.getType());
-						}
+						sRelation.setType(edgeMapping.getType(edge.getType()));
 					}
 
 					sRelation.setSource(sourceSNode);
 					sRelation.setTarget(targetNode);
 
 					this.mapAnnotations(edge, sRelation);
-					getDocument().getDocumentGraph().addRelation(sRelation);
-					this.edge2sRelation.put(edge, sRelation);
+					mapped.elements.add(sRelation);
+					if (mapped.edge2sRelation != null) {
+						mapped.edge2sRelation.put(edge, sRelation);
+					}
 				}
 			} // end for each edge
 		}
@@ -349,15 +1390,17 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 	 * {@link SStructure} object. that mapping.
 	 * 
 	 * @param nonTerminals
+	 * @param mapped
+	 *            the segment containing the non-terminals
 	 */
-	protected void mapNonTerminals(List<NonTerminal> nonTerminals) {
+	protected void mapNonTerminals(List<NonTerminal> nonTerminals, MappedSegment mapped) {
 		if (nonTerminals != null) {
 			for (NonTerminal nonTerminal : nonTerminals) {
 				if (nonTerminal != null) {
 					SStructure sStructure = SaltFactory.createSStructure();
 					this.mapAnnotations(nonTerminal, sStructure);
-					getDocument().getDocumentGraph().addNode(sStructure);
-					this.synNode2sNode.put(nonTerminal, sStructure);
+					mapped.elements.add(sStructure);
+					mapped.synNode2sNode.put(nonTerminal, sStructure);
 				}
 			}
 		}
@@ -365,7 +1408,9 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 
 	/**
 	 * Maps all annotations of the given object to {@link SAnnotation} objects
-	 * and adds them to the corresponding object.
+	 * and adds them to the corresponding object. Annotations, whose name is
+	 * not mapped according to
+	 * {@link Tiger2MappingPlan#isAnnotationMapped(String)}, are skipped.
 	 */
 	protected void mapAnnotations(AnnotatableElement annotatableElement, SAnnotationContainer sAnnotatableElement) {
 		if (annotatableElement == null) {
@@ -374,20 +1419,66 @@ public class Tiger22SaltMapper extends PepperMapperImpl {
 		if (sAnnotatableElement == null) {
 			throw new PepperModuleException(this, "Cannot map annotations, because the target element is empty.");
 		}
+		long startTime = startTime();
+		int mapped = 0;
+		Tiger2MappingPlan plan = getMappingPlan();
+		AnnotationInterner interner = getAnnotationInterner();
 		for (Annotation annotation : annotatableElement.getAnnotations()) {
-			String newName = null;
-			String annoName = "";
-			if (getProps().getRenamingMap_AnnotationName() != null) {
-				newName = getProps().getRenamingMap_AnnotationName().get(annotation.getName());
+			if (!plan.isAnnotationMapped(annotation.getName())) {
+				continue;
 			}
-			if (newName != null) {
-				annoName = newName;
-			} else {
-				annoName = annotation.getName();
+			String value = null;
+			FeatureDictionary dictionary = getFeatureDictionary(annotatableElement, annotation.getName());
+			if ((dictionary != null) && (dictionary.isClosed())) {
+				// resolve the value from the declared ones
+				int code = dictionary.getCode(annotation.getValue());
+				if (code >= 0) {
+					value = dictionary.getValue(code);
+				} else {
+					annotationValidation.addUndeclaredValue((annotatableElement instanceof Edge) ? dictionary.getDomain() : dictionary.getName(), annotation.getValue());
+				}
 			}
+			if (value == null) {
+				value = interner.internValue(annotation.getValue());
+			}
+			sAnnotatableElement.createAnnotation(null, interner.internName(plan.getAnnotationName(annotation.getName())), value);
+			mapped++;
+		}
+		if (documentMetrics != null) {
+			documentMetrics.addTime(Phase.ANNOTATIONS, System.nanoTime() - startTime);
+			documentMetrics.add(Count.ANNOTATIONS, mapped);
+		}
+	}
 
-			sAnnotatableElement.createAnnotation(null, annoName, annotation.getValue());
+	/**
+	 * Returns the dictionary of the {@link #annotationScheme} declaring the
+	 * values of the annotation having the given name of the given element, or
+	 * <code>null</code> if there is none.
+	 */
+	protected FeatureDictionary getFeatureDictionary(AnnotatableElement annotatableElement, String name) {
+		if (annotationScheme == null) {
+			return (null);
 		}
+		if (annotatableElement instanceof Terminal) {
+			return (annotationScheme.getTerminalFeature(name));
+		} else if (annotatableElement instanceof NonTerminal) {
+			return (annotationScheme.getNonTerminalFeature(name));
+		} else if ((annotatableElement instanceof Edge) && (TigerXMLStreamReader.ANNOTATION_EDGE_LABEL.equals(name))) {
+			if (TigerXMLStreamReader.EDGE_TYPE_SECONDARY.equals(((Edge) annotatableElement).getType())) {
+				return (annotationScheme.getSecondaryEdgeLabels());
+			}
+			return (annotationScheme.getEdgeLabels());
+		}
+		return (null);
+	}
+
+	/**
+	 * Returns true, if the file located at the given uri has a file ending of
+	 * TigerXML.
+	 */
+	private boolean isTigerXML(URI uri) {
+		String ending = uri.fileExtension();
+		return ((TigerResourceFactory.FILE_ENDING_TIGERXML.equalsIgnoreCase(ending)) || (TigerResourceFactory.FILE_ENDING_TIGERXML_2.equalsIgnoreCase(ending)));
 	}
 
 	/**
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.AnnotationInterner;
+
+/**
+ * The annotation scheme declared in the &lt;head/&gt; element of a TigerXML
+ * file. Each &lt;feature/&gt;, &lt;edgelabel/&gt; and &lt;secedgelabel/&gt;
+ * element becomes a {@link FeatureDictionary}, in which each declared
+ * &lt;value/&gt; has a small integer code. Features without declared values,
+ * for instance <i>word</i> or <i>lemma</i>, are open and have an empty
+ * dictionary.
+ */
+public class AnnotationScheme {
+	public static final String TAG_ANNOTATION = "annotation";
+	public static final String TAG_FEATURE = "feature";
+	public static final String TAG_EDGELABEL = "edgelabel";
+	public static final String TAG_SECEDGELABEL = "secedgelabel";
+	public static final String TAG_VALUE = "value";
+	public static final String ATT_NAME = "name";
+	public static final String ATT_DOMAIN = "domain";
+	/** domain of features of terminals **/
+	public static final String DOMAIN_TERMINAL = "T";
+	/** domain of features of non-terminals **/
+	public static final String DOMAIN_NONTERMINAL = "NT";
+	/** domain of features of terminals and non-terminals **/
+	public static final String DOMAIN_BOTH = "FREC";
+
+	/**
+	 * The values declared for one feature or edge label. Codes are assigned
+	 * in declaration order, starting with 0.
+	 */
+	public static class FeatureDictionary {
+		private final String name;
+		private final String domain;
+		private final Map<String, Integer> codes = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		public FeatureDictionary(String name, String domain) {
+			this.name = name;
+			this.domain = domain;
+		}
+
+		/** Returns the name of the feature. **/
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the domain of the feature, or the tag name for edge labels.
+		 */
+		public String getDomain() {
+			return domain;
+		}
+
+		/** Returns whether the feature has a closed set of values. **/
+		public boolean isClosed() {
+			return !values.isEmpty();
+		}
+
+		/** Returns the number of declared values. **/
+		public int size() {
+			return values.size();
+		}
+
+		/**
+		 * Returns the code of the given value, or -1 if it is not declared.
+		 */
+		public int getCode(String value) {
+			Integer code = codes.get(value);
+			return (code == null) ? -1 : code;
+		}
+
+		/** Returns the canonical string of the value having the given code. **/
+		public String getValue(int code) {
+			return values.get(code);
+		}
+
+		void addValue(String value) {
+			if ((value != null) && (!codes.containsKey(value))) {
+				codes.put(value, values.size());
+				values.add(value);
+			}
+		}
+
+		/**
+		 * Replaces the canonical strings of all values with the ones of the
+		 * given interner, so that they are shared with other documents.
+		 */
+		void internValues(AnnotationInterner interner) {
+			for (int i = 0; i < values.size(); i++) {
+				values.set(i, interner.internValue(values.get(i)));
+			}
+		}
+	}
+
+	private final Map<String, FeatureDictionary> terminalFeatures = new LinkedHashMap<>();
+	private final Map<String, FeatureDictionary> nonTerminalFeatures = new LinkedHashMap<>();
+	private FeatureDictionary edgeLabels = null;
+	private FeatureDictionary secondaryEdgeLabels = null;
+
+	/**
+	 * Returns the dictionary of the feature having the given name for
+	 * terminals, or <code>null</code> if it is not declared.
+	 */
+	public FeatureDictionary getTerminalFeature(String name) {
+		return terminalFeatures.get(name);
+	}
+
+	/**
+	 * Returns the dictionary of the feature having the given name for
+	 * non-terminals, or <code>null</code> if it is not declared.
+	 */
+	public FeatureDictionary getNonTerminalFeature(String name) {
+		return nonTerminalFeatures.get(name);
+	}
+
+	/**
+	 * Returns the labels of &lt;edge/&gt; elements, or <code>null</code> if
+	 * they are not declared.
+	 */
+	public FeatureDictionary getEdgeLabels() {
+		return edgeLabels;
+	}
+
+	/**
+	 * Returns the labels of &lt;secedge/&gt; elements, or <code>null</code> if
+	 * they are not declared.
+	 */
+	public FeatureDictionary getSecondaryEdgeLabels() {
+		return secondaryEdgeLabels;
+	}
+
+	/** Returns all declared dictionaries. **/
+	public Collection<FeatureDictionary> getDictionaries() {
+		List<FeatureDictionary> dictionaries = new ArrayList<>();
+		for (FeatureDictionary dictionary : terminalFeatures.values()) {
+			dictionaries.add(dictionary);
+		}
+		for (FeatureDictionary dictionary : nonTerminalFeatures.values()) {
+			if (!dictionaries.contains(dictionary)) {
+				dictionaries.add(dictionary);
+			}
+		}
+		if (edgeLabels != null) {
+			dictionaries.add(edgeLabels);
+		}
+		if (secondaryEdgeLabels != null) {
+			dictionaries.add(secondaryEdgeLabels);
+		}
+		return Collections.unmodifiableList(dictionaries);
+	}
+
+	/**
+	 * Replaces the canonical strings of all declared values with the ones of
+	 * the given interner.
+	 */
+	public void internValues(AnnotationInterner interner) {
+		for (FeatureDictionary dictionary : getDictionaries()) {
+			dictionary.internValues(interner);
+		}
+	}
+
+	/**
+	 * Adds the given dictionary to this scheme according to its domain. A
+	 * dictionary having the domain {@value #TAG_EDGELABEL} or
+	 * {@value #TAG_SECEDGELABEL} declares edge labels, all others declare
+	 * features of terminals, non-terminals or both.
+	 */
+	void addDictionary(FeatureDictionary dictionary) {
+		String domain = dictionary.getDomain();
+		if (TAG_EDGELABEL.equals(domain)) {
+			edgeLabels = dictionary;
+		} else if (TAG_SECEDGELABEL.equals(domain)) {
+			secondaryEdgeLabels = dictionary;
+		} else {
+			if (!DOMAIN_NONTERMINAL.equals(domain)) {
+				terminalFeatures.put(dictionary.getName(), dictionary);
+			}
+			if (!DOMAIN_TERMINAL.equals(domain)) {
+				nonTerminalFeatures.put(dictionary.getName(), dictionary);
+			}
+		}
+	}
+
+	/**
+	 * Reads the &lt;annotation/&gt; element the given reader is positioned at
+	 * and adds all declarations to this scheme.
+	 */
+	void read(XMLStreamReader xmlReader) throws XMLStreamException {
+		FeatureDictionary current = null;
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				if (TAG_FEATURE.equals(name)) {
+					current = new FeatureDictionary(xmlReader.getAttributeValue(null, ATT_NAME), xmlReader.getAttributeValue(null, ATT_DOMAIN));
+					addDictionary(current);
+				} else if ((TAG_EDGELABEL.equals(name)) || (TAG_SECEDGELABEL.equals(name))) {
+					current = new FeatureDictionary(TigerXMLStreamReader.ANNOTATION_EDGE_LABEL, name);
+					addDictionary(current);
+				} else if ((TAG_VALUE.equals(name)) && (current != null)) {
+					current.addValue(xmlReader.getAttributeValue(null, ATT_NAME));
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				if (TAG_ANNOTATION.equals(name)) {
+					return;
+				} else if ((TAG_FEATURE.equals(name)) || (TAG_EDGELABEL.equals(name)) || (TAG_SECEDGELABEL.equals(name))) {
+					current = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the annotation scheme from the &lt;head/&gt; element of the given
+	 * TigerXML file. Reading stops at the &lt;body/&gt; element, so the
+	 * segments are never parsed.
+	 */
+	public static AnnotationScheme read(File file) {
+		AnnotationScheme scheme = new AnnotationScheme();
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader xmlReader = factory.createXMLStreamReader(in);
+			try {
+				while (xmlReader.hasNext()) {
+					int event = xmlReader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						String name = xmlReader.getLocalName();
+						if (TigerXMLStreamReader.TAG_BODY.equals(name)) {
+							break;
+						} else if (TAG_ANNOTATION.equals(name)) {
+							scheme.read(xmlReader);
+						}
+					}
+				}
+			} finally {
+				xmlReader.close();
+			}
+		} catch (IOException | XMLStreamException e) {
+			throw new PepperModuleException("Cannot read the annotation scheme of TigerXML file '" + file.getAbsolutePath() + "'.", e);
+		}
+		return scheme;
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+/**
+ * Decides which {@link Segment} objects are mapped. A segment is accepted,
+ * if
+ * <ul>
+ * <li>it is contained in one of the given subcorpora, at any depth,</li>
+ * <li>its number of terminals is between the minimal and the maximal length
+ * and</li>
+ * <li>it contains a non-terminal having one of the given categories.</li>
+ * </ul>
+ * Each criterion, which is not given, accepts all segments. The subcorpora of
+ * a segment are checked by the readers before the segment is parsed, the
+ * other criteria are checked after it has been parsed, but before any Salt
+ * object is created for it. The filter is immutable.
+ */
+public class SegmentFilter {
+	/** name of the annotation carrying the category of a non-terminal **/
+	public static final String ANNOTATION_CATEGORY = "cat";
+
+	private final Set<String> subcorpora;
+	private final int minLength;
+	private final int maxLength;
+	private final Set<String> categories;
+
+	/**
+	 * @param subcorpora
+	 *            names of the accepted subcorpora, <code>null</code> to accept
+	 *            all
+	 * @param minLength
+	 *            minimal number of terminals of a segment
+	 * @param maxLength
+	 *            maximal number of terminals of a segment
+	 * @param categories
+	 *            accepted categories, <code>null</code> to accept all
+	 */
+	public SegmentFilter(Collection<String> subcorpora, int minLength, int maxLength, Collection<String> categories) {
+		this.subcorpora = (subcorpora == null) ? null : Collections.unmodifiableSet(new HashSet<>(subcorpora));
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+		this.categories = (categories == null) ? null : Collections.unmodifiableSet(new HashSet<>(categories));
+	}
+
+	/**
+	 * Returns the names of the accepted subcorpora, or <code>null</code> if
+	 * all are accepted.
+	 */
+	public Set<String> getSubcorpora() {
+		return subcorpora;
+	}
+
+	/** Returns the minimal number of terminals of a segment. **/
+	public int getMinLength() {
+		return minLength;
+	}
+
+	/** Returns the maximal number of terminals of a segment. **/
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Returns the accepted categories, or <code>null</code> if all are
+	 * accepted.
+	 */
+	public Set<String> getCategories() {
+		return categories;
+	}
+
+	/**
+	 * Returns a filter having the same criteria, but accepting all
+	 * subcorpora. It is used, when the subcorpora have already been checked.
+	 */
+	public SegmentFilter withoutSubcorpora() {
+		return new SegmentFilter(null, minLength, maxLength, categories);
+	}
+
+	/**
+	 * Returns whether a segment contained in the given subcorpora, from the
+	 * outermost to the innermost one, is accepted.
+	 */
+	public boolean acceptsSubcorpora(Collection<String> path) {
+		if (subcorpora == null) {
+			return true;
+		}
+		for (String subcorpus : path) {
+			if (subcorpora.contains(subcorpus)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the given segment meets the length and category
+	 * criteria.
+	 */
+	public boolean accepts(Segment segment) {
+		int length = 0;
+		boolean category = (categories == null);
+		for (Graph graph : segment.getGraphs()) {
+			length += graph.getTerminals().size();
+			if (!category) {
+				category = containsCategory(graph);
+			}
+		}
+		return (category) && (length >= minLength) && (length <= maxLength);
+	}
+
+	private boolean containsCategory(Graph graph) {
+		for (NonTerminal nonTerminal : graph.getNonTerminals()) {
+			for (Annotation annotation : nonTerminal.getAnnotations()) {
+				if ((ANNOTATION_CATEGORY.equals(annotation.getName())) && (categories.contains(annotation.getValue()))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "subcorpora=" + subcorpora + ", length=[" + minLength + ", " + maxLength + "], categories=" + categories;
+	}
+}
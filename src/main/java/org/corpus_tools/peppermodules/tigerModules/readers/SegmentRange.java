@@ -0,0 +1,71 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+/**
+ * A contiguous range of {@link Segment} objects of a file, given by the
+ * position of the first segment (inclusive) and the last segment (exclusive)
+ * in document order. A range is used to map only a part of a file to a
+ * document.
+ */
+public class SegmentRange {
+	private final String name;
+	private final int from;
+	private final int to;
+
+	/**
+	 * @param name
+	 *            a name identifying the range inside of its file
+	 * @param from
+	 *            position of the first segment, inclusive
+	 * @param to
+	 *            position of the last segment, exclusive
+	 */
+	public SegmentRange(String name, int from, int to) {
+		this.name = name;
+		this.from = from;
+		this.to = to;
+	}
+
+	/** Returns a name identifying the range inside of its file. **/
+	public String getName() {
+		return name;
+	}
+
+	/** Returns the position of the first segment, inclusive. **/
+	public int getFrom() {
+		return from;
+	}
+
+	/** Returns the position of the last segment, exclusive. **/
+	public int getTo() {
+		return to;
+	}
+
+	/** Returns whether the segment at the given position is in this range. **/
+	public boolean contains(int position) {
+		return (position >= from) && (position < to);
+	}
+
+	@Override
+	public String toString() {
+		return name + "[" + from + ", " + to + ")";
+	}
+}
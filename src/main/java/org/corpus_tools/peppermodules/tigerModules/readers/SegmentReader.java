@@ -0,0 +1,50 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+/**
+ * Reads the {@link Segment} objects of a file one after another, without
+ * holding the entire &lt;tiger2/&gt; model in memory. The {@link Corpus}
+ * object returned by {@link #getCorpus()} only contains the meta data of the
+ * file.
+ */
+public interface SegmentReader extends Iterator<Segment>, Closeable {
+	/**
+	 * Returns a {@link Corpus} object containing the meta data of the read
+	 * file, but no segments.
+	 */
+	public Corpus getCorpus();
+
+	/**
+	 * Returns the annotation scheme declared for the read file. The scheme is
+	 * empty, if the file does not declare one.
+	 */
+	public AnnotationScheme getAnnotationScheme();
+
+	/**
+	 * Releases the underlying file. Closing a reader never fails.
+	 */
+	@Override
+	public void close();
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A selection of segments given by their ids. The selection is a comma
+ * separated list of single ids and ranges of ids, a range is written as
+ * 'FIRST..LAST' and contains all segments from the one having the id FIRST
+ * to the one having the id LAST in document order, for instance
+ * 's1, s10..s20'.
+ */
+public class SegmentSelection {
+	/** separates the first and the last id of a range **/
+	public static final String RANGE_SEPARATOR = "..";
+
+	private final List<String[]> ranges = new ArrayList<>();
+	private final String text;
+
+	private SegmentSelection(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses the given selection.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if an entry of the selection is empty
+	 */
+	public static SegmentSelection parse(String text) {
+		SegmentSelection selection = new SegmentSelection(text);
+		for (String entry : text.split(",")) {
+			entry = entry.trim();
+			int separator = entry.indexOf(RANGE_SEPARATOR);
+			String first = (separator < 0) ? entry : entry.substring(0, separator).trim();
+			String last = (separator < 0) ? entry : entry.substring(separator + RANGE_SEPARATOR.length()).trim();
+			if ((first.isEmpty()) || (last.isEmpty())) {
+				throw new IllegalArgumentException("The selection '" + text + "' contains the empty entry '" + entry + "'.");
+			}
+			selection.ranges.add(new String[] { first, last });
+		}
+		return selection;
+	}
+
+	/**
+	 * Returns the positions of the selected segments in document order. Each
+	 * id, which is not contained in the given index, is added to
+	 * <code>unknownIds</code>. A range with an unknown id is ignored.
+	 * 
+	 * @param range
+	 *            if not <code>null</code>, only selected segments in this range
+	 *            are returned
+	 */
+	public int[] resolve(TigerXMLIndex index, SegmentRange range, List<String> unknownIds) {
+		BitSet selected = new BitSet(index.size());
+		for (String[] ids : ranges) {
+			int first = index.getPosition(ids[0]);
+			int last = index.getPosition(ids[1]);
+			if (first < 0) {
+				unknownIds.add(ids[0]);
+			}
+			if ((last < 0) && (!ids[1].equals(ids[0]))) {
+				unknownIds.add(ids[1]);
+			}
+			if ((first >= 0) && (last >= 0)) {
+				selected.set(Math.min(first, last), Math.max(first, last) + 1);
+			}
+		}
+		if (range != null) {
+			selected.clear(0, Math.min(range.getFrom(), index.size()));
+			selected.clear(Math.min(range.getTo(), index.size()), index.size());
+		}
+		int[] positions = new int[selected.cardinality()];
+		int i = 0;
+		for (int position = selected.nextSetBit(0); position >= 0; position = selected.nextSetBit(position + 1)) {
+			positions[i++] = position;
+		}
+		return positions;
+	}
+
+	/** Returns the single ids and ranges of the selection. **/
+	public List<String[]> getRanges() {
+		return Collections.unmodifiableList(ranges);
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
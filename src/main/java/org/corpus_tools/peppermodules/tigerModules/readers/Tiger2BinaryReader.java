@@ -0,0 +1,274 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme.FeatureDictionary;
+
+import de.hu_berlin.german.korpling.tiger2.AnnotatableElement;
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Meta;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
+import de.hu_berlin.german.korpling.tiger2.Terminal;
+import de.hu_berlin.german.korpling.tiger2.Tiger2Factory;
+
+/**
+ * Reads a file written by {@link Tiger2BinaryWriter} and returns one
+ * {@link Segment} object per written segment. Like the
+ * {@link TigerXMLStreamReader}, the segments are created one after another
+ * when {@link #next()} is called.
+ */
+public class Tiger2BinaryReader implements SegmentReader {
+	private final String location;
+	private final DataInputStream in;
+	private final Corpus corpus;
+	private final AnnotationScheme annotationScheme = new AnnotationScheme();
+	private final List<String> strings = new ArrayList<>();
+	private final List<SyntacticNode> nodes = new ArrayList<>();
+	/** the next segment to be returned by {@link #next()} **/
+	private Segment nextSegment = null;
+
+	/**
+	 * Opens the given file and reads its header.
+	 * 
+	 * @throws PepperModuleException
+	 *             if the file cannot be read or has been written in another
+	 *             version of the format
+	 */
+	public Tiger2BinaryReader(File file) {
+		this.location = file.getAbsolutePath();
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot open binary tiger2 file '" + location + "'.", e);
+		}
+		corpus = Tiger2Factory.eINSTANCE.createCorpus();
+		try {
+			if (in.readInt() != Tiger2BinaryWriter.MAGIC) {
+				throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it has not been written by a " + Tiger2BinaryWriter.class.getSimpleName() + ".");
+			}
+			int version = readNumber();
+			if (version != Tiger2BinaryWriter.FORMAT_VERSION) {
+				throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it has been written in version " + version + " of the format, but version " + Tiger2BinaryWriter.FORMAT_VERSION + " is expected.");
+			}
+			corpus.setMeta(readMeta());
+			readAnnotationScheme();
+			nextSegment = readSegment();
+		} catch (IOException e) {
+			close();
+			throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "'.", e);
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public Corpus getCorpus() {
+		return corpus;
+	}
+
+	@Override
+	public AnnotationScheme getAnnotationScheme() {
+		return annotationScheme;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextSegment != null;
+	}
+
+	@Override
+	public Segment next() {
+		if (nextSegment == null) {
+			throw new NoSuchElementException();
+		}
+		Segment retVal = nextSegment;
+		try {
+			nextSegment = readSegment();
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "' after segment '" + retVal.getId() + "'.", e);
+		}
+		return retVal;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing to do, the file is not written
+		}
+	}
+
+	private Meta readMeta() throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		Meta meta = Tiger2Factory.eINSTANCE.createMeta();
+		meta.setName(readString());
+		meta.setAuthor(readString());
+		meta.setDate(readString());
+		meta.setDescription(readString());
+		meta.setFormat(readString());
+		meta.setHistory(readString());
+		return meta;
+	}
+
+	private void readAnnotationScheme() throws IOException {
+		int numberOfDictionaries = readNumber();
+		for (int i = 0; i < numberOfDictionaries; i++) {
+			FeatureDictionary dictionary = new FeatureDictionary(readString(), readString());
+			int size = readNumber();
+			for (int code = 0; code < size; code++) {
+				dictionary.addValue(readString());
+			}
+			annotationScheme.addDictionary(dictionary);
+		}
+	}
+
+	/**
+	 * Reads the next segment, or returns <code>null</code> if the end of the
+	 * data has been reached.
+	 */
+	private Segment readSegment() throws IOException {
+		int marker = readNumber();
+		if (marker == Tiger2BinaryWriter.END) {
+			return null;
+		} else if (marker != Tiger2BinaryWriter.SEGMENT) {
+			throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it is corrupted.");
+		}
+		Segment segment = Tiger2Factory.eINSTANCE.createSegment();
+		segment.setId(readString());
+		int numberOfGraphs = readNumber();
+		for (int i = 0; i < numberOfGraphs; i++) {
+			segment.getGraphs().add(readGraph());
+		}
+		return segment;
+	}
+
+	private Graph readGraph() throws IOException {
+		Graph graph = Tiger2Factory.eINSTANCE.createGraph();
+		nodes.clear();
+		graph.setId(readString());
+		int numberOfTerminals = readNumber();
+		for (int i = 0; i < numberOfTerminals; i++) {
+			Terminal terminal = Tiger2Factory.eINSTANCE.createTerminal();
+			terminal.setId(readString());
+			terminal.setWord(readString());
+			readAnnotations(terminal);
+			graph.getTerminals().add(terminal);
+			nodes.add(terminal);
+		}
+		int numberOfNonTerminals = readNumber();
+		for (int i = 0; i < numberOfNonTerminals; i++) {
+			NonTerminal nonTerminal = Tiger2Factory.eINSTANCE.createNonTerminal();
+			nonTerminal.setId(readString());
+			readAnnotations(nonTerminal);
+			graph.getNonTerminals().add(nonTerminal);
+			nodes.add(nonTerminal);
+		}
+		int numberOfEdges = readNumber();
+		for (int i = 0; i < numberOfEdges; i++) {
+			Edge edge = Tiger2Factory.eINSTANCE.createEdge();
+			edge.setId(readString());
+			edge.setType(readString());
+			edge.setSource(readNode());
+			edge.setTarget(readNode());
+			readAnnotations(edge);
+			graph.getEdges().add(edge);
+		}
+		return graph;
+	}
+
+	private SyntacticNode readNode() throws IOException {
+		int position = readNumber();
+		if (position >= nodes.size()) {
+			throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it is corrupted.");
+		}
+		return nodes.get(position);
+	}
+
+	private void readAnnotations(AnnotatableElement element) throws IOException {
+		int numberOfAnnotations = readNumber();
+		for (int i = 0; i < numberOfAnnotations; i++) {
+			Annotation annotation = Tiger2Factory.eINSTANCE.createAnnotation();
+			annotation.setName(readString());
+			annotation.setValue(readString());
+			element.getAnnotations().add(annotation);
+		}
+	}
+
+	private String readString() throws IOException {
+		int code = readNumber();
+		if (code == Tiger2BinaryWriter.STRING_NULL) {
+			return null;
+		} else if (code >= Tiger2BinaryWriter.STRING_TABLE) {
+			if (code - Tiger2BinaryWriter.STRING_TABLE >= strings.size()) {
+				throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it is corrupted.");
+			}
+			return strings.get(code - Tiger2BinaryWriter.STRING_TABLE);
+		}
+		byte[] bytes = new byte[readNumber()];
+		in.readFully(bytes);
+		String value = new String(bytes, StandardCharsets.UTF_8);
+		if (code == Tiger2BinaryWriter.STRING_NEW) {
+			strings.add(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a number written by {@link Tiger2BinaryWriter}.
+	 */
+	private int readNumber() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new PepperModuleException("Cannot read binary tiger2 file '" + location + "', because it is corrupted.");
+	}
+}
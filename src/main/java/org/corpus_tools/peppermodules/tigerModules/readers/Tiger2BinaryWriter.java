@@ -0,0 +1,246 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme.FeatureDictionary;
+
+import de.hu_berlin.german.korpling.tiger2.AnnotatableElement;
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Meta;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
+import de.hu_berlin.german.korpling.tiger2.Terminal;
+
+/**
+ * Writes {@link Segment} objects in a compact binary format, which can be
+ * read by {@link Tiger2BinaryReader} much faster than the XML they were
+ * parsed from. The format contains everything a
+ * {@link org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper}
+ * needs: the {@link Meta} data, the {@link AnnotationScheme} and for each
+ * segment its graphs with terminals, non-terminals, edges and annotations.
+ * <br/>
+ * All numbers are written as variable length integers. Names, values, words
+ * and types are written once and referred to by their position in a string
+ * table afterwards, identifiers are always written in full. Edges refer to
+ * their source and target by the position of the node in its graph, first
+ * counting the terminals and then the non-terminals.
+ * <br/>
+ * The header is written on construction, each segment is written by
+ * {@link #write(Segment)} and {@link #finish()} marks the end of the data.
+ * A file without this mark is incomplete and is rejected by the reader.
+ */
+public class Tiger2BinaryWriter implements Closeable {
+	/** the first bytes of each file, 'T2B' and a zero byte **/
+	public static final int MAGIC = 0x54324200;
+	/**
+	 * The version of the format. Must be increased whenever the written data
+	 * or the way it is read from TigerXML or tiger2 files changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+	/** maximal number of entries of the string table **/
+	public static final int MAX_STRINGS = 1 << 16;
+
+	/** marks a <code>null</code> string **/
+	static final int STRING_NULL = 0;
+	/** marks a string, which is not added to the string table **/
+	static final int STRING_LITERAL = 1;
+	/** marks a string, which is added to the string table **/
+	static final int STRING_NEW = 2;
+	/** the first code referring to an entry of the string table **/
+	static final int STRING_TABLE = 3;
+	/** precedes each segment **/
+	static final int SEGMENT = 1;
+	/** marks the end of the data **/
+	static final int END = 0;
+
+	private final DataOutputStream out;
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final Map<SyntacticNode, Integer> nodePositions = new IdentityHashMap<>();
+	private int numberOfSegments = 0;
+
+	/**
+	 * Writes the header containing the given meta data and annotation scheme
+	 * to the given stream. Both may be <code>null</code>.
+	 */
+	public Tiger2BinaryWriter(OutputStream out, Meta meta, AnnotationScheme annotationScheme) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.out.writeInt(MAGIC);
+		writeNumber(FORMAT_VERSION);
+		writeMeta(meta);
+		writeAnnotationScheme(annotationScheme);
+	}
+
+	/** Returns the number of segments written so far. **/
+	public int getNumberOfSegments() {
+		return numberOfSegments;
+	}
+
+	/**
+	 * Writes the given segment.
+	 * 
+	 * @throws PepperModuleException
+	 *             if an edge refers to a node outside of its graph
+	 */
+	public void write(Segment segment) throws IOException {
+		writeNumber(SEGMENT);
+		writeString(segment.getId(), false);
+		writeNumber(segment.getGraphs().size());
+		for (Graph graph : segment.getGraphs()) {
+			writeGraph(segment, graph);
+		}
+		numberOfSegments++;
+	}
+
+	/**
+	 * Marks the end of the data and flushes the stream. The stream is not
+	 * closed.
+	 */
+	public void finish() throws IOException {
+		writeNumber(END);
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void writeMeta(Meta meta) throws IOException {
+		out.writeBoolean(meta != null);
+		if (meta != null) {
+			writeString(meta.getName(), false);
+			writeString(meta.getAuthor(), false);
+			writeString(meta.getDate(), false);
+			writeString(meta.getDescription(), false);
+			writeString(meta.getFormat(), false);
+			writeString(meta.getHistory(), false);
+		}
+	}
+
+	private void writeAnnotationScheme(AnnotationScheme annotationScheme) throws IOException {
+		if (annotationScheme == null) {
+			writeNumber(0);
+			return;
+		}
+		writeNumber(annotationScheme.getDictionaries().size());
+		for (FeatureDictionary dictionary : annotationScheme.getDictionaries()) {
+			writeString(dictionary.getName(), true);
+			writeString(dictionary.getDomain(), true);
+			writeNumber(dictionary.size());
+			for (int code = 0; code < dictionary.size(); code++) {
+				writeString(dictionary.getValue(code), true);
+			}
+		}
+	}
+
+	private void writeGraph(Segment segment, Graph graph) throws IOException {
+		nodePositions.clear();
+		writeString(graph.getId(), false);
+		writeNumber(graph.getTerminals().size());
+		for (Terminal terminal : graph.getTerminals()) {
+			nodePositions.put(terminal, nodePositions.size());
+			writeString(terminal.getId(), false);
+			writeString(terminal.getWord(), true);
+			writeAnnotations(terminal);
+		}
+		writeNumber(graph.getNonTerminals().size());
+		for (NonTerminal nonTerminal : graph.getNonTerminals()) {
+			nodePositions.put(nonTerminal, nodePositions.size());
+			writeString(nonTerminal.getId(), false);
+			writeAnnotations(nonTerminal);
+		}
+		writeNumber(graph.getEdges().size());
+		for (Edge edge : graph.getEdges()) {
+			writeString(edge.getId(), false);
+			writeString(edge.getType(), true);
+			writeNumber(getPosition(segment, edge, edge.getSource()));
+			writeNumber(getPosition(segment, edge, edge.getTarget()));
+			writeAnnotations(edge);
+		}
+	}
+
+	private int getPosition(Segment segment, Edge edge, SyntacticNode node) {
+		Integer position = nodePositions.get(node);
+		if (position == null) {
+			throw new PepperModuleException("Cannot write segment '" + segment.getId() + "', because an edge of type '" + edge.getType() + "' refers to a node outside of its graph.");
+		}
+		return position;
+	}
+
+	private void writeAnnotations(AnnotatableElement element) throws IOException {
+		List<Annotation> annotations = element.getAnnotations();
+		writeNumber(annotations.size());
+		for (Annotation annotation : annotations) {
+			writeString(annotation.getName(), true);
+			writeString(annotation.getValue(), true);
+		}
+	}
+
+	/**
+	 * Writes the given string. If <code>shared</code> is set, the string is
+	 * added to the string table, as long as the table is not full.
+	 */
+	private void writeString(String value, boolean shared) throws IOException {
+		if (value == null) {
+			writeNumber(STRING_NULL);
+			return;
+		}
+		if (shared) {
+			Integer code = strings.get(value);
+			if (code != null) {
+				writeNumber(code);
+				return;
+			}
+		}
+		if ((shared) && (strings.size() < MAX_STRINGS)) {
+			strings.put(value, STRING_TABLE + strings.size());
+			writeNumber(STRING_NEW);
+		} else {
+			writeNumber(STRING_LITERAL);
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeNumber(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Writes a non-negative number in groups of seven bits, the lowest group
+	 * first.
+	 */
+	private void writeNumber(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+}
@@ -0,0 +1,632 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The byte offsets of all &lt;s/&gt; elements of a TigerXML file, which allow
+ * to read single segments without parsing the rest of the file.
+ * <br/>
+ * The index is built by {@link #build(File)} in a single pass over the raw
+ * bytes of the file, without an XML parser. It is saved next to the file
+ * with the ending {@value #FILE_ENDING} and is reused by {@link #open(File)}
+ * as long as size and modification time of the file are unchanged.
+ * <br/>
+ * {@link #createReader(int[], SegmentFilter)} memory-maps the &lt;head/&gt; element and the
+ * requested segments and passes them to a {@link TigerXMLStreamReader} as a
+ * document, which contains only these segments. The file is assumed to use
+ * an encoding, in which '&lt;' and '&gt;' are single bytes, for instance
+ * UTF-8 or ISO-8859-1.
+ */
+public class TigerXMLIndex {
+	private static final Logger logger = LoggerFactory.getLogger(TigerXMLIndex.class);
+	/** file ending of the index, appended to the name of the indexed file **/
+	public static final String FILE_ENDING = "idx";
+	/** the first bytes of an index file, 'TXI' and a zero byte **/
+	public static final int MAGIC = 0x54584900;
+	/** the version of the index file format **/
+	public static final int FORMAT_VERSION = 2;
+	/** maximal number of bytes mapped at once **/
+	private static final long MAX_MAPPING = 1L << 30;
+	private static final Pattern ID = attributePattern(TigerXMLStreamReader.ATT_ID);
+	private static final Pattern NAME = attributePattern(TigerXMLStreamReader.ATT_NAME);
+
+	private final File file;
+	private final long size;
+	private final long lastModified;
+	/** offset behind the start tag of the &lt;body/&gt; element **/
+	private long headEnd = -1;
+	/** offset of the end tag of the &lt;body/&gt; element **/
+	private long bodyEnd = -1;
+	private final List<String> ids = new ArrayList<>();
+	private long[] starts = new long[16];
+	private long[] ends = new long[16];
+	/** for each segment the position of its path in {@link #paths} **/
+	private int[] pathIds = new int[16];
+	/**
+	 * the distinct paths of subcorpora containing segments, each from the
+	 * outermost to the innermost subcorpus
+	 */
+	private final List<List<String>> paths = new ArrayList<>();
+	private Map<String, Integer> positions = null;
+
+	private TigerXMLIndex(File file, long size, long lastModified) {
+		this.file = file;
+		this.size = size;
+		this.lastModified = lastModified;
+	}
+
+	/** Returns the indexed file. **/
+	public File getFile() {
+		return file;
+	}
+
+	/** Returns the number of segments in the file. **/
+	public int size() {
+		return ids.size();
+	}
+
+	/** Returns the id of the segment at the given position. **/
+	public String getId(int position) {
+		return ids.get(position);
+	}
+
+	/**
+	 * Returns the offset of the first byte of the segment at the given
+	 * position.
+	 */
+	public long getStart(int position) {
+		return starts[position];
+	}
+
+	/**
+	 * Returns the offset behind the last byte of the segment at the given
+	 * position.
+	 */
+	public long getEnd(int position) {
+		return ends[position];
+	}
+
+	/**
+	 * Returns the number of bytes of the segments at the given positions.
+	 */
+	public long getLength(int[] positions) {
+		long length = 0;
+		for (int position : positions) {
+			length += ends[position] - starts[position];
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of bytes of the largest segment at the given
+	 * positions.
+	 */
+	public long getMaxLength(int[] positions) {
+		long length = 0;
+		for (int position : positions) {
+			length = Math.max(length, ends[position] - starts[position]);
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the positions of all segments in the given range in document
+	 * order, or of all segments of the file, if no range is given.
+	 */
+	public int[] getPositions(SegmentRange range) {
+		int from = (range == null) ? 0 : Math.min(range.getFrom(), size());
+		int to = (range == null) ? size() : Math.min(range.getTo(), size());
+		int[] positions = new int[Math.max(0, to - from)];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = from + i;
+		}
+		return positions;
+	}
+
+	/**
+	 * Returns the names of the subcorpora containing the segment at the given
+	 * position, from the outermost to the innermost one.
+	 */
+	public List<String> getSubcorpora(int position) {
+		return paths.get(pathIds[position]);
+	}
+
+	/**
+	 * Returns the position of the segment having the given id in document
+	 * order, or -1 if there is none.
+	 */
+	public synchronized int getPosition(String id) {
+		if (positions == null) {
+			positions = new HashMap<>(ids.size() * 2);
+			for (int i = 0; i < ids.size(); i++) {
+				positions.put(ids.get(i), i);
+			}
+		}
+		Integer position = positions.get(id);
+		return (position == null) ? -1 : position;
+	}
+
+	/** Returns the file the index of the given file is saved in. **/
+	public static File getIndexFile(File file) {
+		return new File(file.getAbsolutePath() + "." + FILE_ENDING);
+	}
+
+	/**
+	 * Returns the index of the given file. A saved index is used, if it
+	 * belongs to the current state of the file. Otherwise the index is built
+	 * and saved, if the directory of the file is writable.
+	 */
+	public static TigerXMLIndex open(File file) {
+		TigerXMLIndex index = openSaved(file);
+		if (index != null) {
+			return index;
+		}
+		File indexFile = getIndexFile(file);
+		index = build(file);
+		try {
+			index.save(indexFile);
+		} catch (IOException e) {
+			logger.debug("Cannot save index '{}', the index is built again next time. ", indexFile.getAbsolutePath(), e);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the saved index of the given file, or <code>null</code> if no
+	 * index has been saved for the current state of the file. Unlike
+	 * {@link #open(File)}, the file itself is never scanned.
+	 */
+	public static TigerXMLIndex openSaved(File file) {
+		File indexFile = getIndexFile(file);
+		if (indexFile.isFile()) {
+			try {
+				return load(file, indexFile);
+			} catch (IOException e) {
+				logger.debug("Cannot read index '{}'. ", indexFile.getAbsolutePath(), e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Scans the given file and records the offsets of its &lt;s/&gt; and
+	 * &lt;body/&gt; elements. Comments, processing instructions and CDATA
+	 * sections are skipped.
+	 */
+	public static TigerXMLIndex build(File file) {
+		TigerXMLIndex index = new TigerXMLIndex(file, file.length(), file.lastModified());
+		try (InputStream in = new FileInputStream(file)) {
+			new Scanner(in, index).scan();
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot index TigerXML file '" + file.getAbsolutePath() + "'.", e);
+		}
+		if ((index.headEnd < 0) || (index.bodyEnd < index.headEnd)) {
+			throw new PepperModuleException("Cannot index TigerXML file '" + file.getAbsolutePath() + "', because it has no <" + TigerXMLStreamReader.TAG_BODY + "/> element.");
+		}
+		return index;
+	}
+
+	private void addSegment(String id, long start, long end, int pathId) {
+		if (ids.size() == starts.length) {
+			starts = Arrays.copyOf(starts, starts.length * 2);
+			ends = Arrays.copyOf(ends, ends.length * 2);
+			pathIds = Arrays.copyOf(pathIds, pathIds.length * 2);
+		}
+		starts[ids.size()] = start;
+		ends[ids.size()] = end;
+		pathIds[ids.size()] = pathId;
+		ids.add(id);
+	}
+
+	private static Pattern attributePattern(String name) {
+		return Pattern.compile("\\s" + name + "\\s*=\\s*(\"([^\"]*)\"|'([^']*)')");
+	}
+
+	/**
+	 * Returns the value of the attribute matched by the given pattern in the
+	 * given tag, or <code>null</code>.
+	 */
+	private static String getAttribute(Pattern pattern, String tag) {
+		Matcher matcher = pattern.matcher(tag);
+		if (!matcher.find()) {
+			return null;
+		}
+		return (matcher.group(2) != null) ? matcher.group(2) : matcher.group(3);
+	}
+
+	/**
+	 * Saves the index to the given file. The index is written to a temporary
+	 * file in the same directory, which replaces the given file at once, so
+	 * that mappers opening the index at the same time never read a partial
+	 * index.
+	 */
+	public void save(File indexFile) throws IOException {
+		File temporary = File.createTempFile(indexFile.getName() + ".", ".tmp", indexFile.getAbsoluteFile().getParentFile());
+		try {
+			write(temporary);
+			Files.move(temporary.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temporary.delete();
+		}
+	}
+
+	private void write(File indexFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(size);
+			out.writeLong(lastModified);
+			out.writeLong(headEnd);
+			out.writeLong(bodyEnd);
+			out.writeInt(paths.size());
+			for (List<String> path : paths) {
+				out.writeInt(path.size());
+				for (String subcorpus : path) {
+					out.writeUTF(subcorpus == null ? "" : subcorpus);
+				}
+			}
+			out.writeInt(ids.size());
+			for (int i = 0; i < ids.size(); i++) {
+				out.writeUTF(ids.get(i) == null ? "" : ids.get(i));
+				out.writeLong(starts[i]);
+				out.writeLong(ends[i]);
+				out.writeInt(pathIds[i]);
+			}
+		}
+	}
+
+	/**
+	 * Loads the index of the given file, or returns <code>null</code> if the
+	 * saved index does not belong to the current state of the file.
+	 */
+	private static TigerXMLIndex load(File file, File indexFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if ((in.readInt() != MAGIC) || (in.readInt() != FORMAT_VERSION)) {
+				return null;
+			}
+			long size = in.readLong();
+			long lastModified = in.readLong();
+			if ((size != file.length()) || (lastModified != file.lastModified())) {
+				return null;
+			}
+			TigerXMLIndex index = new TigerXMLIndex(file, size, lastModified);
+			index.headEnd = in.readLong();
+			index.bodyEnd = in.readLong();
+			int numberOfPaths = in.readInt();
+			for (int i = 0; i < numberOfPaths; i++) {
+				String[] path = new String[in.readInt()];
+				for (int j = 0; j < path.length; j++) {
+					path[j] = in.readUTF();
+				}
+				index.paths.add(Collections.unmodifiableList(Arrays.asList(path)));
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				index.addSegment(in.readUTF(), in.readLong(), in.readLong(), in.readInt());
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Returns a reader for the segments at the given positions. The segments
+	 * are returned in the order of the positions. The &lt;head/&gt; and the
+	 * segments are memory-mapped, the rest of the file is never read.
+	 */
+	public TigerXMLStreamReader createReader(int[] selected) {
+		return createReader(selected, null);
+	}
+
+	/**
+	 * Returns a reader for the segments at the given positions, which are
+	 * accepted by the given filter. The subcorpora of the segments are
+	 * checked against the index, so that segments of other subcorpora are
+	 * never mapped. The remaining criteria are checked by the reader.
+	 *
+	 * @param filter
+	 *            the filter, <code>null</code> to read all given segments
+	 */
+	public TigerXMLStreamReader createReader(int[] selected, SegmentFilter filter) {
+		if ((filter != null) && (filter.getSubcorpora() != null)) {
+			int count = 0;
+			int[] accepted = new int[selected.length];
+			for (int position : selected) {
+				if (filter.acceptsSubcorpora(getSubcorpora(position))) {
+					accepted[count++] = position;
+				}
+			}
+			selected = Arrays.copyOf(accepted, count);
+			// the read document contains no subcorpus elements
+			filter = filter.withoutSubcorpora();
+		}
+		List<InputStream> parts = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() != size) {
+				throw new PepperModuleException("Cannot read TigerXML file '" + file.getAbsolutePath() + "', because it has changed after it has been indexed.");
+			}
+			parts.add(map(channel, 0, headEnd));
+			// segments close to each other share a mapping
+			ByteBuffer mapping = null;
+			long mappingStart = 0;
+			for (int position : selected) {
+				long start = starts[position];
+				long end = ends[position];
+				if ((mapping == null) || (start < mappingStart) || (end - mappingStart > mapping.capacity())) {
+					mappingStart = start;
+					mapping = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Math.max(end - start, MAX_MAPPING)));
+				}
+				ByteBuffer slice = mapping.duplicate();
+				slice.position((int) (start - mappingStart));
+				slice.limit((int) (end - mappingStart));
+				parts.add(new ByteBufferInputStream(slice));
+			}
+			parts.add(map(channel, bodyEnd, size - bodyEnd));
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot read TigerXML file '" + file.getAbsolutePath() + "'.", e);
+		}
+		return new TigerXMLStreamReader(new SequenceInputStream(Collections.enumeration(parts)), file.getAbsolutePath(), null, filter);
+	}
+
+	private InputStream map(FileChannel channel, long start, long length) throws IOException {
+		return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+	}
+
+	/**
+	 * Reads the bytes of a {@link ByteBuffer} from its position to its limit.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int read = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, read);
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	/**
+	 * Scans the raw bytes of a TigerXML file for the tags of &lt;s/&gt; and
+	 * &lt;body/&gt; elements.
+	 */
+	private static class Scanner {
+		private final InputStream in;
+		private final TigerXMLIndex index;
+		private final byte[] buffer = new byte[1 << 16];
+		private int length = 0;
+		private int next = 0;
+		/** offset of the next byte returned by {@link #read()} **/
+		private long offset = 0;
+		private final ByteArrayOutputStream tag = new ByteArrayOutputStream();
+		private String segmentId = null;
+		/** names of the subcorpora containing the current position **/
+		private final LinkedList<String> subcorpora = new LinkedList<>();
+		private final Map<List<String>, Integer> pathIdsByPath = new HashMap<>();
+		/** position of {@link #subcorpora} in the paths, -1 if unknown **/
+		private int pathId = -1;
+		private long segmentStart = -1;
+
+		Scanner(InputStream in, TigerXMLIndex index) {
+			this.in = in;
+			this.index = index;
+		}
+
+		private int read() throws IOException {
+			if (next == length) {
+				length = in.read(buffer);
+				next = 0;
+				if (length <= 0) {
+					length = 0;
+					return -1;
+				}
+			}
+			offset++;
+			return buffer[next++] & 0xFF;
+		}
+
+		void scan() throws IOException {
+			int b;
+			while ((b = read()) >= 0) {
+				if (b == '<') {
+					scanMarkup(offset - 1);
+				}
+			}
+		}
+
+		private void scanMarkup(long start) throws IOException {
+			int b = read();
+			if (b == '!') {
+				b = read();
+				if (b == '-') {
+					skipTo("-->");
+				} else if (b == '[') {
+					skipTo("]]>");
+				} else {
+					skipTo(">");
+				}
+			} else if (b == '?') {
+				skipTo("?>");
+			} else if (b == '/') {
+				String name = readName(read());
+				if (terminator != '>') {
+					skipTo(">");
+				}
+				if (TigerXMLStreamReader.TAG_SEGMENT.equals(name)) {
+					endSegment();
+				} else if (TigerXMLStreamReader.TAG_SUBCORPUS.equals(name)) {
+					subcorpora.pollLast();
+					pathId = -1;
+				} else if (TigerXMLStreamReader.TAG_BODY.equals(name)) {
+					index.bodyEnd = start;
+				}
+			} else if (b >= 0) {
+				tag.reset();
+				String name = readName(b);
+				boolean subcorpus = TigerXMLStreamReader.TAG_SUBCORPUS.equals(name);
+				boolean empty = readTag((subcorpus) || (TigerXMLStreamReader.TAG_SEGMENT.equals(name)));
+				if (TigerXMLStreamReader.TAG_SEGMENT.equals(name)) {
+					segmentStart = start;
+					segmentId = getAttribute(ID, new String(tag.toByteArray(), StandardCharsets.UTF_8));
+					if (empty) {
+						endSegment();
+					}
+				} else if ((subcorpus) && (!empty)) {
+					String tagText = new String(tag.toByteArray(), StandardCharsets.UTF_8);
+					String subcorpusName = getAttribute(NAME, tagText);
+					subcorpora.add((subcorpusName == null) ? getAttribute(ID, tagText) : subcorpusName);
+					pathId = -1;
+				} else if ((TigerXMLStreamReader.TAG_BODY.equals(name)) && (index.headEnd < 0)) {
+					index.headEnd = offset;
+				}
+			}
+		}
+
+		private void endSegment() {
+			if (segmentStart >= 0) {
+				index.addSegment(segmentId, segmentStart, offset, getPathId());
+				segmentStart = -1;
+			}
+		}
+
+		/**
+		 * Returns the position of the current path of subcorpora in
+		 * {@link TigerXMLIndex#paths}, adding the path if it is new.
+		 */
+		private int getPathId() {
+			if (pathId < 0) {
+				List<String> path = Collections.unmodifiableList(new ArrayList<>(subcorpora));
+				Integer id = pathIdsByPath.get(path);
+				if (id == null) {
+					id = index.paths.size();
+					index.paths.add(path);
+					pathIdsByPath.put(path, id);
+				}
+				pathId = id;
+			}
+			return pathId;
+		}
+
+		/** the byte following the name read last **/
+		private int terminator = -1;
+
+		/**
+		 * Reads the name of the tag starting with the given byte and keeps the
+		 * byte following the name in {@link #terminator}.
+		 */
+		private String readName(int b) throws IOException {
+			StringBuilder name = new StringBuilder();
+			while ((b >= 0) && (b != '>') && (b != '/') && (!Character.isWhitespace(b))) {
+				name.append((char) b);
+				b = read();
+			}
+			terminator = b;
+			return name.toString();
+		}
+
+		/**
+		 * Reads the rest of the current start tag, ignoring '&gt;' inside of
+		 * attribute values. If <code>keep</code> is set, the read bytes are
+		 * kept in {@link #tag}. Returns whether the element is empty.
+		 */
+		private boolean readTag(boolean keep) throws IOException {
+			int b = terminator;
+			int previous = 0;
+			int quote = 0;
+			while (b >= 0) {
+				if (quote != 0) {
+					if (b == quote) {
+						quote = 0;
+					}
+				} else if ((b == '"') || (b == '\'')) {
+					quote = b;
+				} else if (b == '>') {
+					return previous == '/';
+				}
+				if (keep) {
+					tag.write(b);
+				}
+				previous = b;
+				b = read();
+			}
+			return false;
+		}
+
+		private void skipTo(String end) throws IOException {
+			int matched = 0;
+			int b;
+			while ((b = read()) >= 0) {
+				if (b == end.charAt(matched)) {
+					matched++;
+					if (matched == end.length()) {
+						return;
+					}
+				} else {
+					matched = (b == end.charAt(0)) ? 1 : 0;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+
+/**
+ * Scans a TigerXML file without creating any model objects and splits its
+ * segments into {@link SegmentRange} objects. How a file is split is
+ * determined by the mode, see {@link Tiger2ImporterProperties#PROP_SPLIT}:
+ * <ul>
+ * <li>{@value Tiger2ImporterProperties#SPLIT_SEGMENTS}: each range contains
+ * the given number of segments</li>
+ * <li>{@value Tiger2ImporterProperties#SPLIT_TOKENS}: each range contains as
+ * many segments as fit into the given number of terminals, but at least one
+ * segment</li>
+ * <li>{@value Tiger2ImporterProperties#SPLIT_SUBCORPUS}: each
+ * &lt;subcorpus/&gt; element becomes a range, a subcorpus containing further
+ * subcorpora becomes a range for each run of segments between them</li>
+ * </ul>
+ * The ranges of a file have unique names, which only contain letters,
+ * digits, '_', '-' and '.', so that they can be part of a Salt id. A
+ * subcorpus range is named by the path of subcorpus names from the outermost
+ * one joined by '_', a repeated name gets the suffix '_2', '_3' and so on.
+ * All other ranges are named by their number.
+ */
+public class TigerXMLPartitioner {
+	public static final String TAG_SUBCORPUS = TigerXMLStreamReader.TAG_SUBCORPUS;
+	public static final String ATT_NAME = TigerXMLStreamReader.ATT_NAME;
+	/** separates the names of nested subcorpora in the name of a range **/
+	public static final String PATH_SEPARATOR = "_";
+
+	private final String mode;
+	private final int size;
+
+	/**
+	 * @param mode
+	 *            one of {@link Tiger2ImporterProperties#SPLIT_SEGMENTS},
+	 *            {@link Tiger2ImporterProperties#SPLIT_TOKENS} or
+	 *            {@link Tiger2ImporterProperties#SPLIT_SUBCORPUS}
+	 * @param size
+	 *            the number of segments or terminals per range, ignored for
+	 *            {@link Tiger2ImporterProperties#SPLIT_SUBCORPUS}
+	 */
+	public TigerXMLPartitioner(String mode, int size) {
+		this.mode = mode;
+		this.size = size;
+	}
+
+	/**
+	 * Computes the ranges the given file is split into. The returned list
+	 * contains no empty ranges, and the ranges are in document order.
+	 */
+	public List<SegmentRange> partition(File file) {
+		List<SegmentRange> ranges = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			XMLStreamReader xmlReader = factory.createXMLStreamReader(in);
+			try {
+				LinkedList<String> subcorpora = new LinkedList<>();
+				int position = 0;
+				int start = 0;
+				int tokens = 0;
+				int segmentTokens = 0;
+				while (xmlReader.hasNext()) {
+					int event = xmlReader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						String name = xmlReader.getLocalName();
+						if (TigerXMLStreamReader.TAG_TERMINAL.equals(name)) {
+							segmentTokens++;
+						} else if (TigerXMLStreamReader.TAG_SEGMENT.equals(name)) {
+							segmentTokens = 0;
+						} else if (TAG_SUBCORPUS.equals(name)) {
+							if (Tiger2ImporterProperties.SPLIT_SUBCORPUS.equals(mode)) {
+								addRange(ranges, names, getPath(subcorpora), start, position);
+								start = position;
+							}
+							String subcorpus = xmlReader.getAttributeValue(null, ATT_NAME);
+							subcorpora.push(subcorpus == null ? xmlReader.getAttributeValue(null, TigerXMLStreamReader.ATT_ID) : subcorpus);
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						String name = xmlReader.getLocalName();
+						if (TigerXMLStreamReader.TAG_SEGMENT.equals(name)) {
+							if (Tiger2ImporterProperties.SPLIT_TOKENS.equals(mode)) {
+								if ((tokens + segmentTokens > size) && (position > start)) {
+									addRange(ranges, names, null, start, position);
+									start = position;
+									tokens = 0;
+								}
+								tokens += segmentTokens;
+							}
+							position++;
+							if ((Tiger2ImporterProperties.SPLIT_SEGMENTS.equals(mode)) && (position - start >= size)) {
+								addRange(ranges, names, null, start, position);
+								start = position;
+							}
+						} else if (TAG_SUBCORPUS.equals(name)) {
+							if (Tiger2ImporterProperties.SPLIT_SUBCORPUS.equals(mode)) {
+								addRange(ranges, names, getPath(subcorpora), start, position);
+								start = position;
+							}
+							subcorpora.pop();
+						}
+					}
+				}
+				addRange(ranges, names, null, start, position);
+			} finally {
+				xmlReader.close();
+			}
+		} catch (IOException | XMLStreamException e) {
+			throw new PepperModuleException("Cannot split TigerXML file '" + file.getAbsolutePath() + "'.", e);
+		}
+		return ranges;
+	}
+
+	/**
+	 * Adds a range to the given list, if it is not empty. If no name is
+	 * given, the range is named by its number. The name is sanitized and made
+	 * unique among the given names of the ranges added before.
+	 */
+	private void addRange(List<SegmentRange> ranges, Set<String> names, String name, int from, int to) {
+		if (to > from) {
+			String base = (name == null) ? String.valueOf(ranges.size() + 1) : sanitize(name);
+			String unique = base;
+			for (int i = 2; !names.add(unique); i++) {
+				unique = base + PATH_SEPARATOR + i;
+			}
+			ranges.add(new SegmentRange(unique, from, to));
+		}
+	}
+
+	/**
+	 * Returns the names of the given subcorpora from the outermost to the
+	 * innermost one joined by {@link #PATH_SEPARATOR}, or <code>null</code>
+	 * if there is no subcorpus.
+	 */
+	private String getPath(LinkedList<String> subcorpora) {
+		if (subcorpora.isEmpty()) {
+			return null;
+		}
+		StringBuilder path = new StringBuilder();
+		Iterator<String> names = subcorpora.descendingIterator();
+		while (names.hasNext()) {
+			String name = names.next();
+			if (path.length() > 0) {
+				path.append(PATH_SEPARATOR);
+			}
+			path.append((name == null) ? TAG_SUBCORPUS : name);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Replaces all characters of the given name, which are not allowed in the
+	 * name of a range, by '_'.
+	 */
+	private static String sanitize(String name) {
+		String sanitized = name.trim().replaceAll("[^A-Za-z0-9_.\\-]", "_");
+		return sanitized.isEmpty() ? "_" : sanitized;
+	}
+}
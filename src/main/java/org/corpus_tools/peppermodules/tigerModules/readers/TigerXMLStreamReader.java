@@ -0,0 +1,482 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.eclipse.emf.common.util.URI;
+
+import de.hu_berlin.german.korpling.tiger2.AnnotatableElement;
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Meta;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
+import de.hu_berlin.german.korpling.tiger2.Terminal;
+import de.hu_berlin.german.korpling.tiger2.Tiger2Factory;
+
+/**
+ * Reads a TigerXML file with a StAX pull parser and returns one
+ * {@link Segment} object per &lt;s/&gt; element. In contrast to the EMF
+ * resource mechanism, the entire &lt;tiger2/&gt; model is never held in
+ * memory: the {@link Corpus} object returned by {@link #getCorpus()} only
+ * contains the meta data of the &lt;head/&gt; element and each segment is
+ * created when {@link #next()} is called, so it can be dropped as soon as it
+ * has been mapped.
+ * <br/>
+ * The created objects follow the mapping of the EMF based TigerXML reader:
+ * each attribute of a &lt;t/&gt; or &lt;nt/&gt; element except <i>id</i> and
+ * <i>word</i> becomes an {@link Annotation}, &lt;edge/&gt; elements become
+ * {@link Edge} objects of type {@value #EDGE_TYPE_PRIMARY} and
+ * &lt;secedge/&gt; elements become {@link Edge} objects of type
+ * {@value #EDGE_TYPE_SECONDARY}, both carrying their label as annotation
+ * {@value #ANNOTATION_EDGE_LABEL}.
+ */
+public class TigerXMLStreamReader implements SegmentReader {
+	/** type of an edge created for a &lt;edge/&gt; element **/
+	public static final String EDGE_TYPE_PRIMARY = "prim";
+	/** type of an edge created for a &lt;secedge/&gt; element **/
+	public static final String EDGE_TYPE_SECONDARY = "sec";
+	/** name of the annotation carrying the label of an edge **/
+	public static final String ANNOTATION_EDGE_LABEL = "label";
+	/**
+	 * The version of the objects this reader creates for a TigerXML file. Must
+	 * be increased whenever they change, for instance the handling of labels
+	 * or edges, so that models cached by an older reader are parsed again.
+	 */
+	public static final int READER_VERSION = 1;
+
+	public static final String TAG_HEAD = "head";
+	public static final String TAG_META = "meta";
+	public static final String TAG_BODY = "body";
+	public static final String TAG_SEGMENT = "s";
+	public static final String TAG_SUBCORPUS = "subcorpus";
+	public static final String TAG_GRAPH = "graph";
+	public static final String TAG_TERMINAL = "t";
+	public static final String TAG_NONTERMINAL = "nt";
+	public static final String TAG_EDGE = "edge";
+	public static final String TAG_SECEDGE = "secedge";
+	public static final String ATT_ID = "id";
+	public static final String ATT_WORD = "word";
+	public static final String ATT_IDREF = "idref";
+	public static final String ATT_LABEL = "label";
+	public static final String ATT_NAME = "name";
+
+	private final String location;
+	private final InputStream inputStream;
+	private final XMLStreamReader xmlReader;
+	private final Corpus corpus;
+	private final AnnotationScheme annotationScheme = new AnnotationScheme();
+	/** if not null, only segments in this range are read **/
+	private final SegmentRange range;
+	/** if not null, only segments accepted by this filter are returned **/
+	private final SegmentFilter filter;
+	/** names of the subcorpora containing the current element **/
+	private final LinkedList<String> subcorpora = new LinkedList<>();
+	/** number of segments in the range rejected by the filter **/
+	private int numberOfFilteredSegments = 0;
+	/** position of the next &lt;s/&gt; element in document order **/
+	private int position = 0;
+	/** the next segment to be returned by {@link #next()} **/
+	private Segment nextSegment = null;
+
+	/**
+	 * Opens the file located at the given uri and reads its &lt;head/&gt;
+	 * element.
+	 */
+	public TigerXMLStreamReader(URI location) {
+		this(new File(location.toFileString()));
+	}
+
+	/**
+	 * Opens the given file and reads its &lt;head/&gt; element.
+	 */
+	public TigerXMLStreamReader(File file) {
+		this(file, null);
+	}
+
+	/**
+	 * Opens the given file and reads its &lt;head/&gt; element. Only the
+	 * segments contained in the passed range are returned, all others are
+	 * skipped without creating any objects for them. If the range is
+	 * <code>null</code>, all segments are returned.
+	 */
+	public TigerXMLStreamReader(File file, SegmentRange range) {
+		this(file, range, null);
+	}
+
+	/**
+	 * Opens the given file and reads its &lt;head/&gt; element. Only the
+	 * segments contained in the passed range and accepted by the passed
+	 * filter are returned. Segments outside of the range or of the accepted
+	 * subcorpora are skipped without creating any objects for them.
+	 */
+	public TigerXMLStreamReader(File file, SegmentRange range, SegmentFilter filter) {
+		this(openFile(file), file.getAbsolutePath(), range, filter);
+	}
+
+	/**
+	 * Reads the TigerXML document provided by the given stream, starting with
+	 * its &lt;head/&gt; element. The stream is closed by {@link #close()}.
+	 * 
+	 * @param location
+	 *            the location of the document used in error messages
+	 * @param range
+	 *            the segments to be returned, or <code>null</code> for all
+	 */
+	public TigerXMLStreamReader(InputStream inputStream, String location, SegmentRange range) {
+		this(inputStream, location, range, null);
+	}
+
+	/**
+	 * Reads the TigerXML document provided by the given stream, starting with
+	 * its &lt;head/&gt; element. The stream is closed by {@link #close()}.
+	 * 
+	 * @param location
+	 *            the location of the document used in error messages
+	 * @param range
+	 *            the segments to be returned, or <code>null</code> for all
+	 * @param filter
+	 *            decides which segments are returned, or <code>null</code> to
+	 *            return all
+	 */
+	public TigerXMLStreamReader(InputStream inputStream, String location, SegmentRange range, SegmentFilter filter) {
+		this.location = location;
+		this.range = range;
+		this.filter = filter;
+		this.inputStream = inputStream;
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try {
+			xmlReader = factory.createXMLStreamReader(inputStream);
+		} catch (XMLStreamException e) {
+			close();
+			throw new PepperModuleException("Cannot read TigerXML file '" + location + "'.", e);
+		}
+		corpus = Tiger2Factory.eINSTANCE.createCorpus();
+		try {
+			readHead();
+			nextSegment = readSegment();
+		} catch (XMLStreamException e) {
+			close();
+			throw new PepperModuleException("Cannot read TigerXML file '" + location + "'.", e);
+		}
+	}
+
+	private static InputStream openFile(File file) {
+		try {
+			return new BufferedInputStream(new FileInputStream(file));
+		} catch (IOException e) {
+			throw new PepperModuleException("Cannot open TigerXML file '" + file.getAbsolutePath() + "'.", e);
+		}
+	}
+
+	@Override
+	public Corpus getCorpus() {
+		return corpus;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextSegment != null;
+	}
+
+	@Override
+	public Segment next() {
+		if (nextSegment == null) {
+			throw new NoSuchElementException();
+		}
+		Segment retVal = nextSegment;
+		try {
+			nextSegment = readSegment();
+		} catch (XMLStreamException e) {
+			throw new PepperModuleException("Cannot read TigerXML file '" + location + "' after segment '" + retVal.getId() + "'.", e);
+		}
+		return retVal;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (xmlReader != null) {
+				xmlReader.close();
+			}
+		} catch (XMLStreamException e) {
+			// nothing to do, the underlying stream is closed below
+		}
+		try {
+			inputStream.close();
+		} catch (IOException e) {
+			// nothing to do, the file is not written
+		}
+	}
+
+	/**
+	 * Returns the number of segments read so far, which have been rejected by
+	 * the {@link SegmentFilter}.
+	 */
+	public int getNumberOfFilteredSegments() {
+		return numberOfFilteredSegments;
+	}
+
+	/**
+	 * Returns the annotation scheme declared in the &lt;head/&gt; element of
+	 * the read file.
+	 */
+	@Override
+	public AnnotationScheme getAnnotationScheme() {
+		return annotationScheme;
+	}
+
+	/**
+	 * Reads everything in front of the &lt;body/&gt; element, maps the
+	 * &lt;meta/&gt; element to a {@link Meta} object and reads the
+	 * {@link AnnotationScheme}.
+	 */
+	private void readHead() throws XMLStreamException {
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				if (TAG_BODY.equals(name)) {
+					return;
+				} else if (TAG_META.equals(name)) {
+					corpus.setMeta(readMeta());
+				} else if (AnnotationScheme.TAG_ANNOTATION.equals(name)) {
+					annotationScheme.read(xmlReader);
+				}
+			}
+		}
+	}
+
+	private Meta readMeta() throws XMLStreamException {
+		Meta meta = Tiger2Factory.eINSTANCE.createMeta();
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				String value = xmlReader.getElementText();
+				if ("name".equals(name)) {
+					meta.setName(value);
+				} else if ("author".equals(name)) {
+					meta.setAuthor(value);
+				} else if ("date".equals(name)) {
+					meta.setDate(value);
+				} else if ("description".equals(name)) {
+					meta.setDescription(value);
+				} else if ("format".equals(name)) {
+					meta.setFormat(value);
+				} else if ("history".equals(name)) {
+					meta.setHistory(value);
+				}
+			} else if ((event == XMLStreamConstants.END_ELEMENT) && (TAG_META.equals(xmlReader.getLocalName()))) {
+				break;
+			}
+		}
+		return meta;
+	}
+
+	/**
+	 * Moves forward to the next &lt;s/&gt; element in {@link #range} accepted
+	 * by the {@link #filter} and reads it. Returns <code>null</code> if there
+	 * is no further segment.
+	 */
+	private Segment readSegment() throws XMLStreamException {
+		while (xmlReader.hasNext()) {
+			if ((range != null) && (position >= range.getTo())) {
+				return null;
+			}
+			int event = xmlReader.next();
+			if ((event == XMLStreamConstants.START_ELEMENT) && (TAG_SUBCORPUS.equals(xmlReader.getLocalName()))) {
+				String name = getAttribute(ATT_NAME);
+				subcorpora.add((name == null) ? getAttribute(ATT_ID) : name);
+			} else if ((event == XMLStreamConstants.END_ELEMENT) && (TAG_SUBCORPUS.equals(xmlReader.getLocalName()))) {
+				subcorpora.pollLast();
+			} else if ((event == XMLStreamConstants.START_ELEMENT) && (TAG_SEGMENT.equals(xmlReader.getLocalName()))) {
+				if ((range != null) && (!range.contains(position))) {
+					position++;
+					skipElement();
+					continue;
+				}
+				position++;
+				if ((filter != null) && (!filter.acceptsSubcorpora(subcorpora))) {
+					numberOfFilteredSegments++;
+					skipElement();
+					continue;
+				}
+				Segment segment = Tiger2Factory.eINSTANCE.createSegment();
+				segment.setId(getAttribute(ATT_ID));
+				while (xmlReader.hasNext()) {
+					event = xmlReader.next();
+					if ((event == XMLStreamConstants.START_ELEMENT) && (TAG_GRAPH.equals(xmlReader.getLocalName()))) {
+						segment.getGraphs().add(readGraph());
+					} else if ((event == XMLStreamConstants.END_ELEMENT) && (TAG_SEGMENT.equals(xmlReader.getLocalName()))) {
+						break;
+					}
+				}
+				if ((filter != null) && (!filter.accepts(segment))) {
+					numberOfFilteredSegments++;
+					continue;
+				}
+				return segment;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Moves forward to the end of the current element, without looking at
+	 * its content.
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while ((depth > 0) && (xmlReader.hasNext())) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Reads a &lt;graph/&gt; element. Since edges may point to nodes, which
+	 * are defined later in the graph, edges are resolved when the end of the
+	 * graph is reached.
+	 */
+	private Graph readGraph() throws XMLStreamException {
+		Graph graph = Tiger2Factory.eINSTANCE.createGraph();
+		Map<String, SyntacticNode> id2node = new HashMap<>();
+		List<Edge> edges = new ArrayList<>();
+		List<String> targetIds = new ArrayList<>();
+		SyntacticNode currentNode = null;
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				if (TAG_TERMINAL.equals(name)) {
+					Terminal terminal = Tiger2Factory.eINSTANCE.createTerminal();
+					readNodeAttributes(terminal);
+					graph.getTerminals().add(terminal);
+					id2node.put(terminal.getId(), terminal);
+					currentNode = terminal;
+				} else if (TAG_NONTERMINAL.equals(name)) {
+					NonTerminal nonTerminal = Tiger2Factory.eINSTANCE.createNonTerminal();
+					readNodeAttributes(nonTerminal);
+					graph.getNonTerminals().add(nonTerminal);
+					id2node.put(nonTerminal.getId(), nonTerminal);
+					currentNode = nonTerminal;
+				} else if ((TAG_EDGE.equals(name)) || (TAG_SECEDGE.equals(name))) {
+					if (currentNode == null) {
+						throw new PepperModuleException("Cannot read TigerXML file '" + location + "', because an <" + name + "/> element occurs outside of a <t/> or <nt/> element.");
+					}
+					Edge edge = Tiger2Factory.eINSTANCE.createEdge();
+					edge.setType(TAG_EDGE.equals(name) ? EDGE_TYPE_PRIMARY : EDGE_TYPE_SECONDARY);
+					edge.setSource(currentNode);
+					String label = getAttribute(ATT_LABEL);
+					if (label != null) {
+						addAnnotation(edge, ANNOTATION_EDGE_LABEL, label);
+					}
+					edges.add(edge);
+					targetIds.add(getAttribute(ATT_IDREF));
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				String name = xmlReader.getLocalName();
+				if ((TAG_TERMINAL.equals(name)) || (TAG_NONTERMINAL.equals(name))) {
+					currentNode = null;
+				} else if (TAG_GRAPH.equals(name)) {
+					break;
+				}
+			}
+		}
+		for (int i = 0; i < edges.size(); i++) {
+			Edge edge = edges.get(i);
+			SyntacticNode target = id2node.get(targetIds.get(i));
+			if (target == null) {
+				throw new PepperModuleException("Cannot read TigerXML file '" + location + "', because the edge starting at node '" + edge.getSource().getId() + "' points to the unknown node '" + targetIds.get(i) + "'.");
+			}
+			edge.setTarget(target);
+			graph.getEdges().add(edge);
+		}
+		return graph;
+	}
+
+	/**
+	 * Sets the id and word of the given node and maps all other attributes
+	 * of the current element to annotations.
+	 */
+	private void readNodeAttributes(SyntacticNode node) {
+		for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+			String name = xmlReader.getAttributeLocalName(i);
+			String value = xmlReader.getAttributeValue(i);
+			if (ATT_ID.equals(name)) {
+				node.setId(value);
+			} else if ((ATT_WORD.equals(name)) && (node instanceof Terminal)) {
+				((Terminal) node).setWord(value);
+			} else {
+				addAnnotation(node, name, value);
+			}
+		}
+	}
+
+	private void addAnnotation(AnnotatableElement element, String name, String value) {
+		Annotation annotation = Tiger2Factory.eINSTANCE.createAnnotation();
+		annotation.setName(name);
+		annotation.setValue(value);
+		element.getAnnotations().add(annotation);
+	}
+
+	/**
+	 * Returns the value of the attribute having the given local name of the
+	 * current element, or <code>null</code>.
+	 */
+	private String getAttribute(String localName) {
+		for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+			if (localName.equals(xmlReader.getAttributeLocalName(i))) {
+				return xmlReader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+}
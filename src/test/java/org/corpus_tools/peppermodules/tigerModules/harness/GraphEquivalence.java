@@ -0,0 +1,164 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
+import org.corpus_tools.salt.core.SMetaAnnotation;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * Compares two imported {@link SDocument} objects and lists the differences.
+ * Two documents are equivalent, if they have the same name and meta
+ * annotations, and their document graphs contain the same nodes and relations
+ * in the same order:
+ * <ul>
+ * <li>nodes are compared by id, class and annotations, this covers tokens,
+ * structures, the spans of segments and the textual data sources, whose text
+ * is compared as well</li>
+ * <li>relations are compared by class, id of source and target (so a
+ * reversed relation is a difference), type and annotations, and textual
+ * relations by their offsets</li>
+ * </ul>
+ * The order matters, since ids are assigned in the order nodes are added, and
+ * an import mode must not change the ids.
+ */
+public class GraphEquivalence {
+	/** default number of differences listed **/
+	public static final int DEFAULT_MAX_DIFFERENCES = 20;
+
+	private int maxDifferences = DEFAULT_MAX_DIFFERENCES;
+
+	/** Returns the maximal number of differences listed by {@link #compare(SDocument, SDocument)}. **/
+	public int getMaxDifferences() {
+		return maxDifferences;
+	}
+
+	/** Sets the maximal number of differences listed by {@link #compare(SDocument, SDocument)}. **/
+	public void setMaxDifferences(int maxDifferences) {
+		this.maxDifferences = maxDifferences;
+	}
+
+	/**
+	 * Returns the differences between the expected and the actual document,
+	 * each of them like <i>expected: ... but was: ...</i>. The list is empty,
+	 * if the documents are equivalent, and contains at most
+	 * {@link #getMaxDifferences()} entries.
+	 */
+	public List<String> compare(SDocument expected, SDocument actual) {
+		List<String> differences = new ArrayList<>();
+		compare("document", describe(expected), describe(actual), differences);
+		compare("meta annotation", describeMetaAnnotations(expected), describeMetaAnnotations(actual), differences);
+		SDocumentGraph expectedGraph = expected.getDocumentGraph();
+		SDocumentGraph actualGraph = actual.getDocumentGraph();
+		if ((expectedGraph == null) || (actualGraph == null)) {
+			if (expectedGraph != actualGraph) {
+				addDifference(differences, "document graph", expectedGraph, actualGraph);
+			}
+			return differences;
+		}
+		compare("node", describeNodes(expectedGraph), describeNodes(actualGraph), differences);
+		compare("relation", describeRelations(expectedGraph), describeRelations(actualGraph), differences);
+		return differences;
+	}
+
+	/**
+	 * Returns whether the given documents are equivalent.
+	 */
+	public boolean isEquivalent(SDocument expected, SDocument actual) {
+		return compare(expected, actual).isEmpty();
+	}
+
+	/**
+	 * Compares both lists element by element and adds a difference for each
+	 * position at which they differ, and one for their sizes.
+	 */
+	private void compare(String kind, List<String> expected, List<String> actual, List<String> differences) {
+		if (expected.size() != actual.size()) {
+			addDifference(differences, "number of " + kind + "s", expected.size(), actual.size());
+		}
+		int size = Math.min(expected.size(), actual.size());
+		for (int i = 0; i < size; i++) {
+			if (!expected.get(i).equals(actual.get(i))) {
+				addDifference(differences, kind + " " + (i + 1), expected.get(i), actual.get(i));
+			}
+		}
+	}
+
+	private void addDifference(List<String> differences, String what, Object expected, Object actual) {
+		if (differences.size() < maxDifferences) {
+			differences.add(what + " expected: <" + expected + "> but was: <" + actual + ">");
+		}
+	}
+
+	private List<String> describe(SDocument document) {
+		List<String> description = new ArrayList<>();
+		description.add(document.getName());
+		return description;
+	}
+
+	private List<String> describeMetaAnnotations(SDocument document) {
+		Set<String> metaAnnotations = new TreeSet<>();
+		for (SMetaAnnotation metaAnnotation : document.getMetaAnnotations()) {
+			metaAnnotations.add(metaAnnotation.getQName() + "=" + metaAnnotation.getValue());
+		}
+		return new ArrayList<>(metaAnnotations);
+	}
+
+	private List<String> describeNodes(SDocumentGraph graph) {
+		List<String> description = new ArrayList<>();
+		for (SNode node : graph.getNodes()) {
+			String text = "";
+			if (node instanceof STextualDS) {
+				text = " '" + ((STextualDS) node).getText() + "'";
+			}
+			description.add(node.getClass().getSimpleName() + " " + node.getId() + text + " " + describe(node));
+		}
+		return description;
+	}
+
+	private List<String> describeRelations(SDocumentGraph graph) {
+		List<String> description = new ArrayList<>();
+		for (SRelation<?, ?> relation : graph.getRelations()) {
+			String offsets = "";
+			if (relation instanceof STextualRelation) {
+				offsets = " [" + ((STextualRelation) relation).getStart() + ", " + ((STextualRelation) relation).getEnd() + "]";
+			}
+			description.add(relation.getClass().getSimpleName() + " " + relation.getSource().getId() + " -> " + relation.getTarget().getId() + " " + relation.getType() + offsets + " " + describe(relation));
+		}
+		return description;
+	}
+
+	private Set<String> describe(SAnnotationContainer container) {
+		Set<String> annotations = new TreeSet<>();
+		for (SAnnotation annotation : container.getAnnotations()) {
+			annotations.add(annotation.getQName() + "=" + annotation.getValue());
+		}
+		return annotations;
+	}
+}
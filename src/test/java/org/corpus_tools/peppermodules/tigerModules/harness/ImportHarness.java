@@ -0,0 +1,243 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.harness;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+
+/**
+ * Imports files with several {@link ImportMode} objects, checks that each mode
+ * produces the same document as a reference mode via
+ * {@link GraphEquivalence}, and measures the throughput of each mode.
+ * <br/>
+ * A mode imports a file {@link #getWarmups()} times without measuring, to
+ * let the JIT compile the mapping, and then {@link #getRuns()} times. Only
+ * {@link Tiger22SaltMapper#mapSDocument()} is timed, and the document of the
+ * last run is compared. The numbers are meant to compare modes on the same
+ * machine, for exact measurements the JMH benchmarks are used.
+ */
+public class ImportHarness {
+	private final ImportMode reference;
+	private final List<ImportMode> modes = new ArrayList<>();
+	private final GraphEquivalence equivalence = new GraphEquivalence();
+	private int warmups = 1;
+	private int runs = 3;
+
+	/**
+	 * @param reference
+	 *            the mode producing the expected documents, usually
+	 *            {@link ImportMode#model()}
+	 */
+	public ImportHarness(ImportMode reference) {
+		this.reference = reference;
+	}
+
+	/** Returns the mode producing the expected documents. **/
+	public ImportMode getReference() {
+		return reference;
+	}
+
+	/** Adds a mode, whose documents are compared with the ones of the reference. **/
+	public void addMode(ImportMode mode) {
+		modes.add(mode);
+	}
+
+	/** Returns the modes compared with the reference. **/
+	public List<ImportMode> getModes() {
+		return modes;
+	}
+
+	/** Returns the comparison used to check the documents. **/
+	public GraphEquivalence getEquivalence() {
+		return equivalence;
+	}
+
+	/** Returns the number of imports per mode and file, which are not measured. **/
+	public int getWarmups() {
+		return warmups;
+	}
+
+	public void setWarmups(int warmups) {
+		this.warmups = warmups;
+	}
+
+	/** Returns the number of measured imports per mode and file, at least 1. **/
+	public int getRuns() {
+		return runs;
+	}
+
+	public void setRuns(int runs) {
+		if (runs < 1) {
+			throw new IllegalArgumentException("At least one run is needed, but was " + runs + ".");
+		}
+		this.runs = runs;
+	}
+
+	/**
+	 * Imports the given file with the reference and all other modes. Returns
+	 * the result of each mode, the reference first, in the order the modes
+	 * have been added.
+	 */
+	public Map<ImportMode, Result> run(File file) {
+		Map<ImportMode, Result> results = new LinkedHashMap<>();
+		Result expected = run(reference, file);
+		results.put(reference, expected);
+		for (ImportMode mode : modes) {
+			Result actual = run(mode, file);
+			actual.differences = equivalence.compare(expected.document, actual.document);
+			results.put(mode, actual);
+		}
+		return results;
+	}
+
+	/**
+	 * Imports the given file with the given mode, without comparing the
+	 * document.
+	 */
+	public Result run(ImportMode mode, File file) {
+		for (int i = 0; i < warmups; i++) {
+			importFile(mode, file);
+		}
+		Result result = new Result(mode, file);
+		for (int i = 0; i < runs; i++) {
+			Tiger22SaltMapper mapper = mode.createMapper(file);
+			long startTime = System.nanoTime();
+			importFile(mapper);
+			result.time += System.nanoTime() - startTime;
+			result.runs++;
+			result.document = mapper.getDocument();
+		}
+		SDocumentGraph graph = result.document.getDocumentGraph();
+		result.tokens = graph.getTokens().size();
+		result.nodes = graph.getNodes().size();
+		result.relations = graph.getRelations().size();
+		return result;
+	}
+
+	private void importFile(ImportMode mode, File file) {
+		importFile(mode.createMapper(file));
+	}
+
+	private void importFile(Tiger22SaltMapper mapper) {
+		DOCUMENT_STATUS status = mapper.mapSDocument();
+		if (!DOCUMENT_STATUS.COMPLETED.equals(status)) {
+			throw new PepperModuleException("Cannot import file '" + mapper.getResourceURI() + "', the mapping ended with " + status + ".");
+		}
+	}
+
+	/**
+	 * Returns a table of the given results, one line per mode with its
+	 * throughput and whether its document equals the one of the reference.
+	 */
+	public static String getReport(Map<ImportMode, Result> results) {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-20s %10s %12s %12s %s%n", "mode", "ms/import", "docs/s", "tokens/s", "equivalent"));
+		for (Result result : results.values()) {
+			report.append(String.format("%-20s %10.1f %12.1f %12.0f %s%n", result.getMode().getName(), result.getTimePerImport() / 1e6, result.getDocumentsPerSecond(), result.getTokensPerSecond(), (result.getDifferences() == null) ? "reference" : (result.isEquivalent() ? "yes" : "no, " + result.getDifferences().size() + " differences")));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * The outcome of importing a file with one mode.
+	 */
+	public static class Result {
+		private final ImportMode mode;
+		private final File file;
+		private int runs = 0;
+		private long time = 0;
+		private int tokens = 0;
+		private int nodes = 0;
+		private int relations = 0;
+		private SDocument document = null;
+		private List<String> differences = null;
+
+		Result(ImportMode mode, File file) {
+			this.mode = mode;
+			this.file = file;
+		}
+
+		public ImportMode getMode() {
+			return mode;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		/** Returns the document of the last run. **/
+		public SDocument getDocument() {
+			return document;
+		}
+
+		/**
+		 * Returns the differences to the document of the reference, or
+		 * <code>null</code> for the reference itself.
+		 */
+		public List<String> getDifferences() {
+			return differences;
+		}
+
+		/** Returns whether the document equals the one of the reference. **/
+		public boolean isEquivalent() {
+			return (differences == null) || (differences.isEmpty());
+		}
+
+		/** Returns the number of tokens in the document. **/
+		public int getTokens() {
+			return tokens;
+		}
+
+		/** Returns the number of nodes in the document graph. **/
+		public int getNodes() {
+			return nodes;
+		}
+
+		/** Returns the number of relations in the document graph. **/
+		public int getRelations() {
+			return relations;
+		}
+
+		/** Returns the average time of one import in nanoseconds. **/
+		public double getTimePerImport() {
+			return (double) time / runs;
+		}
+
+		public double getDocumentsPerSecond() {
+			return (time == 0) ? 0 : runs * 1e9 / time;
+		}
+
+		public double getTokensPerSecond() {
+			return getDocumentsPerSecond() * tokens;
+		}
+
+		@Override
+		public String toString() {
+			return mode.getName() + " " + file.getName() + ": " + String.format("%.1f", getTimePerImport() / 1e6) + " ms/import, " + String.format("%.0f", getTokensPerSecond()) + " tokens/s" + (isEquivalent() ? "" : ", differences: " + differences);
+		}
+	}
+}
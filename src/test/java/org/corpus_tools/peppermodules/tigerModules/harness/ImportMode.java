@@ -0,0 +1,156 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.harness;
+
+import java.io.File;
+
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Cache;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ResourceLoader;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.salt.SaltFactory;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * A way of importing a file with a {@link Tiger22SaltMapper}, for instance
+ * loading the entire &lt;tiger2/&gt; model or reading it segment by segment.
+ * The predefined modes correspond to the code paths of the importer, further
+ * modes are created by overriding {@link #configure(Tiger22SaltMapper)}, for
+ * instance to set other properties.
+ * <br/>
+ * Each call of {@link #createMapper(File)} returns a new mapper having a new
+ * document, but the resource loader and the cache are shared by all mappers
+ * of a mode, like they are shared by all mappers of an importer.
+ */
+public class ImportMode {
+	private final String name;
+	private final boolean loadModel;
+	private final boolean parallelSegments;
+	private final Tiger2Cache cache;
+	private final Tiger2ResourceLoader resourceLoader = new Tiger2ResourceLoader();
+
+	/**
+	 * @param name
+	 *            the name of the mode used in reports
+	 * @param loadModel
+	 *            whether the entire &lt;tiger2/&gt; model is loaded, otherwise
+	 *            the file is read segment by segment
+	 * @param parallelSegments
+	 *            whether the segments are mapped in parallel, see
+	 *            {@link Tiger2ImporterProperties#PROP_PARALLEL_SEGMENTS}
+	 * @param cache
+	 *            the cache of parsed models, or <code>null</code>
+	 */
+	public ImportMode(String name, boolean loadModel, boolean parallelSegments, Tiger2Cache cache) {
+		this.name = name;
+		this.loadModel = loadModel;
+		this.parallelSegments = parallelSegments;
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the mode mapping the entire &lt;tiger2/&gt; model one segment
+	 * after another, which is the default of the importer and the reference
+	 * for all other modes.
+	 */
+	public static ImportMode model() {
+		return new ImportMode("model", true, false, null);
+	}
+
+	/** Returns the mode mapping the entire model with parallel segments. **/
+	public static ImportMode parallel() {
+		return new ImportMode("parallel", true, true, null);
+	}
+
+	/**
+	 * Returns the mode reading a TigerXML file segment by segment, see
+	 * {@link Tiger2ImporterProperties#PROP_STREAMING}.
+	 */
+	public static ImportMode streaming() {
+		return new ImportMode("streaming", false, false, null);
+	}
+
+	/** Returns the mode streaming a file and mapping its segments in parallel. **/
+	public static ImportMode streamingParallel() {
+		return new ImportMode("streaming+parallel", false, true, null);
+	}
+
+	/**
+	 * Returns the mode parsing the segments of a TigerXML file one by one from
+	 * their byte ranges, see {@link Tiger2ImporterProperties#PROP_LAZY}. The
+	 * offset index is saved next to the file.
+	 */
+	public static ImportMode lazy() {
+		return new ImportMode("lazy", false, false, null) {
+			@Override
+			protected void configure(Tiger22SaltMapper mapper) {
+				super.configure(mapper);
+				mapper.setLazy(true);
+			}
+		};
+	}
+
+	/**
+	 * Returns the mode using a cache of parsed models in the given directory,
+	 * see {@link Tiger2ImporterProperties#PROP_CACHE}. The first import of a
+	 * file fills the cache, all further imports read the cache entry.
+	 */
+	public static ImportMode cached(File directory) {
+		return new ImportMode("cached", true, false, new Tiger2Cache(directory, Long.MAX_VALUE));
+	}
+
+	/** Returns the name of the mode used in reports. **/
+	public String getName() {
+		return name;
+	}
+
+	/** Returns the cache of parsed models, or <code>null</code>. **/
+	public Tiger2Cache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Creates a mapper importing the given file into a new document.
+	 */
+	public Tiger22SaltMapper createMapper(File file) {
+		Tiger22SaltMapper mapper = new Tiger22SaltMapper();
+		mapper.setDocument(SaltFactory.createSDocument());
+		mapper.setProperties(new Tiger2ImporterProperties());
+		mapper.setResourceURI(URI.createFileURI(file.getAbsolutePath()));
+		configure(mapper);
+		return mapper;
+	}
+
+	/**
+	 * Configures the given mapper for this mode. Subclasses may override this
+	 * method to set further properties.
+	 */
+	protected void configure(Tiger22SaltMapper mapper) {
+		if (loadModel) {
+			mapper.setResourceLoader(resourceLoader);
+		}
+		mapper.setCache(cache);
+		((PepperModuleProperty<Boolean>) mapper.getProps().getProperty(Tiger2ImporterProperties.PROP_PARALLEL_SEGMENTS)).setValue(parallelSegments);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
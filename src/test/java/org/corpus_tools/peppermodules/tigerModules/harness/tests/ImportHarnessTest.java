@@ -0,0 +1,181 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.harness.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.harness.ImportHarness;
+import org.corpus_tools.peppermodules.tigerModules.harness.ImportHarness.Result;
+import org.corpus_tools.peppermodules.tigerModules.harness.ImportMode;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.samples.SyntheticTreebank;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ImportHarnessTest {
+	private static final Logger log = LoggerFactory.getLogger(ImportHarnessTest.class);
+
+	public static final File SAMPLE = new File("./src/test/resources/sample.tigerxml");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ImportHarness fixture = null;
+
+	public ImportHarness getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(ImportHarness fixture) {
+		this.fixture = fixture;
+	}
+
+	/** a copy of the sample, so that an index can be saved next to it **/
+	private File sample = null;
+
+	@Before
+	public void setUp() throws IOException {
+		sample = folder.newFile("sample.tigerxml");
+		Files.copy(SAMPLE.toPath(), sample.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		setFixture(new ImportHarness(ImportMode.model()));
+		getFixture().addMode(ImportMode.streaming());
+		getFixture().addMode(ImportMode.parallel());
+		getFixture().addMode(ImportMode.streamingParallel());
+		getFixture().addMode(ImportMode.cached(folder.newFolder("cache")));
+		getFixture().addMode(ImportMode.lazy());
+	}
+
+	/**
+	 * Tests that all modes import the sample file to the same document as
+	 * loading the entire model.
+	 */
+	@Test
+	public void testSampleEquivalent() {
+		assertEquivalent(getFixture().run(sample));
+		// the first import fills the cache, the others read it
+		assertEquals(1, getFixture().getModes().get(3).getCache().getNumberOfMisses());
+		assertTrue(getFixture().getModes().get(3).getCache().getNumberOfHits() > 0);
+	}
+
+	/**
+	 * Tests that all modes import a synthetic treebank having secondary edges
+	 * and pathological segments to the same document, and reports the
+	 * throughput of each mode.
+	 */
+	@Test
+	public void testSyntheticEquivalent() throws IOException {
+		SyntheticTreebank treebank = new SyntheticTreebank();
+		treebank.setSegments(500);
+		treebank.setSecondaryEdges(2);
+		treebank.setWideNodeInterval(50);
+		treebank.setUnaryChainInterval(70);
+		File file = folder.newFile("synthetic.tigerxml");
+		treebank.writeTigerXML(file);
+
+		Map<ImportMode, Result> results = getFixture().run(file);
+		log.info("Throughput of importing '{}':\n{}", file.getName(), ImportHarness.getReport(results));
+		assertEquivalent(results);
+	}
+
+	/**
+	 * Tests that the spans created for segments are the same, whether the
+	 * model is loaded or streamed.
+	 */
+	@Test
+	public void testSpansEquivalent() {
+		ImportHarness harness = new ImportHarness(new SpanMode("spans", true));
+		harness.addMode(new SpanMode("spans+streaming", false));
+		harness.addMode(new SpanMode("spans+parallel", true) {
+			@Override
+			protected void configure(Tiger22SaltMapper mapper) {
+				super.configure(mapper);
+				((PepperModuleProperty<Boolean>) mapper.getProps().getProperty(Tiger2ImporterProperties.PROP_PARALLEL_SEGMENTS)).setValue(true);
+			}
+		});
+		harness.setRuns(1);
+
+		Map<ImportMode, Result> results = harness.run(sample);
+		assertEquivalent(results);
+		assertFalse(results.get(harness.getReference()).getDocument().getDocumentGraph().getSpans().isEmpty());
+	}
+
+	/**
+	 * Tests that a mode changing the graph is reported with the differing
+	 * annotations.
+	 */
+	@Test
+	public void testDifferencesReported() {
+		ImportHarness harness = new ImportHarness(ImportMode.model());
+		ImportMode renaming = new ImportMode("renaming", false, false, null) {
+			@Override
+			protected void configure(Tiger22SaltMapper mapper) {
+				super.configure(mapper);
+				((PepperModuleProperty<String>) mapper.getProps().getProperty(Tiger2ImporterProperties.PROP_RENAME_ANNOTATION_NAME)).setValue("pos=tag");
+			}
+		};
+		harness.addMode(renaming);
+		harness.getEquivalence().setMaxDifferences(3);
+
+		List<String> differences = harness.run(sample).get(renaming).getDifferences();
+		assertEquals(3, differences.size());
+		assertTrue(differences.get(0).contains("pos="));
+		assertTrue(differences.get(0).contains("tag="));
+	}
+
+	private void assertEquivalent(Map<ImportMode, Result> results) {
+		for (Result result : results.values()) {
+			assertEquivalent(result);
+		}
+	}
+
+	private void assertEquivalent(Result result) {
+		assertEquals(result.getMode().getName(), Collections.<String> emptyList(), (result.getDifferences() == null) ? Collections.<String> emptyList() : result.getDifferences());
+	}
+
+	/**
+	 * Creates a span for each segment, see
+	 * {@link Tiger2ImporterProperties#PROP_CREATE_SSPAN}.
+	 */
+	private static class SpanMode extends ImportMode {
+		SpanMode(String name, boolean loadModel) {
+			super(name, loadModel, false, null);
+		}
+
+		@Override
+		protected void configure(Tiger22SaltMapper mapper) {
+			super.configure(mapper);
+			((PepperModuleProperty<Boolean>) mapper.getProps().getProperty(Tiger2ImporterProperties.PROP_CREATE_SSPAN)).setValue(true);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.mappers.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ExporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Salt2TigerXMLMapper;
+import org.corpus_tools.peppermodules.tigerModules.mappers.SaltSegmentation;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SStructure;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class Salt2TigerXMLMapperTest {
+	public static final File SAMPLE = new File("./src/test/resources/sample.tigerxml");
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private Salt2TigerXMLMapper fixture = null;
+
+	public Salt2TigerXMLMapper getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(Salt2TigerXMLMapper fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new Salt2TigerXMLMapper());
+		getFixture().setProperties(new Tiger2ExporterProperties());
+		getFixture().setDocument(importDocument(SAMPLE, new Tiger2ImporterProperties()));
+	}
+
+	/**
+	 * Tests that exporting an imported document and importing it again
+	 * results in the same text, nodes, relations and annotations.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		File exported = new File(tmpFolder.getRoot(), "sample.tigerxml");
+		getFixture().setResourceURI(URI.createFileURI(exported.getAbsolutePath()));
+		assertEquals(DOCUMENT_STATUS.COMPLETED, getFixture().mapSDocument());
+		assertTrue(getFixture().getMappingDiagnostics().isEmpty());
+
+		SDocumentGraph original = getFixture().getDocument().getDocumentGraph();
+		SDocumentGraph reimported = importDocument(exported, new Tiger2ImporterProperties()).getDocumentGraph();
+		assertEquals(original.getTextualDSs().get(0).getText(), reimported.getTextualDSs().get(0).getText());
+		assertEquals(original.getTokens().size(), reimported.getTokens().size());
+		assertEquals(original.getStructures().size(), reimported.getStructures().size());
+		assertEquals(original.getDominanceRelations().size(), reimported.getDominanceRelations().size());
+		assertEquals(original.getPointingRelations().size(), reimported.getPointingRelations().size());
+		assertEquals(describe(original), describe(reimported));
+	}
+
+	/**
+	 * Tests that renamed edge types and annotation names are written with
+	 * their original names, when the exporter gets the renaming tables of the
+	 * import.
+	 */
+	@Test
+	public void testReverseRenaming() throws IOException {
+		Tiger2ImporterProperties importProps = new Tiger2ImporterProperties();
+		((PepperModuleProperty<String>) importProps.getProperty(Tiger2ImporterProperties.PROP_RENAME_EDGE_TYPE)).setValue("prim=edge");
+		((PepperModuleProperty<String>) importProps.getProperty(Tiger2ImporterProperties.PROP_RENAME_ANNOTATION_NAME)).setValue("pos=tag");
+		getFixture().setDocument(importDocument(SAMPLE, importProps));
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ExporterProperties.PROP_RENAME_EDGE_TYPE)).setValue("prim=edge");
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ExporterProperties.PROP_RENAME_ANNOTATION_NAME)).setValue("pos=tag");
+		File exported = new File(tmpFolder.getRoot(), "renamed.tigerxml");
+		getFixture().setResourceURI(URI.createFileURI(exported.getAbsolutePath()));
+		getFixture().mapSDocument();
+
+		String xml = new String(Files.readAllBytes(exported.toPath()), StandardCharsets.UTF_8);
+		assertTrue(xml.contains(" pos=\""));
+		assertTrue(!xml.contains(" tag=\""));
+		assertTrue(xml.contains("<edge "));
+		SDocumentGraph reimported = importDocument(exported, new Tiger2ImporterProperties()).getDocumentGraph();
+		assertEquals(getFixture().getDocument().getDocumentGraph().getDominanceRelations().size(), reimported.getDominanceRelations().size());
+	}
+
+	/**
+	 * Tests that the segments of the sample are found again, also when no
+	 * span has been created for them.
+	 */
+	@Test
+	public void testSegmentation() {
+		Tiger2ImporterProperties importProps = new Tiger2ImporterProperties();
+		((PepperModuleProperty<Boolean>) importProps.getProperty(Tiger2ImporterProperties.PROP_CREATE_SSPAN)).setValue(true);
+		SaltSegmentation withSpans = new SaltSegmentation(importDocument(SAMPLE, importProps).getDocumentGraph());
+		SaltSegmentation withoutSpans = new SaltSegmentation(getFixture().getDocument().getDocumentGraph());
+
+		assertEquals(withSpans.getNumberOfSegments(), withoutSpans.getNumberOfSegments());
+		assertEquals(getFixture().getDocument().getDocumentGraph().getTokens().size(), withoutSpans.getNumberOfTokens());
+		int structures = 0;
+		for (int segment = 0; segment < withoutSpans.getNumberOfSegments(); segment++) {
+			assertEquals(withSpans.getFrom(segment), withoutSpans.getFrom(segment));
+			structures += withoutSpans.getStructures(segment).size();
+		}
+		assertEquals(getFixture().getDocument().getDocumentGraph().getStructures().size(), structures);
+	}
+
+	/**
+	 * Imports the given TigerXML file segment by segment.
+	 */
+	private SDocument importDocument(File file, Tiger2ImporterProperties props) {
+		Tiger22SaltMapper mapper = new Tiger22SaltMapper();
+		mapper.setDocument(SaltFactory.createSDocument());
+		mapper.setProperties(props);
+		mapper.setResourceURI(URI.createFileURI(file.getAbsolutePath()));
+		mapper.mapSDocument();
+		return mapper.getDocument();
+	}
+
+	/**
+	 * Returns a sorted list describing tokens, structures and relations by
+	 * their text and annotations, independent of their ids.
+	 */
+	private List<String> describe(SDocumentGraph graph) {
+		List<String> description = new ArrayList<>();
+		for (SToken sToken : graph.getTokens()) {
+			description.add("token " + graph.getText(sToken) + " " + describe(sToken));
+		}
+		for (SStructure sStructure : graph.getStructures()) {
+			description.add("structure " + describe(sStructure));
+		}
+		for (SRelation<?, ?> relation : graph.getRelations()) {
+			if (relation.getSource() instanceof SNode) {
+				description.add(relation.getClass().getSimpleName() + " " + relation.getType() + " " + describe(relation));
+			}
+		}
+		Collections.sort(description);
+		return description;
+	}
+
+	private Set<String> describe(SAnnotationContainer container) {
+		Set<String> annotations = new TreeSet<>();
+		for (SAnnotation annotation : container.getAnnotations()) {
+			annotations.add(annotation.getQName() + "=" + annotation.getValue());
+		}
+		return annotations;
+	}
+}
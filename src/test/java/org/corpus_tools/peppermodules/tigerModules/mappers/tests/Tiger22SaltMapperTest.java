@@ -18,21 +18,53 @@
 package org.corpus_tools.peppermodules.tigerModules.mappers.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.management.ObjectName;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
 import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Metrics;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ResourceLoader;
+import org.corpus_tools.peppermodules.tigerModules.mappers.AnnotationInterner;
+import org.corpus_tools.peppermodules.tigerModules.mappers.AnnotationValidation;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Count;
+import org.corpus_tools.peppermodules.tigerModules.mappers.DocumentMetrics.Phase;
+import org.corpus_tools.peppermodules.tigerModules.mappers.MappingDiagnostics;
 import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLIndex;
+import org.corpus_tools.salt.SALT_TYPE;
 import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
 import org.corpus_tools.salt.common.SDominanceRelation;
+import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
 import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
 import org.junit.Before;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import de.hu_berlin.german.korpling.tiger2.Edge;
 import de.hu_berlin.german.korpling.tiger2.Graph;
@@ -41,6 +73,8 @@ import de.hu_berlin.german.korpling.tiger2.Tiger2Factory;
 import de.hu_berlin.german.korpling.tiger2.samples.Tiger2Sample;
 
 public class Tiger22SaltMapperTest {
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
 
 	private Tiger22SaltMapper fixture = null;
 
@@ -132,4 +166,280 @@ public class Tiger22SaltMapperTest {
 		}
 
 	}
+
+	/**
+	 * Tests that a TigerXML file is mapped segment by segment, when no
+	 * corpus but a resource is given.
+	 */
+	@Test
+	public void testMapStreamed() {
+		getFixture().setCorpus(null);
+		getFixture().setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+
+		getFixture().mapSDocument();
+
+		SDocumentGraph graph = getFixture().getDocument().getDocumentGraph();
+		assertEquals("sample", getFixture().getDocument().getName());
+		assertEquals("Der Hund bellt . Er sieht die kleine Katze Ja", graph.getTextualDSs().get(0).getText());
+		assertEquals(10, graph.getTokens().size());
+		assertEquals(7, graph.getStructures().size());
+		assertEquals(13, graph.getDominanceRelations().size());
+		assertEquals(1, graph.getPointingRelations().size());
+	}
+
+	/**
+	 * Tests that annotations and edges, which are not projected, are dropped
+	 * without affecting the remaining graph.
+	 */
+	@Test
+	public void testMapProjected() {
+		getFixture().setCorpus(null);
+		getFixture().setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ImporterProperties.PROP_ANNOTATION_INCLUDE)).setValue("pos, cat, lemma");
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ImporterProperties.PROP_ANNOTATION_EXCLUDE)).setValue("lemma");
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ImporterProperties.PROP_EDGE_EXCLUDE)).setValue("sec");
+
+		getFixture().mapSDocument();
+
+		SDocumentGraph graph = getFixture().getDocument().getDocumentGraph();
+		assertEquals(10, graph.getTokens().size());
+		assertEquals(13, graph.getDominanceRelations().size());
+		assertEquals(0, graph.getPointingRelations().size());
+		for (SToken sToken : graph.getTokens()) {
+			assertNotNull(sToken.getAnnotation("pos"));
+			assertNull(sToken.getAnnotation("lemma"));
+		}
+		for (SDominanceRelation sDomRel : graph.getDominanceRelations()) {
+			assertTrue(sDomRel.getAnnotations().isEmpty());
+		}
+		assertNotNull(graph.getStructures().get(0).getAnnotation("cat"));
+	}
+
+	/**
+	 * Tests that the metrics of a document count the created objects and
+	 * are added to the shared {@link Tiger2Metrics}.
+	 */
+	@Test
+	public void testMetrics() {
+		Tiger2Metrics metrics = new Tiger2Metrics();
+		getFixture().setMetrics(metrics);
+		getFixture().setCorpus(null);
+		getFixture().setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+		getFixture().mapSDocument();
+
+		SDocumentGraph graph = getFixture().getDocument().getDocumentGraph();
+		DocumentMetrics documentMetrics = getFixture().getDocumentMetrics();
+		assertNotNull(documentMetrics);
+		assertEquals(graph.getTokens().size(), documentMetrics.get(Count.TOKENS));
+		assertEquals(graph.getStructures().size(), documentMetrics.get(Count.STRUCTURES));
+		assertEquals(graph.getDominanceRelations().size() + graph.getPointingRelations().size(), documentMetrics.get(Count.RELATIONS));
+		assertTrue(documentMetrics.get(Count.SEGMENTS) > 0);
+		assertTrue(documentMetrics.get(Count.ANNOTATIONS) > 0);
+		assertTrue(documentMetrics.getTotalTime() >= documentMetrics.getTime(Phase.LOAD));
+
+		assertEquals(1, metrics.getNumberOfDocuments());
+		assertEquals(Long.valueOf(graph.getTokens().size()), metrics.getCounts().get("tokens"));
+		assertTrue(metrics.getReport().contains("\"documents\": 1"));
+	}
+
+	/**
+	 * Tests that metrics are visible via JMX between {@link Tiger2Metrics#register(String)}
+	 * and {@link Tiger2Metrics#unregister()}.
+	 */
+	@Test
+	public void testMetricsRegistration() {
+		Tiger2Metrics metrics = new Tiger2Metrics();
+		metrics.register("testMetricsRegistration");
+		ObjectName objectName = metrics.getObjectName();
+		assertNotNull(objectName);
+		assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+
+		metrics.unregister();
+		assertNull(metrics.getObjectName());
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+	}
+
+	/**
+	 * Tests that mapping the segments in parallel results in the same document
+	 * graph as mapping them one after another.
+	 */
+	@Test
+	public void testMapParallel() {
+		getFixture().setCorpus(null);
+		getFixture().setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+		getFixture().mapSDocument();
+
+		Tiger22SaltMapper parallel = new Tiger22SaltMapper();
+		parallel.setDocument(SaltFactory.createSDocument());
+		parallel.setProperties(new Tiger2ImporterProperties());
+		((PepperModuleProperty<Boolean>) parallel.getProps().getProperty(Tiger2ImporterProperties.PROP_PARALLEL_SEGMENTS)).setValue(true);
+		parallel.setResourceURI(getFixture().getResourceURI());
+		parallel.mapSDocument();
+
+		assertEquals(describe(getFixture().getDocument().getDocumentGraph()), describe(parallel.getDocument().getDocumentGraph()));
+		assertEquals(getFixture().getDocument().getDocumentGraph().getTextualDSs().get(0).getText(), parallel.getDocument().getDocumentGraph().getTextualDSs().get(0).getText());
+	}
+
+	/**
+	 * Tests that parsing the segments one by one from their byte ranges
+	 * results in the same document graph as mapping the EMF model loaded by
+	 * a {@link Tiger2ResourceLoader}, also when the segments are mapped in
+	 * parallel.
+	 */
+	@Test
+	public void testMapLazy() throws IOException {
+		File file = tmpFolder.newFile("sample.tigerxml");
+		Files.copy(new File("./src/test/resources/sample.tigerxml").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		getFixture().setCorpus(null);
+		getFixture().setResourceLoader(new Tiger2ResourceLoader());
+		getFixture().setResourceURI(URI.createFileURI(file.getAbsolutePath()));
+		getFixture().mapSDocument();
+
+		for (boolean parallelSegments : new boolean[] { false, true }) {
+			Tiger22SaltMapper lazy = new Tiger22SaltMapper();
+			lazy.setDocument(SaltFactory.createSDocument());
+			lazy.setProperties(new Tiger2ImporterProperties());
+			((PepperModuleProperty<Boolean>) lazy.getProps().getProperty(Tiger2ImporterProperties.PROP_PARALLEL_SEGMENTS)).setValue(parallelSegments);
+			lazy.setLazy(true);
+			lazy.setResourceURI(getFixture().getResourceURI());
+			lazy.mapSDocument();
+
+			assertEquals(getFixture().getDocument().getName(), lazy.getDocument().getName());
+			assertEquals(describe(getFixture().getDocument().getDocumentGraph()), describe(lazy.getDocument().getDocumentGraph()));
+			assertEquals(getFixture().getDocument().getDocumentGraph().getTextualDSs().get(0).getText(), lazy.getDocument().getDocumentGraph().getTextualDSs().get(0).getText());
+		}
+		assertTrue(TigerXMLIndex.getIndexFile(file).isFile());
+	}
+
+	/**
+	 * Tests that the lookups for the entire document are only created, when
+	 * they are requested.
+	 */
+	@Test
+	public void testKeepLookups() {
+		final List<Map<?, ?>> lookups = new ArrayList<>();
+		Tiger22SaltMapper mapper = new Tiger22SaltMapper() {
+			@Override
+			protected void releaseCorpus() {
+				lookups.add(synNode2sNode);
+				lookups.add(edge2sRelation);
+				super.releaseCorpus();
+			}
+		};
+		mapper.setProperties(new Tiger2ImporterProperties());
+		mapper.setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+		mapper.setDocument(SaltFactory.createSDocument());
+		mapper.mapSDocument();
+		assertNull(lookups.get(0));
+		assertNull(lookups.get(1));
+
+		lookups.clear();
+		mapper.setKeepLookups(true);
+		mapper.setDocument(SaltFactory.createSDocument());
+		mapper.mapSDocument();
+		assertEquals(17, lookups.get(0).size());
+		assertEquals(14, lookups.get(1).size());
+	}
+
+	/**
+	 * Tests that documents mapped with the same {@link AnnotationInterner}
+	 * share the names and values of their annotations.
+	 */
+	@Test
+	public void testSharedAnnotationInterner() {
+		AnnotationInterner interner = new AnnotationInterner();
+		SDocumentGraph[] graphs = new SDocumentGraph[2];
+		for (int i = 0; i < graphs.length; i++) {
+			Tiger22SaltMapper mapper = new Tiger22SaltMapper();
+			mapper.setProperties(new Tiger2ImporterProperties());
+			mapper.setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+			mapper.setDocument(SaltFactory.createSDocument());
+			mapper.setAnnotationInterner(interner);
+			mapper.mapSDocument();
+			graphs[i] = mapper.getDocument().getDocumentGraph();
+		}
+		SAnnotation first = graphs[0].getTokens().get(0).getAnnotation("pos");
+		SAnnotation second = graphs[1].getTokens().get(0).getAnnotation("pos");
+		assertEquals("ART", first.getValue());
+		assertSame(first.getName(), second.getName());
+		assertSame(first.getValue(), second.getValue());
+		// pos, lemma, cat and label
+		assertEquals(4, interner.getNumberOfNames());
+	}
+
+	/**
+	 * Tests that dominance relations starting at a token are reversed and
+	 * counted per edge type, keeping only the given number of examples.
+	 */
+	@Test
+	public void testDiagnoseReversedDominance() {
+		((PepperModuleProperty<String>) getFixture().getProps().getProperty(Tiger2ImporterProperties.PROP_EDGE_2_SRELATION)).setValue("dom:" + SALT_TYPE.SDOMINANCE_RELATION);
+		((PepperModuleProperty<Integer>) getFixture().getProps().getProperty(Tiger2ImporterProperties.PROP_DIAGNOSTIC_SAMPLES)).setValue(1);
+
+		Graph g = getFixture().getTigerCorpus().getSegments().get(0).getGraphs().get(0);
+		for (int i = 0; i < 2; i++) {
+			Edge edge = Tiger2Factory.eINSTANCE.createEdge();
+			edge.setSource(g.getTerminals().get(i));
+			edge.setTarget(g.getNonTerminals().get(0));
+			edge.setType("dom");
+			g.getEdges().add(edge);
+		}
+
+		getFixture().mapSDocument();
+
+		MappingDiagnostics diagnostics = getFixture().getMappingDiagnostics();
+		assertEquals(2, diagnostics.getCount());
+		assertEquals(2, diagnostics.getCount(MappingDiagnostics.REVERSED_TOKEN_DOMINANCE, "dom", MappingDiagnostics.TOKEN_TO_STRUCTURE));
+		assertEquals(Arrays.asList(g.getTerminals().get(0).getId() + " -> " + g.getNonTerminals().get(0).getId()), diagnostics.getSamples(MappingDiagnostics.REVERSED_TOKEN_DOMINANCE, "dom", MappingDiagnostics.TOKEN_TO_STRUCTURE));
+		assertTrue(diagnostics.toString().endsWith(": 2 (" + g.getTerminals().get(0).getId() + " -> " + g.getNonTerminals().get(0).getId() + ", ...)"));
+	}
+
+	/**
+	 * Tests that annotation values not declared in the head of the TigerXML
+	 * file are collected, while declared values are resolved from the head.
+	 */
+	@Test
+	public void testValidateAnnotationValues() {
+		getFixture().setCorpus(null);
+		getFixture().setResourceURI(URI.createFileURI(new File("./src/test/resources/sample.tigerxml").getAbsolutePath()));
+		getFixture().mapSDocument();
+
+		AnnotationValidation validation = getFixture().getAnnotationValidation();
+		assertEquals(2, validation.getNumberOfUndeclaredValues("pos"));
+		assertEquals(new TreeSet<>(Arrays.asList("ITJ", "PPER")), new TreeSet<>(validation.getSamples("pos")));
+		assertEquals(0, validation.getNumberOfUndeclaredValues("cat"));
+		assertEquals(0, validation.getNumberOfUndeclaredValues("edgelabel"));
+		assertEquals(0, validation.getNumberOfUndeclaredValues("secedgelabel"));
+
+		SAnnotation pos = getFixture().getDocument().getDocumentGraph().getTokens().get(0).getAnnotation("pos");
+		assertSame(getFixture().getAnnotationScheme().getTerminalFeature("pos").getValue(0), pos.getValue());
+	}
+
+	/**
+	 * Returns a list describing all nodes and relations of the given graph in
+	 * the order they were added, including their annotations and text
+	 * offsets.
+	 */
+	private List<String> describe(SDocumentGraph graph) {
+		List<String> description = new ArrayList<>();
+		for (SNode node : graph.getNodes()) {
+			description.add(node.getId() + " " + describe(node));
+		}
+		for (SRelation<?, ?> relation : graph.getRelations()) {
+			String offsets = "";
+			if (relation instanceof STextualRelation) {
+				offsets = ((STextualRelation) relation).getStart() + "-" + ((STextualRelation) relation).getEnd();
+			}
+			description.add(relation.getClass().getSimpleName() + " " + relation.getSource().getId() + "->" + relation.getTarget().getId() + " " + relation.getType() + " " + offsets + " " + describe(relation));
+		}
+		return description;
+	}
+
+	private Set<String> describe(SAnnotationContainer container) {
+		Set<String> annotations = new TreeSet<>();
+		for (SAnnotation annotation : container.getAnnotations()) {
+			annotations.add(annotation.getQName() + "=" + annotation.getValue());
+		}
+		return annotations;
+	}
 }
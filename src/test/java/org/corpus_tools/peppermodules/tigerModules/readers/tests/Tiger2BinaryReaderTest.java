@@ -0,0 +1,165 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.peppermodules.tigerModules.readers.Tiger2BinaryReader;
+import org.corpus_tools.peppermodules.tigerModules.readers.Tiger2BinaryWriter;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hu_berlin.german.korpling.tiger2.AnnotatableElement;
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.Terminal;
+
+public class Tiger2BinaryReaderTest {
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private Tiger2BinaryReader fixture = null;
+
+	public Tiger2BinaryReader getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(Tiger2BinaryReader fixture) {
+		this.fixture = fixture;
+	}
+
+	/** the segments of the sample, as read from TigerXML **/
+	private List<Segment> expected = null;
+
+	/**
+	 * Writes the sample file in the binary format and opens it.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		File file = tmpFolder.newFile("sample.t2b");
+		expected = new ArrayList<>();
+		TigerXMLStreamReader xmlReader = new TigerXMLStreamReader(TigerXMLStreamReaderTest.SAMPLE);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			Tiger2BinaryWriter writer = new Tiger2BinaryWriter(out, xmlReader.getCorpus().getMeta(), xmlReader.getAnnotationScheme());
+			while (xmlReader.hasNext()) {
+				Segment segment = xmlReader.next();
+				writer.write(segment);
+				expected.add(segment);
+			}
+			writer.finish();
+			assertEquals(3, writer.getNumberOfSegments());
+		} finally {
+			xmlReader.close();
+		}
+		setFixture(new Tiger2BinaryReader(file));
+	}
+
+	@After
+	public void tearDown() {
+		getFixture().close();
+	}
+
+	@Test
+	public void testReadHead() {
+		assertEquals("sample", getFixture().getCorpus().getMeta().getName());
+		assertEquals("Florian Zipser", getFixture().getCorpus().getMeta().getAuthor());
+		assertEquals(1, getFixture().getAnnotationScheme().getTerminalFeature("pos").getCode("NN"));
+		assertEquals(0, getFixture().getAnnotationScheme().getEdgeLabels().getCode("HD"));
+		assertEquals(1, getFixture().getAnnotationScheme().getSecondaryEdgeLabels().size());
+	}
+
+	/**
+	 * Tests that the read segments equal the ones read from TigerXML,
+	 * including the nodes edges refer to.
+	 */
+	@Test
+	public void testReadSegments() {
+		for (Segment segment : expected) {
+			Segment read = getFixture().next();
+			assertEquals(segment.getId(), read.getId());
+			assertEquals(segment.getGraphs().size(), read.getGraphs().size());
+			for (int i = 0; i < segment.getGraphs().size(); i++) {
+				assertEqualGraphs(segment.getGraphs().get(i), read.getGraphs().get(i));
+			}
+		}
+		assertFalse(getFixture().hasNext());
+	}
+
+	/**
+	 * Tests that a file not written by a {@link Tiger2BinaryWriter} is
+	 * rejected.
+	 */
+	@Test(expected = PepperModuleException.class)
+	public void testReadOtherFile() {
+		new Tiger2BinaryReader(TigerXMLStreamReaderTest.SAMPLE);
+	}
+
+	private void assertEqualGraphs(Graph expected, Graph read) {
+		assertEquals(expected.getTerminals().size(), read.getTerminals().size());
+		for (int i = 0; i < expected.getTerminals().size(); i++) {
+			Terminal terminal = read.getTerminals().get(i);
+			assertEquals(expected.getTerminals().get(i).getId(), terminal.getId());
+			assertEquals(expected.getTerminals().get(i).getWord(), terminal.getWord());
+			assertEqualAnnotations(expected.getTerminals().get(i), terminal);
+		}
+		assertEquals(expected.getNonTerminals().size(), read.getNonTerminals().size());
+		for (int i = 0; i < expected.getNonTerminals().size(); i++) {
+			NonTerminal nonTerminal = read.getNonTerminals().get(i);
+			assertEquals(expected.getNonTerminals().get(i).getId(), nonTerminal.getId());
+			assertEqualAnnotations(expected.getNonTerminals().get(i), nonTerminal);
+		}
+		assertEquals(expected.getEdges().size(), read.getEdges().size());
+		for (int i = 0; i < expected.getEdges().size(); i++) {
+			Edge edge = read.getEdges().get(i);
+			assertEquals(expected.getEdges().get(i).getType(), edge.getType());
+			assertEquals(expected.getEdges().get(i).getSource().getId(), edge.getSource().getId());
+			assertEquals(expected.getEdges().get(i).getTarget().getId(), edge.getTarget().getId());
+			assertEqualAnnotations(expected.getEdges().get(i), edge);
+		}
+		// edges refer to the read nodes and not to copies of them
+		for (Edge edge : read.getEdges()) {
+			assertTrue(read.getTerminals().contains(edge.getSource()) || read.getNonTerminals().contains(edge.getSource()));
+			assertTrue(read.getTerminals().contains(edge.getTarget()) || read.getNonTerminals().contains(edge.getTarget()));
+		}
+	}
+
+	private void assertEqualAnnotations(AnnotatableElement expected, AnnotatableElement read) {
+		assertEquals(expected.getAnnotations().size(), read.getAnnotations().size());
+		for (int i = 0; i < expected.getAnnotations().size(); i++) {
+			Annotation annotation = read.getAnnotations().get(i);
+			assertEquals(expected.getAnnotations().get(i).getName(), annotation.getName());
+			assertEquals(expected.getAnnotations().get(i).getValue(), annotation.getValue());
+		}
+	}
+}
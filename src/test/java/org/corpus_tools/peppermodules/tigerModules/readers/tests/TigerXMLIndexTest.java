@@ -0,0 +1,173 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentFilter;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentSelection;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLIndex;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TigerXMLIndexTest {
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private TigerXMLIndex fixture = null;
+
+	public TigerXMLIndex getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(TigerXMLIndex fixture) {
+		this.fixture = fixture;
+	}
+
+	/** a copy of the sample, so that the index is saved next to it **/
+	private File file = null;
+
+	@Before
+	public void setUp() throws IOException {
+		file = tmpFolder.newFile("sample.tigerxml");
+		Files.copy(TigerXMLStreamReaderTest.SAMPLE.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		setFixture(TigerXMLIndex.open(file));
+	}
+
+	/**
+	 * Tests that the offsets of all segments are found and cover exactly
+	 * their &lt;s/&gt; elements.
+	 */
+	@Test
+	public void testBuild() throws IOException {
+		assertEquals(3, getFixture().size());
+		assertEquals("s1", getFixture().getId(0));
+		assertEquals("s3", getFixture().getId(2));
+		String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		for (int i = 0; i < getFixture().size(); i++) {
+			String segment = content.substring((int) getFixture().getStart(i), (int) getFixture().getEnd(i));
+			assertTrue(segment, segment.startsWith("<s id=\"" + getFixture().getId(i) + "\">"));
+			assertTrue(segment, segment.endsWith("</s>"));
+		}
+		assertEquals(1, getFixture().getPosition("s2"));
+		assertEquals(-1, getFixture().getPosition("s4"));
+		assertEquals(Arrays.asList("part1"), getFixture().getSubcorpora(0));
+		assertEquals(Arrays.asList("part2"), getFixture().getSubcorpora(2));
+	}
+
+	/**
+	 * Tests that the positions of a range are clipped to the segments of the
+	 * file, and that all segments are returned without a range.
+	 */
+	@Test
+	public void testGetPositions() {
+		assertArrayEquals(new int[] { 0, 1, 2 }, getFixture().getPositions(null));
+		assertArrayEquals(new int[] { 1, 2 }, getFixture().getPositions(new SegmentRange("part", 1, 5)));
+		assertArrayEquals(new int[0], getFixture().getPositions(new SegmentRange("part", 4, 5)));
+		long maxLength = getFixture().getMaxLength(getFixture().getPositions(null));
+		for (int i = 0; i < getFixture().size(); i++) {
+			assertTrue(getFixture().getEnd(i) - getFixture().getStart(i) <= maxLength);
+		}
+	}
+
+	/**
+	 * Tests that the saved index is reused, as long as the file is unchanged.
+	 */
+	@Test
+	public void testOpenSaved() throws IOException {
+		File indexFile = TigerXMLIndex.getIndexFile(file);
+		assertTrue(indexFile.isFile());
+		long saved = indexFile.lastModified();
+		TigerXMLIndex index = TigerXMLIndex.open(file);
+		assertEquals(saved, indexFile.lastModified());
+		assertEquals(getFixture().getEnd(2), index.getEnd(2));
+		assertEquals(Arrays.asList("part2"), index.getSubcorpora(1));
+
+		Files.write(file.toPath(), "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		assertEquals(getFixture().getEnd(2), TigerXMLIndex.open(file).getEnd(2));
+	}
+
+	/**
+	 * Tests that only the selected segments are read, together with the meta
+	 * data and the annotation scheme.
+	 */
+	@Test
+	public void testCreateReader() {
+		TigerXMLStreamReader reader = getFixture().createReader(new int[] { 0, 2 });
+		try {
+			assertEquals("sample", reader.getCorpus().getMeta().getName());
+			assertEquals(1, reader.getAnnotationScheme().getTerminalFeature("pos").getCode("NN"));
+			assertEquals("s1", reader.next().getId());
+			assertEquals("s3", reader.next().getId());
+			assertFalse(reader.hasNext());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests that the subcorpora of the selected segments are checked against
+	 * the index, although the read document contains no subcorpora.
+	 */
+	@Test
+	public void testCreateFilteredReader() {
+		TigerXMLStreamReader reader = getFixture().createReader(new int[] { 0, 1, 2 }, new SegmentFilter(Arrays.asList("part2"), 0, 1, null));
+		try {
+			assertEquals("s3", reader.next().getId());
+			assertFalse(reader.hasNext());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests that ids and ranges of ids are resolved to positions in document
+	 * order.
+	 */
+	@Test
+	public void testResolveSelection() {
+		List<String> unknownIds = new ArrayList<>();
+		assertArrayEquals(new int[] { 0, 1, 2 }, SegmentSelection.parse("s3, s1..s2").resolve(getFixture(), null, unknownIds));
+		assertArrayEquals(new int[] { 1 }, SegmentSelection.parse("s1..s3").resolve(getFixture(), new SegmentRange("part", 1, 2), unknownIds));
+		assertArrayEquals(new int[] { 2 }, SegmentSelection.parse("s3, x, y..s1").resolve(getFixture(), null, unknownIds));
+		assertEquals(Arrays.asList("x", "y"), unknownIds);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseEmptyEntry() {
+		SegmentSelection.parse("s1,,s2");
+	}
+}
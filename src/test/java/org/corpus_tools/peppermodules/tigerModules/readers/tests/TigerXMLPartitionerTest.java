@@ -0,0 +1,104 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLPartitioner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TigerXMLPartitionerTest {
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@Test
+	public void testSplitBySegments() {
+		List<SegmentRange> ranges = new TigerXMLPartitioner(Tiger2ImporterProperties.SPLIT_SEGMENTS, 2).partition(TigerXMLStreamReaderTest.SAMPLE);
+		assertEquals(2, ranges.size());
+		assertEquals(0, ranges.get(0).getFrom());
+		assertEquals(2, ranges.get(0).getTo());
+		assertEquals(2, ranges.get(1).getFrom());
+		assertEquals(3, ranges.get(1).getTo());
+		assertEquals("2", ranges.get(1).getName());
+	}
+
+	/**
+	 * Tests that a range never exceeds the token budget, unless a single
+	 * segment does.
+	 */
+	@Test
+	public void testSplitByTokens() {
+		List<SegmentRange> ranges = new TigerXMLPartitioner(Tiger2ImporterProperties.SPLIT_TOKENS, 5).partition(TigerXMLStreamReaderTest.SAMPLE);
+		assertEquals(3, ranges.size());
+
+		ranges = new TigerXMLPartitioner(Tiger2ImporterProperties.SPLIT_TOKENS, 6).partition(TigerXMLStreamReaderTest.SAMPLE);
+		assertEquals(2, ranges.size());
+		assertEquals(1, ranges.get(0).getTo());
+		assertEquals(1, ranges.get(1).getFrom());
+		assertEquals(3, ranges.get(1).getTo());
+	}
+
+	@Test
+	public void testSplitBySubcorpus() {
+		List<SegmentRange> ranges = new TigerXMLPartitioner(Tiger2ImporterProperties.SPLIT_SUBCORPUS, 0).partition(TigerXMLStreamReaderTest.SAMPLE);
+		assertEquals(2, ranges.size());
+		assertEquals("part1", ranges.get(0).getName());
+		assertEquals(1, ranges.get(0).getTo());
+		assertEquals("part2", ranges.get(1).getName());
+		assertEquals(1, ranges.get(1).getFrom());
+		assertEquals(3, ranges.get(1).getTo());
+	}
+
+	/**
+	 * Tests that the ranges of nested subcorpora are named by their path,
+	 * that an outer subcorpus continuing after an inner one gets a new name,
+	 * and that names are sanitized.
+	 */
+	@Test
+	public void testSplitByNestedSubcorpus() throws IOException {
+		File file = tmpFolder.newFile("nested.tigerxml");
+		String xml = "<corpus id=\"nested\"><body>" //
+				+ "<subcorpus name=\"outer\"><s id=\"s1\"/>" //
+				+ "<subcorpus name=\"in ner/x\"><s id=\"s2\"/></subcorpus>" //
+				+ "<s id=\"s3\"/></subcorpus>" //
+				+ "<subcorpus name=\"outer\"><s id=\"s4\"/></subcorpus>" //
+				+ "</body></corpus>";
+		Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+
+		List<SegmentRange> ranges = new TigerXMLPartitioner(Tiger2ImporterProperties.SPLIT_SUBCORPUS, 0).partition(file);
+		assertEquals(4, ranges.size());
+		assertEquals("outer", ranges.get(0).getName());
+		assertEquals("outer_in_ner_x", ranges.get(1).getName());
+		assertEquals(1, ranges.get(1).getFrom());
+		assertEquals(2, ranges.get(1).getTo());
+		assertEquals("outer_2", ranges.get(2).getName());
+		assertEquals(2, ranges.get(2).getFrom());
+		assertEquals(3, ranges.get(2).getTo());
+		assertEquals("outer_3", ranges.get(3).getName());
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.readers.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme;
+import org.corpus_tools.peppermodules.tigerModules.readers.AnnotationScheme.FeatureDictionary;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentFilter;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+public class TigerXMLStreamReaderTest {
+	public static final File SAMPLE = new File("./src/test/resources/sample.tigerxml");
+
+	private TigerXMLStreamReader fixture = null;
+
+	public TigerXMLStreamReader getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(TigerXMLStreamReader fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new TigerXMLStreamReader(SAMPLE));
+	}
+
+	@After
+	public void tearDown() {
+		getFixture().close();
+	}
+
+	@Test
+	public void testReadMeta() {
+		assertNotNull(getFixture().getCorpus().getMeta());
+		assertEquals("sample", getFixture().getCorpus().getMeta().getName());
+		assertEquals("Florian Zipser", getFixture().getCorpus().getMeta().getAuthor());
+		assertEquals(0, getFixture().getCorpus().getSegments().size());
+	}
+
+	@Test
+	public void testReadSegments() {
+		List<Segment> segments = new ArrayList<>();
+		while (getFixture().hasNext()) {
+			segments.add(getFixture().next());
+		}
+		assertEquals(3, segments.size());
+		assertEquals("s1", segments.get(0).getId());
+		assertEquals("s3", segments.get(2).getId());
+
+		Graph graph = segments.get(0).getGraphs().get(0);
+		assertEquals(4, graph.getTerminals().size());
+		assertEquals(3, graph.getNonTerminals().size());
+		assertEquals(6, graph.getEdges().size());
+		assertEquals("Hund", graph.getTerminals().get(1).getWord());
+		assertEquals("pos", graph.getTerminals().get(1).getAnnotations().get(0).getName());
+		assertEquals("NN", graph.getTerminals().get(1).getAnnotations().get(0).getValue());
+		assertEquals("cat", graph.getNonTerminals().get(0).getAnnotations().get(0).getName());
+	}
+
+	/**
+	 * Tests that edges pointing to nodes defined later in the graph are
+	 * resolved and that secondary edges get their own type.
+	 */
+	@Test
+	public void testReadEdges() {
+		getFixture().next();
+		Graph graph = getFixture().next().getGraphs().get(0);
+		Edge oa = graph.getEdges().get(5);
+		assertSame(graph.getNonTerminals().get(1), oa.getSource());
+		assertSame(graph.getNonTerminals().get(0), oa.getTarget());
+		assertEquals(TigerXMLStreamReader.EDGE_TYPE_PRIMARY, oa.getType());
+		assertEquals("OA", oa.getAnnotations().get(0).getValue());
+
+		Edge secedge = graph.getEdges().get(6);
+		assertEquals(TigerXMLStreamReader.EDGE_TYPE_SECONDARY, secedge.getType());
+		assertSame(graph.getTerminals().get(0), secedge.getTarget());
+		getFixture().next();
+		assertFalse(getFixture().hasNext());
+	}
+
+	/**
+	 * Tests that only the segments of the given range are read.
+	 */
+	@Test
+	public void testReadRange() {
+		getFixture().close();
+		setFixture(new TigerXMLStreamReader(SAMPLE, new SegmentRange("part", 1, 2)));
+		assertEquals("sample", getFixture().getCorpus().getMeta().getName());
+		assertEquals("s2", getFixture().next().getId());
+		assertFalse(getFixture().hasNext());
+	}
+
+	/**
+	 * Tests that the feature declarations of the head are read into
+	 * dictionaries, which give each declared value a code.
+	 */
+	@Test
+	public void testReadAnnotationScheme() {
+		AnnotationScheme scheme = getFixture().getAnnotationScheme();
+		FeatureDictionary pos = scheme.getTerminalFeature("pos");
+		assertNotNull(pos);
+		assertEquals(5, pos.size());
+		assertEquals(1, pos.getCode("NN"));
+		assertEquals("NN", pos.getValue(1));
+		assertEquals(-1, pos.getCode("PPER"));
+		assertFalse(scheme.getTerminalFeature("lemma").isClosed());
+		assertNull(scheme.getTerminalFeature("cat"));
+		assertEquals(0, scheme.getNonTerminalFeature("cat").getCode("S"));
+		assertEquals(0, scheme.getEdgeLabels().getCode("HD"));
+		assertEquals(-1, scheme.getSecondaryEdgeLabels().getCode("HD"));
+
+		assertEquals(3, AnnotationScheme.read(SAMPLE).getNonTerminalFeature("cat").size());
+	}
+
+	/**
+	 * Tests that segments of other subcorpora are skipped and that length
+	 * and category are checked for the remaining ones.
+	 */
+	@Test
+	public void testReadFiltered() {
+		getFixture().close();
+		setFixture(new TigerXMLStreamReader(SAMPLE, null, new SegmentFilter(Arrays.asList("part2"), 2, Integer.MAX_VALUE, null)));
+		assertEquals("s2", getFixture().next().getId());
+		assertFalse(getFixture().hasNext());
+		assertEquals(2, getFixture().getNumberOfFilteredSegments());
+
+		getFixture().close();
+		setFixture(new TigerXMLStreamReader(SAMPLE, null, new SegmentFilter(null, 0, Integer.MAX_VALUE, Arrays.asList("S"))));
+		assertEquals("s1", getFixture().next().getId());
+		assertEquals("s2", getFixture().next().getId());
+		assertFalse(getFixture().hasNext());
+	}
+}
@@ -0,0 +1,453 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.samples;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+
+import de.hu_berlin.german.korpling.tiger2.Annotation;
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Edge;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Meta;
+import de.hu_berlin.german.korpling.tiger2.NonTerminal;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+import de.hu_berlin.german.korpling.tiger2.SyntacticNode;
+import de.hu_berlin.german.korpling.tiger2.Terminal;
+import de.hu_berlin.german.korpling.tiger2.Tiger2Factory;
+
+/**
+ * Generates synthetic treebanks of arbitrary size, either as &lt;tiger2/&gt;
+ * {@link Corpus} model or as TigerXML file. The generated data only depend on
+ * the configuration, so that two generators having the same configuration
+ * produce identical corpora. Each segment is generated from its own random
+ * seed, so a TigerXML file is written segment by segment and never needs to
+ * be held in memory.
+ * <br/>
+ * A segment contains a single graph. Its terminals are grouped into
+ * non-terminals of two to four children level by level, until
+ * {@link #getDepth()} levels exist or a single root remains, which then
+ * dominates all remaining nodes. Secondary edges of type
+ * {@value TigerXMLStreamReader#EDGE_TYPE_SECONDARY} connect random
+ * non-terminals to random nodes of the same graph. Besides that, some
+ * segments can be made pathological:
+ * <ul>
+ * <li>every {@link #getWideNodeInterval()}th segment has a single
+ * non-terminal dominating {@link #getWideNodeWidth()} terminals</li>
+ * <li>every {@link #getUnaryChainInterval()}th segment has a chain of
+ * {@link #getUnaryChainLength()} unary non-terminals above its root</li>
+ * </ul>
+ * The created model follows the TigerXML mapping of the tiger2 API, hence
+ * mapping a generated model or reading the written file results in the same
+ * numbers of nodes, edges and annotations. The order of the edges differs,
+ * since the file lists the edges grouped by their source nodes.
+ */
+public class SyntheticTreebank {
+	public static final String ANNOTATION_POS = "pos";
+	public static final String ANNOTATION_LEMMA = "lemma";
+	public static final String ANNOTATION_CAT = "cat";
+
+	private long seed = 1;
+	private int segments = 100;
+	private int terminals = 20;
+	private int depth = 4;
+	private int secondaryEdges = 1;
+	private int annotationValues = 50;
+	private int vocabulary = 5000;
+	private int wideNodeInterval = 0;
+	private int wideNodeWidth = 1000;
+	private int unaryChainInterval = 0;
+	private int unaryChainLength = 100;
+
+	/** Returns the seed all segments are derived from. **/
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/** Returns the number of segments. **/
+	public int getSegments() {
+		return segments;
+	}
+
+	public void setSegments(int segments) {
+		this.segments = segments;
+	}
+
+	/** Returns the number of terminals per graph. **/
+	public int getTerminals() {
+		return terminals;
+	}
+
+	public void setTerminals(int terminals) {
+		this.terminals = terminals;
+	}
+
+	/** Returns the maximal number of non-terminal levels per graph. **/
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	/** Returns the number of secondary edges per graph. **/
+	public int getSecondaryEdges() {
+		return secondaryEdges;
+	}
+
+	public void setSecondaryEdges(int secondaryEdges) {
+		this.secondaryEdges = secondaryEdges;
+	}
+
+	/**
+	 * Returns the number of distinct values of each annotation and of the
+	 * edge labels.
+	 */
+	public int getAnnotationValues() {
+		return annotationValues;
+	}
+
+	public void setAnnotationValues(int annotationValues) {
+		this.annotationValues = annotationValues;
+	}
+
+	/** Returns the number of distinct words. **/
+	public int getVocabulary() {
+		return vocabulary;
+	}
+
+	public void setVocabulary(int vocabulary) {
+		this.vocabulary = vocabulary;
+	}
+
+	/**
+	 * Returns the interval of segments having a very wide node, 0 means there
+	 * are none.
+	 */
+	public int getWideNodeInterval() {
+		return wideNodeInterval;
+	}
+
+	public void setWideNodeInterval(int wideNodeInterval) {
+		this.wideNodeInterval = wideNodeInterval;
+	}
+
+	/** Returns the number of children of a very wide node. **/
+	public int getWideNodeWidth() {
+		return wideNodeWidth;
+	}
+
+	public void setWideNodeWidth(int wideNodeWidth) {
+		this.wideNodeWidth = wideNodeWidth;
+	}
+
+	/**
+	 * Returns the interval of segments having a deep unary chain, 0 means
+	 * there are none.
+	 */
+	public int getUnaryChainInterval() {
+		return unaryChainInterval;
+	}
+
+	public void setUnaryChainInterval(int unaryChainInterval) {
+		this.unaryChainInterval = unaryChainInterval;
+	}
+
+	/** Returns the number of non-terminals in a deep unary chain. **/
+	public int getUnaryChainLength() {
+		return unaryChainLength;
+	}
+
+	public void setUnaryChainLength(int unaryChainLength) {
+		this.unaryChainLength = unaryChainLength;
+	}
+
+	/**
+	 * Creates a {@link Corpus} object containing all segments. The corpus is
+	 * not contained in any resource.
+	 */
+	public Corpus createCorpus() {
+		Corpus corpus = Tiger2Factory.eINSTANCE.createCorpus();
+		corpus.setId("synthetic");
+		corpus.setMeta(createMeta());
+		for (int i = 1; i <= segments; i++) {
+			corpus.getSegments().add(createSegment(i));
+		}
+		return corpus;
+	}
+
+	/**
+	 * Creates the segment at the given position, starting with 1.
+	 */
+	public Segment createSegment(int position) {
+		Random random = new Random(seed * 31 + position);
+		String prefix = "s" + position;
+		Segment segment = Tiger2Factory.eINSTANCE.createSegment();
+		segment.setId(prefix);
+		Graph graph = Tiger2Factory.eINSTANCE.createGraph();
+		graph.setId(prefix + "_g");
+		segment.getGraphs().add(graph);
+
+		boolean wide = (wideNodeInterval > 0) && (position % wideNodeInterval == 0);
+		int width = wide ? wideNodeWidth : terminals;
+		List<SyntacticNode> level = new ArrayList<>(width);
+		for (int i = 1; i <= width; i++) {
+			Terminal terminal = Tiger2Factory.eINSTANCE.createTerminal();
+			terminal.setId(prefix + "_" + i);
+			terminal.setWord("w" + random.nextInt(vocabulary));
+			addAnnotation(terminal, ANNOTATION_LEMMA, "l" + random.nextInt(annotationValues));
+			addAnnotation(terminal, ANNOTATION_POS, "P" + random.nextInt(annotationValues));
+			graph.getTerminals().add(terminal);
+			level.add(terminal);
+		}
+		int ntId = 500;
+		for (int d = 1; (d <= depth) && (level.size() > 1) && (!wide); d++) {
+			List<SyntacticNode> parents = new ArrayList<>();
+			int i = 0;
+			while (i < level.size()) {
+				int children = (d == depth) ? level.size() : 2 + random.nextInt(3);
+				NonTerminal parent = createNonTerminal(graph, prefix + "_" + (ntId++), random);
+				for (int c = 0; (c < children) && (i < level.size()); c++, i++) {
+					createEdge(graph, parent, level.get(i), TigerXMLStreamReader.EDGE_TYPE_PRIMARY, random);
+				}
+				parents.add(parent);
+			}
+			level = parents;
+		}
+		if ((level.size() > 1) || (level.get(0) instanceof Terminal)) {
+			// a root dominating all remaining nodes
+			NonTerminal root = createNonTerminal(graph, prefix + "_" + (ntId++), random);
+			for (SyntacticNode child : level) {
+				createEdge(graph, root, child, TigerXMLStreamReader.EDGE_TYPE_PRIMARY, random);
+			}
+			level.clear();
+			level.add(root);
+		}
+		if ((unaryChainInterval > 0) && (position % unaryChainInterval == 0)) {
+			for (int i = 0; i < unaryChainLength; i++) {
+				NonTerminal parent = createNonTerminal(graph, prefix + "_" + (ntId++), random);
+				createEdge(graph, parent, level.get(0), TigerXMLStreamReader.EDGE_TYPE_PRIMARY, random);
+				level.set(0, parent);
+			}
+		}
+		List<NonTerminal> nonTerminals = graph.getNonTerminals();
+		int nodes = graph.getTerminals().size() + nonTerminals.size();
+		for (int i = 0; i < secondaryEdges; i++) {
+			NonTerminal source = nonTerminals.get(random.nextInt(nonTerminals.size()));
+			int targetIdx = random.nextInt(nodes);
+			SyntacticNode target = (targetIdx < graph.getTerminals().size()) ? graph.getTerminals().get(targetIdx) : nonTerminals.get(targetIdx - graph.getTerminals().size());
+			if (target == source) {
+				// no loops
+				target = graph.getTerminals().get(0);
+			}
+			createEdge(graph, source, target, TigerXMLStreamReader.EDGE_TYPE_SECONDARY, random);
+		}
+		return segment;
+	}
+
+	/**
+	 * Writes all segments to the given file in TigerXML format. The
+	 * &lt;head/&gt; element declares all annotation values and edge labels.
+	 */
+	public void writeTigerXML(File file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			xml.writeStartDocument("UTF-8", "1.0");
+			xml.writeCharacters("\n");
+			xml.writeStartElement("corpus");
+			xml.writeAttribute(TigerXMLStreamReader.ATT_ID, "synthetic");
+			xml.writeCharacters("\n");
+			writeHead(xml);
+			xml.writeStartElement(TigerXMLStreamReader.TAG_BODY);
+			xml.writeCharacters("\n");
+			for (int i = 1; i <= segments; i++) {
+				writeSegment(xml, createSegment(i));
+			}
+			xml.writeEndElement();
+			xml.writeCharacters("\n");
+			xml.writeEndElement();
+			xml.writeCharacters("\n");
+			xml.writeEndDocument();
+			xml.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Cannot write synthetic treebank to '" + file.getAbsolutePath() + "'.", e);
+		}
+	}
+
+	private Meta createMeta() {
+		Meta meta = Tiger2Factory.eINSTANCE.createMeta();
+		meta.setName("synthetic");
+		meta.setDescription("synthetic treebank, seed " + seed);
+		return meta;
+	}
+
+	private NonTerminal createNonTerminal(Graph graph, String id, Random random) {
+		NonTerminal nonTerminal = Tiger2Factory.eINSTANCE.createNonTerminal();
+		nonTerminal.setId(id);
+		addAnnotation(nonTerminal, ANNOTATION_CAT, "C" + random.nextInt(annotationValues));
+		graph.getNonTerminals().add(nonTerminal);
+		return nonTerminal;
+	}
+
+	private void createEdge(Graph graph, NonTerminal source, SyntacticNode target, String type, Random random) {
+		Edge edge = Tiger2Factory.eINSTANCE.createEdge();
+		edge.setType(type);
+		edge.setSource(source);
+		edge.setTarget(target);
+		addAnnotation(edge, TigerXMLStreamReader.ANNOTATION_EDGE_LABEL, "E" + random.nextInt(annotationValues));
+		graph.getEdges().add(edge);
+	}
+
+	private void addAnnotation(SyntacticNode node, String name, String value) {
+		Annotation annotation = Tiger2Factory.eINSTANCE.createAnnotation();
+		annotation.setName(name);
+		annotation.setValue(value);
+		node.getAnnotations().add(annotation);
+	}
+
+	private void addAnnotation(Edge edge, String name, String value) {
+		Annotation annotation = Tiger2Factory.eINSTANCE.createAnnotation();
+		annotation.setName(name);
+		annotation.setValue(value);
+		edge.getAnnotations().add(annotation);
+	}
+
+	private void writeHead(XMLStreamWriter xml) throws XMLStreamException {
+		xml.writeStartElement(TigerXMLStreamReader.TAG_HEAD);
+		xml.writeStartElement(TigerXMLStreamReader.TAG_META);
+		xml.writeStartElement("name");
+		xml.writeCharacters(createMeta().getName());
+		xml.writeEndElement();
+		xml.writeStartElement("description");
+		xml.writeCharacters(createMeta().getDescription());
+		xml.writeEndElement();
+		xml.writeEndElement();
+		xml.writeCharacters("\n");
+		xml.writeStartElement("annotation");
+		writeFeature(xml, TigerXMLStreamReader.ATT_WORD, "T", null);
+		writeFeature(xml, ANNOTATION_LEMMA, "T", "l");
+		writeFeature(xml, ANNOTATION_POS, "T", "P");
+		writeFeature(xml, ANNOTATION_CAT, "NT", "C");
+		writeFeature(xml, "edgelabel", null, "E");
+		writeFeature(xml, "secedgelabel", null, "E");
+		xml.writeEndElement();
+		xml.writeCharacters("\n");
+		xml.writeEndElement();
+		xml.writeCharacters("\n");
+	}
+
+	/**
+	 * Writes a &lt;feature/&gt; element, or an &lt;edgelabel/&gt; or
+	 * &lt;secedgelabel/&gt; element if no domain is given, declaring
+	 * {@link #annotationValues} values having the given prefix.
+	 */
+	private void writeFeature(XMLStreamWriter xml, String name, String domain, String valuePrefix) throws XMLStreamException {
+		xml.writeCharacters("\n");
+		if (domain != null) {
+			xml.writeStartElement("feature");
+			xml.writeAttribute("name", name);
+			xml.writeAttribute("domain", domain);
+		} else {
+			xml.writeStartElement(name);
+		}
+		if (valuePrefix != null) {
+			for (int i = 0; i < annotationValues; i++) {
+				xml.writeStartElement("value");
+				xml.writeAttribute("name", valuePrefix + i);
+				xml.writeEndElement();
+			}
+		}
+		xml.writeEndElement();
+	}
+
+	private void writeSegment(XMLStreamWriter xml, Segment segment) throws XMLStreamException {
+		xml.writeStartElement(TigerXMLStreamReader.TAG_SEGMENT);
+		xml.writeAttribute(TigerXMLStreamReader.ATT_ID, segment.getId());
+		for (Graph graph : segment.getGraphs()) {
+			Map<SyntacticNode, List<Edge>> outgoing = new IdentityHashMap<>();
+			for (Edge edge : graph.getEdges()) {
+				List<Edge> edges = outgoing.get(edge.getSource());
+				if (edges == null) {
+					edges = new ArrayList<>();
+					outgoing.put(edge.getSource(), edges);
+				}
+				edges.add(edge);
+			}
+			xml.writeStartElement(TigerXMLStreamReader.TAG_GRAPH);
+			// the root is the last non-terminal created
+			xml.writeAttribute("root", graph.getNonTerminals().get(graph.getNonTerminals().size() - 1).getId());
+			xml.writeStartElement("terminals");
+			for (Terminal terminal : graph.getTerminals()) {
+				xml.writeCharacters("\n");
+				writeNode(xml, TigerXMLStreamReader.TAG_TERMINAL, terminal, outgoing.get(terminal));
+			}
+			xml.writeEndElement();
+			xml.writeStartElement("nonterminals");
+			for (NonTerminal nonTerminal : graph.getNonTerminals()) {
+				xml.writeCharacters("\n");
+				writeNode(xml, TigerXMLStreamReader.TAG_NONTERMINAL, nonTerminal, outgoing.get(nonTerminal));
+			}
+			xml.writeEndElement();
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+		xml.writeCharacters("\n");
+	}
+
+	private void writeNode(XMLStreamWriter xml, String tag, SyntacticNode node, List<Edge> edges) throws XMLStreamException {
+		if (edges == null) {
+			xml.writeEmptyElement(tag);
+		} else {
+			xml.writeStartElement(tag);
+		}
+		xml.writeAttribute(TigerXMLStreamReader.ATT_ID, node.getId());
+		if (node instanceof Terminal) {
+			xml.writeAttribute(TigerXMLStreamReader.ATT_WORD, ((Terminal) node).getWord());
+		}
+		for (Annotation annotation : node.getAnnotations()) {
+			xml.writeAttribute(annotation.getName(), annotation.getValue());
+		}
+		if (edges != null) {
+			for (Edge edge : edges) {
+				xml.writeEmptyElement(TigerXMLStreamReader.EDGE_TYPE_PRIMARY.equals(edge.getType()) ? TigerXMLStreamReader.TAG_EDGE : TigerXMLStreamReader.TAG_SECEDGE);
+				xml.writeAttribute(TigerXMLStreamReader.ATT_LABEL, edge.getAnnotations().get(0).getValue());
+				xml.writeAttribute(TigerXMLStreamReader.ATT_IDREF, edge.getTarget().getId());
+			}
+			xml.writeEndElement();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.samples.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLStreamReader;
+import org.corpus_tools.peppermodules.tigerModules.samples.SyntheticTreebank;
+import org.corpus_tools.salt.SaltFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.Graph;
+import de.hu_berlin.german.korpling.tiger2.Segment;
+
+public class SyntheticTreebankTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SyntheticTreebank fixture = null;
+
+	public SyntheticTreebank getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(SyntheticTreebank fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new SyntheticTreebank());
+		getFixture().setSegments(30);
+		getFixture().setSecondaryEdges(2);
+	}
+
+	/**
+	 * Tests that the same configuration results in the same file.
+	 */
+	@Test
+	public void testDeterministic() throws IOException {
+		File first = folder.newFile("first.tigerxml");
+		File second = folder.newFile("second.tigerxml");
+		getFixture().writeTigerXML(first);
+		getFixture().writeTigerXML(second);
+		assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+
+		getFixture().setSeed(2);
+		getFixture().writeTigerXML(second);
+		assertFalse(Arrays.equals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath())));
+	}
+
+	/**
+	 * Tests that reading the written file results in the same segments as
+	 * the created model.
+	 */
+	@Test
+	public void testWrittenFileMatchesModel() throws IOException {
+		File file = folder.newFile("synthetic.tigerxml");
+		getFixture().writeTigerXML(file);
+		Corpus corpus = getFixture().createCorpus();
+		try (TigerXMLStreamReader reader = new TigerXMLStreamReader(file)) {
+			assertEquals("synthetic", reader.getCorpus().getMeta().getName());
+			for (Segment expected : corpus.getSegments()) {
+				Segment read = reader.next();
+				assertEquals(expected.getId(), read.getId());
+				Graph expectedGraph = expected.getGraphs().get(0);
+				Graph readGraph = read.getGraphs().get(0);
+				assertEquals(expectedGraph.getTerminals().size(), readGraph.getTerminals().size());
+				for (int i = 0; i < expectedGraph.getTerminals().size(); i++) {
+					assertEquals(expectedGraph.getTerminals().get(i).getWord(), readGraph.getTerminals().get(i).getWord());
+				}
+				assertEquals(expectedGraph.getNonTerminals().size(), readGraph.getNonTerminals().size());
+				assertEquals(expectedGraph.getEdges().size(), readGraph.getEdges().size());
+			}
+			assertFalse(reader.hasNext());
+		}
+	}
+
+	@Test
+	public void testPathologicalSegments() {
+		getFixture().setWideNodeInterval(2);
+		getFixture().setWideNodeWidth(300);
+		getFixture().setUnaryChainInterval(3);
+		getFixture().setUnaryChainLength(50);
+		getFixture().setSecondaryEdges(0);
+
+		Graph wide = getFixture().createSegment(2).getGraphs().get(0);
+		assertEquals(300, wide.getTerminals().size());
+		assertEquals(1, wide.getNonTerminals().size());
+		assertEquals(300, wide.getEdges().size());
+
+		Graph chain = getFixture().createSegment(3).getGraphs().get(0);
+		assertEquals(20, chain.getTerminals().size());
+		assertEquals(chain.getTerminals().size() + chain.getNonTerminals().size() - 1, chain.getEdges().size());
+		assertEquals(chain.getNonTerminals().get(chain.getNonTerminals().size() - 1), chain.getEdges().get(chain.getEdges().size() - 1).getSource());
+	}
+
+	/**
+	 * Tests that a deep unary chain can be mapped to Salt.
+	 */
+	@Test
+	public void testMapDeepChain() {
+		getFixture().setSegments(1);
+		getFixture().setUnaryChainInterval(1);
+		getFixture().setUnaryChainLength(2000);
+		Corpus corpus = getFixture().createCorpus();
+		int nonTerminals = corpus.getSegments().get(0).getGraphs().get(0).getNonTerminals().size();
+
+		Tiger22SaltMapper mapper = new Tiger22SaltMapper();
+		mapper.setDocument(SaltFactory.createSDocument());
+		mapper.setProperties(new Tiger2ImporterProperties());
+		mapper.setCorpus(corpus);
+		mapper.mapSDocument();
+
+		assertEquals(20, mapper.getDocument().getDocumentGraph().getTokens().size());
+		assertEquals(nonTerminals, mapper.getDocument().getDocumentGraph().getStructures().size());
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.peppermodules.tigerModules.Tiger2AdmissionControl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Tiger2AdmissionControlTest {
+	private Tiger2AdmissionControl fixture = null;
+
+	public Tiger2AdmissionControl getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(Tiger2AdmissionControl fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new Tiger2AdmissionControl(10));
+	}
+
+	/**
+	 * Tests that a document waits until the memory of an earlier one is
+	 * released.
+	 */
+	@Test
+	public void testWaitForBudget() throws InterruptedException {
+		getFixture().acquire(6);
+		final CountDownLatch admitted = new CountDownLatch(1);
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					getFixture().acquire(6);
+					admitted.countDown();
+				} catch (InterruptedException e) {
+					// the test fails by timeout
+				}
+			}
+		};
+		thread.start();
+		assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+
+		getFixture().release(6);
+		assertTrue(admitted.await(10, TimeUnit.SECONDS));
+		assertEquals(1, getFixture().getNumberOfWaits());
+	}
+
+	/**
+	 * Tests that documents fitting into the budget together and a document
+	 * exceeding the budget alone are admitted without waiting.
+	 */
+	@Test
+	public void testAdmitWithoutWaiting() throws InterruptedException {
+		getFixture().acquire(4);
+		getFixture().acquire(6);
+		getFixture().release(4);
+		getFixture().release(6);
+		getFixture().acquire(100);
+		getFixture().release(100);
+		assertEquals(0, getFixture().getNumberOfWaits());
+	}
+}
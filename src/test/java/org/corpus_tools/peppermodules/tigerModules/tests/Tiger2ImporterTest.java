@@ -0,0 +1,449 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.tigerModules.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2AdmissionControl;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Cache;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Importer;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Manifest;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2Prefetcher;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ResourceLoader;
+import org.corpus_tools.peppermodules.tigerModules.mappers.Tiger22SaltMapper;
+import org.corpus_tools.peppermodules.tigerModules.readers.SegmentRange;
+import org.corpus_tools.peppermodules.tigerModules.readers.TigerXMLIndex;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hu_berlin.german.korpling.tiger2.Corpus;
+import de.hu_berlin.german.korpling.tiger2.resources.TigerResourceFactory;
+
+public class Tiger2ImporterTest {
+	public static final File SAMPLE = new File("./src/test/resources/sample.tigerxml");
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private Tiger2Importer fixture = null;
+
+	public Tiger2Importer getFixture() {
+		return fixture;
+	}
+
+	public void setFixture(Tiger2Importer fixture) {
+		this.fixture = fixture;
+	}
+
+	@Before
+	public void setUp() {
+		setFixture(new Tiger2Importer());
+	}
+
+	/**
+	 * Copies the sample file to the temporary folder and registers a document
+	 * for it at the fixture.
+	 */
+	protected SDocument createDocument(String name) throws IOException {
+		File file = new File(tmpFolder.getRoot(), name + "." + TigerResourceFactory.FILE_ENDING_TIGERXML);
+		Files.copy(SAMPLE.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		SDocument sDocument = SaltFactory.createSDocument();
+		sDocument.setId(name);
+		sDocument.setName(name);
+		getFixture().getIdentifier2ResourceTable().put(sDocument.getIdentifier(), URI.createFileURI(file.getAbsolutePath()));
+		return sDocument;
+	}
+
+	protected Tiger22SaltMapper createMapper(SDocument sDocument) {
+		Tiger22SaltMapper mapper = (Tiger22SaltMapper) getFixture().createPepperMapper(sDocument.getIdentifier());
+		mapper.setDocument(sDocument);
+		mapper.setProperties(getFixture().getProperties());
+		return mapper;
+	}
+
+	/**
+	 * A loader remembering each loaded model and its resource.
+	 */
+	static class RecordingResourceLoader extends Tiger2ResourceLoader {
+		final List<WeakReference<Corpus>> corpora = new ArrayList<>();
+		final List<Resource> resources = new ArrayList<>();
+
+		@Override
+		public Corpus load(URI inputUri) throws IOException {
+			Corpus corpus = super.load(inputUri);
+			// only recording is synchronized, loading itself is not
+			synchronized (this) {
+				corpora.add(new WeakReference<>(corpus));
+				resources.add(corpus.eResource());
+			}
+			return corpus;
+		}
+	}
+
+	/**
+	 * Imports many documents one after another and checks that no loaded
+	 * &lt;tiger2/&gt; model is retained after its document has been mapped.
+	 */
+	@Test
+	public void testResourcesAreReleased() throws IOException, InterruptedException {
+		RecordingResourceLoader loader = new RecordingResourceLoader();
+		getFixture().setResourceLoader(loader);
+		for (int i = 0; i < 50; i++) {
+			SDocument sDocument = createDocument("doc" + i);
+			Tiger22SaltMapper mapper = createMapper(sDocument);
+			// the file is loaded by the mapper and not before
+			assertNull(mapper.getTigerCorpus());
+			assertEquals(i, loader.resources.size());
+
+			assertEquals(DOCUMENT_STATUS.COMPLETED, mapper.mapSDocument());
+			assertEquals(10, sDocument.getDocumentGraph().getTokens().size());
+			assertNull(mapper.getTigerCorpus());
+			Resource resource = loader.resources.get(i);
+			assertNull(resource.getResourceSet());
+			assertFalse(resource.isLoaded());
+		}
+		// retained heap stays flat, when no model survives a collection
+		for (int attempt = 0; (attempt < 10) && (countAlive(loader.corpora) > 0); attempt++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertEquals(0, countAlive(loader.corpora));
+	}
+
+	/**
+	 * Tests that a file, which cannot be read, fails its document instead of
+	 * the module.
+	 */
+	@Test
+	public void testUnreadableFileFailsDocument() throws IOException {
+		SDocument sDocument = createDocument("broken");
+		Files.write(new File(getFixture().getIdentifier2ResourceTable().get(sDocument.getIdentifier()).toFileString()).toPath(), "<corpus><body><s".getBytes("UTF-8"));
+
+		Tiger22SaltMapper mapper = createMapper(sDocument);
+		assertEquals(DOCUMENT_STATUS.FAILED, mapper.mapSDocument());
+	}
+
+	/**
+	 * Maps dozens of documents on several threads at the same time and checks
+	 * that each of them is complete.
+	 */
+	@Test
+	public void testConcurrentLoading() throws Exception {
+		RecordingResourceLoader loader = new RecordingResourceLoader();
+		getFixture().setResourceLoader(loader);
+		List<SDocument> sDocuments = new ArrayList<>();
+		final List<Tiger22SaltMapper> mappers = new ArrayList<>();
+		for (int i = 0; i < 48; i++) {
+			SDocument sDocument = createDocument("doc" + i);
+			sDocuments.add(sDocument);
+			mappers.add(createMapper(sDocument));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<DOCUMENT_STATUS>> results = new ArrayList<>();
+			for (final Tiger22SaltMapper mapper : mappers) {
+				results.add(executor.submit(new Callable<DOCUMENT_STATUS>() {
+					@Override
+					public DOCUMENT_STATUS call() throws Exception {
+						return mapper.mapSDocument();
+					}
+				}));
+			}
+			for (Future<DOCUMENT_STATUS> result : results) {
+				assertEquals(DOCUMENT_STATUS.COMPLETED, result.get(60, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		for (SDocument sDocument : sDocuments) {
+			assertEquals("Der Hund bellt . Er sieht die kleine Katze Ja", sDocument.getDocumentGraph().getTextualDSs().get(0).getText());
+			assertEquals(10, sDocument.getDocumentGraph().getTokens().size());
+			assertEquals(7, sDocument.getDocumentGraph().getStructures().size());
+		}
+		assertEquals(48, loader.resources.size());
+		for (Resource resource : loader.resources) {
+			assertNull(resource.getResourceSet());
+		}
+	}
+
+	private int countAlive(List<WeakReference<Corpus>> corpora) {
+		int alive = 0;
+		for (WeakReference<Corpus> corpus : corpora) {
+			if (corpus.get() != null) {
+				alive++;
+			}
+		}
+		return alive;
+	}
+
+	/**
+	 * Tests that no model is loaded up front, when the document is streamed.
+	 */
+	@Test
+	public void testStreamedDocumentHasNoModel() throws IOException {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_STREAMING);
+		prop.setValue(true);
+		SDocument sDocument = createDocument("doc");
+
+		Tiger22SaltMapper mapper = createMapper(sDocument);
+		assertNull(mapper.getTigerCorpus());
+		assertEquals(DOCUMENT_STATUS.COMPLETED, mapper.mapSDocument());
+		assertTrue(sDocument.getDocumentGraph().getStructures().size() > 0);
+	}
+
+	/**
+	 * Tests that a file with the same content is read from the cache instead
+	 * of being parsed again, and yields the same document.
+	 */
+	@Test
+	public void testCache() throws IOException {
+		RecordingResourceLoader loader = new RecordingResourceLoader();
+		getFixture().setResourceLoader(loader);
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_CACHE);
+		prop.setValue(new File(tmpFolder.getRoot(), "cache").getAbsolutePath());
+
+		SDocument first = createDocument("first");
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(first).mapSDocument());
+		SDocument second = createDocument("second");
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(second).mapSDocument());
+
+		Tiger2Cache cache = getFixture().getCache();
+		assertEquals(1, cache.getNumberOfMisses());
+		assertEquals(1, cache.getNumberOfHits());
+		assertEquals(1, loader.resources.size());
+		assertEquals(1, cache.getDirectory().list().length);
+		assertEquals(first.getDocumentGraph().getTextualDSs().get(0).getText(), second.getDocumentGraph().getTextualDSs().get(0).getText());
+		assertEquals(first.getDocumentGraph().getTokens().size(), second.getDocumentGraph().getTokens().size());
+		assertEquals(first.getDocumentGraph().getStructures().size(), second.getDocumentGraph().getStructures().size());
+		assertEquals(first.getDocumentGraph().getRelations().size(), second.getDocumentGraph().getRelations().size());
+		assertEquals("sample", second.getName());
+	}
+
+	/**
+	 * Tests that entries exceeding the size of the cache are evicted.
+	 */
+	@Test
+	public void testCacheEviction() throws IOException {
+		PepperModuleProperty<Boolean> prop = (PepperModuleProperty<Boolean>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_STREAMING);
+		prop.setValue(true);
+		getFixture().setCache(new Tiger2Cache(new File(tmpFolder.getRoot(), "cache"), 1));
+
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(createDocument("first")).mapSDocument());
+		assertEquals(0, getFixture().getCache().getDirectory().list().length);
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(createDocument("second")).mapSDocument());
+		assertEquals(2, getFixture().getCache().getNumberOfMisses());
+	}
+
+	/**
+	 * Tests that the content of a file is hashed once for the keys of all its
+	 * parts, and again after the file changed.
+	 */
+	@Test
+	public void testCacheKeys() throws IOException {
+		Tiger2Cache cache = new Tiger2Cache(new File(tmpFolder.getRoot(), "cache"), 1);
+		File file = tmpFolder.newFile("keys.xml");
+		Files.write(file.toPath(), "<corpus/>".getBytes("UTF-8"));
+		String hash = cache.getContentHashes().get(file);
+		assertTrue(hash == cache.getContentHashes().get(file));
+		assertEquals(cache.getKey(file, false, new SegmentRange("s", 0, 10)), cache.getKey(file, false, new SegmentRange("s", 0, 10)));
+		assertFalse(cache.getKey(file, false, new SegmentRange("s", 0, 10)).equals(cache.getKey(file, false, new SegmentRange("s", 10, 20))));
+		assertFalse(cache.getKey(file, true, null).equals(cache.getKey(file, false, null)));
+
+		Files.write(file.toPath(), "<corpus></corpus>".getBytes("UTF-8"));
+		assertFalse(hash.equals(cache.getContentHashes().get(file)));
+	}
+
+	/**
+	 * Tests that the annotation scheme of a loaded TigerXML file is read once
+	 * and shared by all mappers.
+	 */
+	@Test
+	public void testAnnotationSchemeOfLoadedFile() throws IOException {
+		Tiger2ResourceLoader loader = new Tiger2ResourceLoader();
+		URI uri = getFixture().getIdentifier2ResourceTable().get(createDocument("doc").getIdentifier());
+		assertNotNull(loader.getAnnotationScheme(uri));
+		assertSame(loader.getAnnotationScheme(uri), loader.getAnnotationScheme(uri));
+		assertNull(loader.getAnnotationScheme(URI.createFileURI(new File(tmpFolder.getRoot(), "doc." + TigerResourceFactory.FILE_ENDING_TIGER2).getAbsolutePath())));
+	}
+
+	/**
+	 * Tests that the cache and the manifest share the content hashes, so that
+	 * each file is hashed once for both.
+	 */
+	@Test
+	public void testContentHashesShared() {
+		PepperModuleProperty<String> cache = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_CACHE);
+		cache.setValue(new File(tmpFolder.getRoot(), "cache").getAbsolutePath());
+		PepperModuleProperty<String> incremental = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_INCREMENTAL);
+		incremental.setValue(new File(tmpFolder.getRoot(), "manifest.txt").getAbsolutePath());
+
+		assertSame(getFixture().getCache().getContentHashes(), getFixture().getManifest().getContentHashes());
+	}
+
+	/**
+	 * Tests that a document is skipped by the next import, as long as its
+	 * file and the properties are unchanged.
+	 */
+	@Test
+	public void testIncremental() throws IOException {
+		File location = new File(tmpFolder.getRoot(), "manifest.txt");
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_INCREMENTAL);
+		prop.setValue(location.getAbsolutePath());
+		SDocument sDocument = createDocument("doc");
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+		getFixture().getManifest().save();
+
+		// unchanged, even if touched
+		File file = new File(getFixture().getIdentifier2ResourceTable().get(sDocument.getIdentifier()).toFileString());
+		file.setLastModified(file.lastModified() - 10000);
+		getFixture().setManifest(new Tiger2Manifest(location));
+		assertEquals(DOCUMENT_STATUS.DELETED, createMapper(sDocument).mapSDocument());
+		assertEquals(1, getFixture().getManifest().getNumberOfSkipped());
+
+		// changed properties
+		PepperModuleProperty<String> separator = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_TERMINAL_SEPARATOR);
+		separator.setValue("_");
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+		assertEquals(DOCUMENT_STATUS.DELETED, createMapper(sDocument).mapSDocument());
+
+		// changed file
+		Files.write(file.toPath(), "\n".getBytes("UTF-8"), StandardOpenOption.APPEND);
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+	}
+
+	/**
+	 * Tests that only the selected segments are imported via the index.
+	 */
+	@Test
+	public void testSegmentIds() throws IOException {
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_SEGMENT_IDS);
+		prop.setValue("s2, unknown");
+		SDocument sDocument = createDocument("doc");
+
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+		assertEquals("Er sieht die kleine Katze", sDocument.getDocumentGraph().getTextualDSs().get(0).getText());
+		assertEquals("sample", sDocument.getName());
+		File file = new File(getFixture().getIdentifier2ResourceTable().get(sDocument.getIdentifier()).toFileString());
+		assertTrue(TigerXMLIndex.getIndexFile(file).isFile());
+	}
+
+	/**
+	 * Tests that only segments meeting all filter criteria are imported.
+	 */
+	@Test
+	public void testSegmentFilter() throws IOException {
+		PepperModuleProperty<String> subcorpus = (PepperModuleProperty<String>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_FILTER_SUBCORPUS);
+		subcorpus.setValue("part2");
+		PepperModuleProperty<Integer> minLength = (PepperModuleProperty<Integer>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_FILTER_MIN_LENGTH);
+		minLength.setValue(2);
+		SDocument sDocument = createDocument("doc");
+
+		assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+		assertEquals("Er sieht die kleine Katze", sDocument.getDocumentGraph().getTextualDSs().get(0).getText());
+	}
+
+	/**
+	 * Tests that the files of the following documents are loaded in the
+	 * background and taken by their mappers instead of loading them again,
+	 * and that all models are released.
+	 */
+	@Test
+	public void testPrefetch() throws IOException {
+		RecordingResourceLoader loader = new RecordingResourceLoader();
+		getFixture().setResourceLoader(loader);
+		PepperModuleProperty<Integer> prop = (PepperModuleProperty<Integer>) getFixture().getProperties().getProperty(Tiger2ImporterProperties.PROP_PREFETCH);
+		prop.setValue(2);
+		List<SDocument> sDocuments = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			sDocuments.add(createDocument("doc" + i));
+			getFixture().getDocumentOrder().add(sDocuments.get(i).getIdentifier());
+		}
+
+		for (SDocument sDocument : sDocuments) {
+			assertEquals(DOCUMENT_STATUS.COMPLETED, createMapper(sDocument).mapSDocument());
+			assertEquals(10, sDocument.getDocumentGraph().getTokens().size());
+		}
+		// document 0 was loaded by its mapper, the others were prefetched
+		assertEquals(3, loader.resources.size());
+		assertEquals(2, getFixture().getPrefetcher().getNumberOfHits());
+
+		getFixture().end();
+		for (Resource resource : loader.resources) {
+			assertNull(resource.getResourceSet());
+		}
+	}
+
+	/**
+	 * Tests that a TigerXML file exceeding the memory budget is read segment
+	 * by segment without building an index, that it is only charged for its
+	 * largest segment if an index has been saved, and that the memory is
+	 * released after mapping.
+	 */
+	@Test
+	public void testMemoryBudget() throws IOException {
+		getFixture().setAdmissionControl(new Tiger2AdmissionControl(1000));
+		SDocument sDocument = createDocument("doc");
+		File file = new File(getFixture().getIdentifier2ResourceTable().get(sDocument.getIdentifier()).toFileString());
+
+		// without a saved index, the file is charged and no index is built
+		Tiger22SaltMapper mapper = createMapper(sDocument);
+		assertNull(mapper.getResourceLoader());
+		assertEquals(file.length() * Tiger2Prefetcher.MODEL_SIZE_FACTOR, mapper.getMemoryEstimate());
+		assertEquals(DOCUMENT_STATUS.COMPLETED, mapper.mapSDocument());
+		assertEquals(file.length() * Tiger2Prefetcher.MODEL_SIZE_FACTOR, mapper.getMemoryEstimate());
+		assertFalse(TigerXMLIndex.getIndexFile(file).exists());
+		assertEquals(10, sDocument.getDocumentGraph().getTokens().size());
+
+		// with a saved index, only the largest segment is charged
+		SDocument indexed = createDocument("doc2");
+		TigerXMLIndex index = TigerXMLIndex.open(new File(getFixture().getIdentifier2ResourceTable().get(indexed.getIdentifier()).toFileString()));
+		mapper = createMapper(indexed);
+		assertEquals(DOCUMENT_STATUS.COMPLETED, mapper.mapSDocument());
+		assertEquals(Tiger22SaltMapper.estimateWindow(index.getMaxLength(index.getPositions(null)), false), mapper.getMemoryEstimate());
+		assertTrue(mapper.getMemoryEstimate() < file.length() * Tiger2Prefetcher.MODEL_SIZE_FACTOR);
+		assertEquals(0, getFixture().getAdmissionControl().getNumberOfWaits());
+	}
+}
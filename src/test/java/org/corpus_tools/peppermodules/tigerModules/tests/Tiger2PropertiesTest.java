@@ -18,13 +18,20 @@
 package org.corpus_tools.peppermodules.tigerModules.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
 
 import org.corpus_tools.pepper.modules.PepperModuleProperty;
+import org.corpus_tools.pepper.modules.exceptions.PepperModulePropertyException;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2ExporterProperties;
 import org.corpus_tools.peppermodules.tigerModules.Tiger2ImporterProperties;
+import org.corpus_tools.peppermodules.tigerModules.Tiger2MappingPlan;
 import org.corpus_tools.salt.SALT_TYPE;
 import org.junit.Before;
 import org.junit.Test;
@@ -155,4 +162,93 @@ public class Tiger2PropertiesTest {
 		assertTrue(getFixture().getRelationReversed().contains("a"));
 	}
 
+	@Test
+	public void testSplit() {
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_SPLIT);
+		assertNull(getFixture().getSplitMode());
+
+		prop.setValue("segments: 1000");
+		assertEquals(Tiger2ImporterProperties.SPLIT_SEGMENTS, getFixture().getSplitMode());
+		assertEquals(1000, getFixture().getSplitSize());
+
+		prop.setValue("subcorpus");
+		assertEquals(Tiger2ImporterProperties.SPLIT_SUBCORPUS, getFixture().getSplitMode());
+		assertEquals(0, getFixture().getSplitSize());
+	}
+
+	@Test(expected = PepperModulePropertyException.class)
+	public void testSplitWithoutSize() {
+		PepperModuleProperty<String> prop = (PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_SPLIT);
+		prop.setValue("tokens");
+		getFixture().getSplitMode();
+	}
+
+	/**
+	 * Tests that the mapping plan combines the edge related properties per
+	 * edge type.
+	 */
+	@Test
+	public void testMappingPlan() {
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_EDGE_2_SRELATION)).setValue("prim:" + SALT_TYPE.SDOMINANCE_RELATION + ", sec:" + SALT_TYPE.SPOINTING_RELATION);
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_RENAME_EDGE_TYPE)).setValue("prim=edge");
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_RENAME_ANNOTATION_NAME)).setValue("lemma=LEMMA");
+		Tiger2MappingPlan plan = getFixture().getMappingPlan();
+
+		assertSame(plan, getFixture().getMappingPlan());
+		assertEquals(SALT_TYPE.SDOMINANCE_RELATION, plan.getEdgeMapping("prim").getSaltType());
+		assertFalse(plan.getEdgeMapping("prim").isReversed());
+		assertEquals("edge", plan.getEdgeMapping("prim").getType("prim"));
+		assertEquals(SALT_TYPE.SPOINTING_RELATION, plan.getEdgeMapping("sec").getSaltType());
+		assertTrue(plan.getEdgeMapping("sec").isReversed());
+		assertEquals("sec", plan.getEdgeMapping("sec").getType("sec"));
+		assertNull(plan.getEdgeMapping("other").getSaltType());
+		assertEquals("other", plan.getEdgeMapping("other").getType("other"));
+		assertNull(plan.getEdgeMapping(null).getSaltType());
+		assertEquals("LEMMA", plan.getAnnotationName("lemma"));
+		assertEquals("pos", plan.getAnnotationName("pos"));
+
+		getFixture().reset();
+		assertNotSame(plan, getFixture().getMappingPlan());
+	}
+
+	/**
+	 * Tests that a name is projected, if it is included and not excluded.
+	 */
+	@Test
+	public void testMappingPlanProjection() {
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_ANNOTATION_INCLUDE)).setValue("pos, cat");
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_EDGE_EXCLUDE)).setValue("sec");
+		Tiger2MappingPlan plan = getFixture().getMappingPlan();
+
+		assertTrue(plan.isAnnotationMapped("pos"));
+		assertFalse(plan.isAnnotationMapped("lemma"));
+		assertFalse(plan.isAnnotationMapped(null));
+		assertTrue(plan.isEdgeMapped("prim"));
+		assertFalse(plan.isEdgeMapped("sec"));
+		assertTrue(plan.isEdgeMapped(null));
+	}
+
+	@Test(expected = PepperModulePropertyException.class)
+	public void testMappingPlanWithInvalidSaltType() {
+		((PepperModuleProperty<String>) getFixture().getProperty(Tiger2ImporterProperties.PROP_EDGE_2_SRELATION)).setValue("prim:NO_SALT_TYPE");
+		getFixture().getMappingPlan();
+	}
+
+	/**
+	 * Tests that the exporter reads the renaming tables of the importer in
+	 * reverse, so that the same property values undo the renaming.
+	 */
+	@Test
+	public void testExporterRenamingInReverse() {
+		Tiger2ExporterProperties props = new Tiger2ExporterProperties();
+		((PepperModuleProperty<String>) props.getProperty(Tiger2ExporterProperties.PROP_RENAME_EDGE_TYPE)).setValue("prim=edge, sec=secedge");
+		((PepperModuleProperty<String>) props.getProperty(Tiger2ExporterProperties.PROP_RENAME_ANNOTATION_NAME)).setValue("lemma=LEMMA, stem=LEMMA");
+
+		Map<String, String> edgeTypes = props.getEdgeTypes();
+		assertEquals("prim", edgeTypes.get("edge"));
+		assertEquals("sec", edgeTypes.get("secedge"));
+		assertEquals(2, edgeTypes.size());
+		assertEquals("lemma", props.getAnnotationNames().get("LEMMA"));
+		assertTrue(props.getRelationReversed().contains("sec"));
+	}
 }